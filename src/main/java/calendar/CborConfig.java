@@ -0,0 +1,33 @@
+package calendar;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * CBOR (RFC 8949), a binary encoding of the same documents as the JSON responses, for clients which send
+ * "Accept: application/cbor". JSON stays the default for every other Accept header.
+ */
+@Configuration
+class CborConfig {
+
+    /**
+     * Replaces the CBOR converter Spring MVC registers by default with one configured like the JSON converter
+     * (same modules and date format), so both formats carry the same fields and values.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(cborMapper(builder));
+    }
+
+    /**
+     * @param builder - A builder with the configuration of the application (a new one for each injection point).
+     * @return a CBOR mapper with the configuration of the JSON mapper.
+     */
+    static ObjectMapper cborMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.createXmlMapper(false).factory(new CBORFactory()).build();
+    }
+}
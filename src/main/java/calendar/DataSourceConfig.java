@@ -0,0 +1,45 @@
+package calendar;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Turns on server side cursors for MySQL, so the fetch size of the streamed event queries is honored:
+ * without useCursorFetch=true Connector/J reads the whole result set into memory before the first row.
+ */
+@Configuration
+class DataSourceConfig {
+
+    static final String CURSOR_FETCH = "useCursorFetch";
+
+    @Bean
+    public static BeanPostProcessor mysqlCursorFetch() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+
+                if (bean instanceof HikariDataSource) {
+                    enableCursorFetch((HikariDataSource) bean);
+                }
+
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Adds useCursorFetch=true to a MySQL pool before its first connection, unless the url already sets it.
+     *
+     * @param dataSource - The pool of the application.
+     */
+    static void enableCursorFetch(HikariDataSource dataSource) {
+
+        String url = dataSource.getJdbcUrl();
+
+        if (url != null && url.startsWith("jdbc:mysql:") && !url.contains(CURSOR_FETCH + "=")) {
+            dataSource.addDataSourceProperty(CURSOR_FETCH, "true");
+        }
+    }
+}
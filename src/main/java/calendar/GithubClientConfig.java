@@ -0,0 +1,50 @@
+package calendar;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One HTTP client for the calls to GitHub: connections are kept alive and reused between logins,
+ * and no call can hang a thread longer than its timeouts.
+ */
+@Configuration
+class GithubClientConfig {
+
+    @Bean
+    public CloseableHttpClient githubHttpClient(@Value("${github.http.max-connections:50}") int maxConnections,
+                                                @Value("${github.http.connect-timeout:2000}") int connectTimeout,
+                                                @Value("${github.http.read-timeout:5000}") int readTimeout,
+                                                @Value("${github.http.pool-timeout:1000}") int poolTimeout) {
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setValidateAfterInactivity(2000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .setConnectionRequestTimeout(poolTimeout)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate githubRestTemplate(CloseableHttpClient githubHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(githubHttpClient));
+    }
+}
@@ -1,18 +1,35 @@
 package calendar;
 
+import calendar.filters.EventTopicInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.util.MimeType;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.util.List;
+
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    public static final MimeType APPLICATION_CBOR = new MimeType("application", "cbor");
+
+    @Autowired
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    @Autowired
+    private EventTopicInterceptor eventTopicInterceptor;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/notifications", "/update");
+        config.enableSimpleBroker("/notifications", "/update", "/events");
         config.setApplicationDestinationPrefixes("/app");
     }
 
@@ -21,8 +38,26 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(eventTopicInterceptor);
+    }
 
+    /**
+     * Adds CBOR next to the JSON converter, for frames a client sends with "content-type:application/cbor".
+     * CBOR needs binary frames, which only the raw WebSocket transport (/ws/websocket) carries: the SockJS fallbacks
+     * are text only, and Spring writes the frames it sends as text unless they are application/octet-stream,
+     * so what the server sends stays JSON. The converter only matches its content type, so frames without one
+     * stay JSON whatever the order of the converters.
+     */
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
 
+        MappingJackson2MessageConverter cborConverter = new MappingJackson2MessageConverter(APPLICATION_CBOR);
+        cborConverter.setObjectMapper(CborConfig.cborMapper(objectMapperBuilder));
+        cborConverter.setStrictContentTypeMatch(true);
+        messageConverters.add(cborConverter);
 
-
+        return true;
+    }
 }
@@ -4,17 +4,24 @@ import calendar.controller.request.UserRequest;
 import calendar.controller.response.BaseResponse;
 import calendar.entities.DTO.*;
 import calendar.entities.User;
-import calendar.entities.enums.ProviderType;
-import calendar.eventNotifications.NotificationPublisher;
+import calendar.filters.Authenticated;
 import calendar.service.AuthService;
 import calendar.service.GithubAuthService;
+import calendar.service.LoginRateLimiter;
 import calendar.utils.InputValidation;
 import org.apache.logging.log4j.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.sql.SQLDataException;
+
+import javax.servlet.http.HttpServletRequest;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @CrossOrigin
@@ -27,7 +34,8 @@ public class AuthController {
     private GithubAuthService githubAuthService;
 
     @Autowired
-    public NotificationPublisher notificationPublisher;
+    private LoginRateLimiter loginRateLimiter;
+
     @Autowired
     private static final Logger logger = LogManager.getLogger(AuthController.class.getName());
 
@@ -51,25 +59,26 @@ public class AuthController {
         }
 
         try {
-            User createdUser = authService.createUser(userRequest, ProviderType.LOCAL);
-            notificationPublisher.publishRegistrationNotification(createdUser.getEmail());
+            User createdUser = authService.register(userRequest);
             return ResponseEntity.ok(BaseResponse.success(new UserDTO(createdUser)));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(BaseResponse.failure("Email already exists"));
+        } catch (RejectedExecutionException e) {
+            return serverBusy();
         }
     }
 
     /**
      * User logs in into our system with his email and password.
+     * Too many attempts for the email or from the client address are rejected with 429 before the password is checked.
      * @param userRequest -  All the information of the user we wish to log in.
+     * @param request - The http request, for the address of the client.
      * @return LoginData: Information of the logged-in user.
      */
     @RequestMapping(method = RequestMethod.POST, path = "/login")
-    public  ResponseEntity<BaseResponse<LoginDataDTO>> login(@RequestBody UserRequest userRequest) {
+    public  ResponseEntity<BaseResponse<LoginDataDTO>> login(@RequestBody UserRequest userRequest, HttpServletRequest request) {
         logger.info("in login()");
 
-        Optional<LoginDataDTO> loginData = authService.login(userRequest);
-
         if (!InputValidation.isValidEmail(userRequest.getEmail())) {
             return ResponseEntity.badRequest().body(BaseResponse.failure("Invalid email address!"));
         }
@@ -77,28 +86,122 @@ public class AuthController {
             return ResponseEntity.badRequest().body(BaseResponse.failure("Invalid password!"));
         }
 
+        if (loginRateLimiter.admit(userRequest.getEmail(), loginRateLimiter.getClientIp(request)) != LoginRateLimiter.Decision.ALLOWED) {
+            return tooManyAttempts();
+        }
+
+        Optional<LoginDataDTO> loginData;
+
+        try {
+            loginData = authService.login(userRequest);
+        } catch (RejectedExecutionException e) {
+            return serverBusy();
+        }
+
         return loginData.map(value -> ResponseEntity.ok(BaseResponse.success(value))).
                 orElseGet(() -> ResponseEntity.badRequest().body(BaseResponse.failure("Failed to log in: Wrong Email or Password")));
     }
 
     /**
-     * User logs in into our system with his GitHub.
+     * User logs in into our system with his GitHub, the request thread is released while GitHub answers.
+     * Too many attempts from the client address are rejected with 429 before GitHub is called,
+     * and 503 is returned at once while GitHub is unavailable.
      * @param code -  A code given by the GitHub API to proceed with the login process.
+     * @param request - The http request, for the address of the client.
      * @return LoginData: user id and token.
      */
     @RequestMapping(method = RequestMethod.POST, path = "/loginGithub")
-    public ResponseEntity<BaseResponse<LoginDataDTO>> loginGithub(@RequestParam String code) throws SQLDataException {
+    public CompletableFuture<ResponseEntity<BaseResponse<LoginDataDTO>>> loginGithub(@RequestParam String code, HttpServletRequest request) {
         logger.info("in loginGithub()");
 
-        Optional<LoginDataDTO> loginData = githubAuthService.loginGithub(code);
+        if (loginRateLimiter.admit(null, loginRateLimiter.getClientIp(request)) != LoginRateLimiter.Decision.ALLOWED) {
+            return CompletableFuture.completedFuture(tooManyAttempts());
+        }
 
-        if (loginData == null || !loginData.isPresent()) {
-            return ResponseEntity.badRequest().body(BaseResponse.failure("Failed to log in with github"));
+        return githubAuthService.loginGithub(code).handle((loginData, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+
+                if (cause instanceof RejectedExecutionException || cause instanceof TimeoutException) {
+                    logger.error("GitHub login failed - " + cause);
+                    return serverBusy();
+                }
+
+                logger.error("GitHub login failed - " + cause);
+                return ResponseEntity.badRequest().body(BaseResponse.failure("Failed to log in with github"));
+            }
+
+            if (loginData == null || !loginData.isPresent()) {
+                return ResponseEntity.badRequest().body(BaseResponse.failure("Failed to log in with github"));
+            }
+
+            logger.info("User github has logged in");
+            logger.info("login data: " + loginData);
+
+            return ResponseEntity.ok(BaseResponse.success(loginData.get()));
+        });
+    }
+
+    /**
+     * Ends the session of the token in the header, the other sessions of the user stay valid.
+     * @param token - The token of the session we wish to end.
+     * @return a success message, or bad request if the session does not exist.
+     */
+    @RequestMapping(method = RequestMethod.POST, path = "/logout")
+    public ResponseEntity<BaseResponse<String>> logout(@RequestHeader("token") String token) {
+        logger.info("in logout()");
+
+        if (!authService.logout(token)) {
+            return ResponseEntity.badRequest().body(BaseResponse.failure("The session does not exist!"));
         }
 
-        logger.info("User github has logged in");
-        logger.info("login data: " + loginData);
+        return ResponseEntity.ok(BaseResponse.success("Logged out"));
+    }
+
+    /**
+     * Ends all the sessions of the logged-in user, on all of his devices.
+     * @param userId - The id of the logged-in user.
+     * @return the amount of sessions that were ended.
+     */
+    @Authenticated
+    @RequestMapping(method = RequestMethod.POST, path = "/logoutAll")
+    public ResponseEntity<BaseResponse<Integer>> logoutAll(@RequestAttribute("userId") int userId) {
+        logger.info("in logoutAll()");
+
+        return ResponseEntity.ok(BaseResponse.success(authService.logoutAll(userId)));
+    }
+
+    /**
+     * Returns how many login attempts were let through and how many were rejected by each limit.
+     * @return the counters of the login rate limiter.
+     */
+    @Authenticated
+    @GetMapping(value = "/limiter")
+    public ResponseEntity<BaseResponse<LoginLimiterStatsDTO>> getLimiterStats() {
+        logger.debug("in getLimiterStats()");
+
+        return ResponseEntity.ok(BaseResponse.success(loginRateLimiter.getStats()));
+    }
 
-        return ResponseEntity.ok(BaseResponse.success(loginData.get()));
+    /**
+     * Answers a login attempt the rate limiter rejected.
+     *
+     * @return 429 with a Retry-After header.
+     */
+    private <T> ResponseEntity<BaseResponse<T>> tooManyAttempts() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(loginRateLimiter.getRetryAfterSeconds()))
+                .body(BaseResponse.failure("Too many login attempts, please try again later"));
+    }
+
+    /**
+     * Answers a request we cannot serve right now (the password hasher is overloaded or GitHub is unavailable),
+     * so clients back off instead of waiting on a full queue.
+     *
+     * @return 503 with a Retry-After header.
+     */
+    private static <T> ResponseEntity<BaseResponse<T>> serverBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(BaseResponse.failure("The server is busy, please try again"));
     }
 }
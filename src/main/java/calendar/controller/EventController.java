@@ -1,23 +1,32 @@
 package calendar.controller;
 
 import calendar.controller.request.EventRequest;
+import calendar.controller.request.FieldSelection;
 import calendar.controller.response.BaseResponse;
+import calendar.controller.response.JsonStreamWriter;
+import calendar.controller.response.SelectableFields;
 import calendar.entities.*;
 import calendar.entities.DTO.EventDTO;
+import calendar.entities.DTO.EventPageDTO;
+import calendar.entities.DTO.EventSummaryDTO;
 import calendar.entities.DTO.RoleDTO;
 import calendar.entities.DTO.UserDTO;
 import calendar.entities.enums.*;
-import calendar.eventNotifications.NotificationPublisher;
+import calendar.filters.Authenticated;
+import calendar.filters.EventRoles;
 import calendar.service.*;
 import calendar.utils.Utils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.sql.SQLDataException;
 import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -32,7 +41,7 @@ public class EventController {
     @Autowired
     private UserService userService;
     @Autowired
-    private NotificationPublisher notificationPublisher;
+    private JsonStreamWriter jsonStreamWriter;
 
     private static final Logger logger = LogManager.getLogger(EventController.class.getName());
 
@@ -42,6 +51,7 @@ public class EventController {
      * @param eventRequest - The information of the event we want to save in the database.
      * @return BaseResponse with the created event on success or error message on fail.
      */
+    @Authenticated
     @PostMapping(value = "/saveEvent")
     public ResponseEntity<BaseResponse<EventDTO>> saveEvent(@RequestAttribute("userId") int userId, @RequestBody EventRequest eventRequest) {
 
@@ -70,17 +80,12 @@ public class EventController {
      * @param userId  - The id of the user who wishes to delete the event.
      * @return BaseResponse with a message (deleted successfully or error)
      */
+    @EventRoles({RoleType.ORGANIZER})
     @RequestMapping(value = "/deleteEvent", method = RequestMethod.DELETE)
     public ResponseEntity<BaseResponse<String>> deleteEvent(@RequestAttribute("userId") int userId, @RequestParam int eventId) {
 
         logger.info("In delete event inside EventController");
 
-        User userOfEvent = userService.getById(userId);
-
-        if (userOfEvent == null) {
-            return ResponseEntity.badRequest().body(BaseResponse.failure("The user does not exist!"));
-        }
-
         Event event = eventService.getEventById(eventId);
 
         if (event == null) {
@@ -96,18 +101,29 @@ public class EventController {
     /**
      * get an event from the database by an event id if it exists.
      *
-     * @param id - the id of the event we wish to retrieve.
+     * @param id     - the id of the event we wish to retrieve.
+     * @param fields - The fields of the event to send (all if missing), the roles and attachments are only loaded if asked for.
      * @return The event in DTO format we wanted to get or an error message if not found.
      */
+    @SelectableFields
     @RequestMapping(value = "/getEventById", method = RequestMethod.GET)
-    public ResponseEntity<BaseResponse<EventDTO>> getEventById(@RequestParam int id) {
+    public ResponseEntity<BaseResponse<EventDTO>> getEventById(@RequestParam int id,
+                                                               @RequestParam(required = false) String fields) {
 
         logger.info("in get event by id inside EventController");
 
-        Event event = eventService.getEventById(id);
+        FieldSelection selection = FieldSelection.parse(fields);
+        EventDTO event;
+
+        if (selection.includes("roles") || selection.includes("attachments")) {
+            Event eventDB = eventService.getEventById(id);
+            event = eventDB == null ? null : new EventDTO(eventDB);
+        } else {
+            event = eventService.getEventDTOById(id);
+        }
 
         if (event != null) {
-            return ResponseEntity.ok(BaseResponse.success(new EventDTO(event)));
+            return ResponseEntity.ok(BaseResponse.success(event));
         } else {
             return ResponseEntity.badRequest().body(BaseResponse.failure(String.format("The event %s does not exist!", id)));
         }
@@ -122,6 +138,7 @@ public class EventController {
      * @param eventId  - The event ID.
      * @return BaseResponse with a data of the Updated Event or error message on fail.
      */
+    @EventRoles({RoleType.ORGANIZER, RoleType.ADMIN})
     @RequestMapping(value = "/updateEvent/event", method = RequestMethod.PUT)
     public ResponseEntity<BaseResponse<EventDTO>> updateEvent(@RequestAttribute("roleType") RoleType roleType,
                                                               @RequestParam int eventId, @RequestBody EventRequest event) {
@@ -140,7 +157,6 @@ public class EventController {
             }
 
             if (res != null) {
-                notificationPublisher.publishEventChangeNotification(res);
                 return ResponseEntity.ok(BaseResponse.success(new EventDTO(res)));
             }
 
@@ -183,6 +199,7 @@ public class EventController {
      * @param userId  - The user id of the user we wish to switch his role.
      * @return -The role after the changes
      */
+    @EventRoles({RoleType.ORGANIZER})
     @RequestMapping(value = "/switchRole", method = RequestMethod.PATCH)
     public ResponseEntity<BaseResponse<RoleDTO>> switchRole(@RequestParam("eventId") int eventId, @RequestBody int userId) {
 
@@ -191,7 +208,6 @@ public class EventController {
         try {
 
             RoleDTO roleDTO = new RoleDTO(eventService.switchRole(userId, eventId));
-            notificationPublisher.publishUserRoleChangedNotification(eventId, userId);
 
             return ResponseEntity.ok(BaseResponse.success(roleDTO));
         } catch (IllegalArgumentException e) {
@@ -208,6 +224,7 @@ public class EventController {
      * @param approveOrReject - A boolean value true if approved false if rejected.
      * @return -the role after the changes.
      */
+    @Authenticated
     @RequestMapping(value = "/switchStatus", method = RequestMethod.PATCH)
     public ResponseEntity<BaseResponse<RoleDTO>> switchStatus(@RequestParam("booleanValue") boolean approveOrReject,
                                                               @RequestParam("eventId") int eventId,
@@ -218,7 +235,6 @@ public class EventController {
         try {
 
             Role role = eventService.switchStatus(userId, eventId, approveOrReject);
-            notificationPublisher.publishUserStatusChangedNotification(eventId, userId);
 
             return ResponseEntity.ok(BaseResponse.success(new RoleDTO(role)));
         } catch (IllegalArgumentException e) {
@@ -236,6 +252,7 @@ public class EventController {
      * @param eventId -The id of the event we wish to add the guest to.
      * @return the invited user role.
      */
+    @EventRoles({RoleType.ORGANIZER, RoleType.ADMIN})
     @RequestMapping(value = "/inviteGuest", method = RequestMethod.POST)
     public ResponseEntity<BaseResponse<RoleDTO>> inviteGuest(@RequestParam String email, @RequestParam int eventId) {
 
@@ -250,7 +267,6 @@ public class EventController {
         try {
 
             Role roleToAdd = eventService.inviteGuest(user, eventId);
-            notificationPublisher.publishInviteGuestNotification(eventId, user.getEmail());
 
             if (roleToAdd != null) {
                 return ResponseEntity.ok(BaseResponse.success(new RoleDTO(roleToAdd)));
@@ -271,6 +287,7 @@ public class EventController {
      * @param eventId -The id of the event we wish to remove the guest from.
      * @return a message confirming the removal of the guest.
      */
+    @EventRoles({RoleType.ORGANIZER, RoleType.ADMIN})
     @RequestMapping(value = "/removeGuest", method = RequestMethod.DELETE)
     public ResponseEntity<BaseResponse<RoleDTO>> removeGuest(@RequestParam String email, @RequestParam int eventId) {
 
@@ -285,7 +302,6 @@ public class EventController {
         try {
 
             Role roleToRemove = eventService.removeGuest(user.getId(), eventId);
-            notificationPublisher.publishRemoveUserFromEventNotification(eventId, user.getEmail());
 
             return ResponseEntity.ok(BaseResponse.success(new RoleDTO(roleToRemove)));
         } catch (IllegalArgumentException e) {
@@ -301,17 +317,12 @@ public class EventController {
      * @param userId- The id of the user who wishes to leave the event.
      * @return The 'Role' representing the user id and event id of the user who left.
      */
+    @EventRoles({RoleType.ADMIN, RoleType.GUEST})
     @RequestMapping(value = "/leaveEvent", method = RequestMethod.PATCH)
     public ResponseEntity<BaseResponse<RoleDTO>> leaveEvent(@RequestAttribute("userId") int userId, @RequestParam int eventId) {
 
         logger.info("in leave event inside EventController");
 
-        User user = userService.getById(userId);
-
-        if (user == null) {
-            return ResponseEntity.badRequest().body(BaseResponse.failure("The user is not registered in our app!"));
-        }
-
         try {
             Role roleToHide = eventService.leaveEvent(userId, eventId);
 
@@ -329,52 +340,136 @@ public class EventController {
     /**
      * Returns a list of all my events I want to display in my calendar. (Meaning events i did not leave).
      * @param userId-      My user id which I get by using the token in the filter.
-     * @return The list of all relevant events to show in my calendar.
+     * @param normalized - true to add the guest lists, with every user once in the users of the response.
+     * @param fields     - The fields of the events to send (all if missing), the guest lists are only loaded if asked for.
+     * @return The summaries of all relevant events to show in my calendar.
      */
+    @Authenticated
+    @SelectableFields
     @GetMapping(value = "/getEventsByUserIdShowOnly")
-    public ResponseEntity<BaseResponse<List<EventDTO>>> getEventsByUserIdShowOnly(@RequestAttribute("userId") int userId) {
+    public ResponseEntity<BaseResponse<List<EventSummaryDTO>>> getEventsByUserIdShowOnly(@RequestAttribute("userId") int userId,
+                                                                                        @RequestParam(defaultValue = "false") boolean normalized,
+                                                                                        @RequestParam(required = false) String fields) {
 
         logger.info("in get events by user id show only inside EventController");
 
-        User userOfEvent = userService.getById(userId);
+        List<EventSummaryDTO> events = eventService.getEventsByUserIdShowOnly(userId);
 
-        if (userOfEvent == null) {
-            return ResponseEntity.badRequest().body(BaseResponse.failure("The user does not exist!"));
-        }
+        return ResponseEntity.ok(eventsResponse(events, events, normalized, fields));
+    }
 
-        List<Event> events = eventService.getEventsByUserIdShowOnly(userId);
+    /**
+     * get all events of a user by his id.
+     *
+     * @param userId     - the id of the user we want to get all of his events.
+     * @param normalized - true to add the guest lists, with every user once in the users of the response.
+     * @param fields     - The fields of the events to send (all if missing), the guest lists are only loaded if asked for.
+     * @return a list of the summaries of all the events.
+     */
+    @Authenticated
+    @SelectableFields
+    @GetMapping(value = "/getEventsByUserId")
+    public ResponseEntity<BaseResponse<List<EventSummaryDTO>>> getEventsByUserId(@RequestAttribute("userId") int userId,
+                                                                                @RequestParam(defaultValue = "false") boolean normalized,
+                                                                                @RequestParam(required = false) String fields) {
 
-        List<EventDTO> eventsDTO = EventDTO.convertEventsToEventsDTO(events);
+        logger.info("in get events by user id inside EventController");
 
-//        eventsDTO = Utils.changeEventTimesByTimeZone(eventsDTO,userOfEvent.getCity());
+        List<EventSummaryDTO> events = eventService.getEventsByUserId(userId);
 
-        return ResponseEntity.ok(BaseResponse.success(eventsDTO));
+        return ResponseEntity.ok(eventsResponse(events, events, normalized, fields));
     }
 
     /**
-     * get all events of a user by his id.
+     * Streams all events of a user while they are read from the database, for calendars too long to build in memory.
      *
      * @param userId - the id of the user we want to get all of his events.
-     * @return a list of all the events.
+     * @param stream - "json" for the same body as without streaming, "ndjson" for one event per line.
+     * @return the summaries of all the events, written as they are read.
      */
-    @GetMapping(value = "/getEventsByUserId")
-    public ResponseEntity<BaseResponse<List<EventDTO>>> getEventsByUserId(@RequestAttribute("userId") int userId) {
+    @Authenticated
+    @GetMapping(value = "/getEventsByUserId", params = "stream")
+    public ResponseEntity<StreamingResponseBody> streamEventsByUserId(@RequestAttribute("userId") int userId,
+                                                                      @RequestParam String stream) {
 
-        logger.info("in get events by user id inside EventController");
+        logger.info("in stream events by user id inside EventController");
 
-        User userOfEvent = userService.getById(userId);
+        return jsonStreamWriter.<EventSummaryDTO>stream(stream, sink -> eventService.streamEventsByUserId(userId, sink));
+    }
 
-        if (userOfEvent == null) {
-            return ResponseEntity.badRequest().body(BaseResponse.failure("The user does not exist!"));
-        }
+    /**
+     * get one page of my events which overlap a time window (a week or a month in the calendar).
+     *
+     * @param userId   - My user id which I get by using the token in the filter.
+     * @param from     - The start of the window.
+     * @param to       - The end of the window.
+     * @param cursor   - The nextCursor of the previous page, empty for the first page.
+     * @param limit    - The maximum amount of events in the page.
+     * @param normalized - true to add the guest lists, with every user once in the users of the response.
+     * @param fields     - The fields of the events to send (all if missing), the guest lists are only loaded if asked for.
+     * @return a page of event summaries and the cursor of the next page (null if this is the last page).
+     */
+    @Authenticated
+    @SelectableFields("events")
+    @GetMapping(value = "/getEventsByUserIdInRange")
+    public ResponseEntity<BaseResponse<EventPageDTO>> getEventsByUserIdInRange(@RequestAttribute("userId") int userId,
+                                                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+                                                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+                                                                               @RequestParam(required = false) String cursor,
+                                                                               @RequestParam(defaultValue = "100") int limit,
+                                                                               @RequestParam(defaultValue = "false") boolean normalized,
+                                                                               @RequestParam(required = false) String fields) {
+
+        logger.info("in get events by user id in range inside EventController");
+
+        return getEventsPageInRange(userId, from, to, cursor, limit, false, normalized, fields);
+    }
+
+    /**
+     * get one page of my events which overlap a time window, only the ones I did not leave.
+     *
+     * @param userId   - My user id which I get by using the token in the filter.
+     * @param from     - The start of the window.
+     * @param to       - The end of the window.
+     * @param cursor   - The nextCursor of the previous page, empty for the first page.
+     * @param limit    - The maximum amount of events in the page.
+     * @param normalized - true to add the guest lists, with every user once in the users of the response.
+     * @param fields     - The fields of the events to send (all if missing), the guest lists are only loaded if asked for.
+     * @return a page of event summaries and the cursor of the next page (null if this is the last page).
+     */
+    @Authenticated
+    @SelectableFields("events")
+    @GetMapping(value = "/getEventsByUserIdShowOnlyInRange")
+    public ResponseEntity<BaseResponse<EventPageDTO>> getEventsByUserIdShowOnlyInRange(@RequestAttribute("userId") int userId,
+                                                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+                                                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+                                                                                       @RequestParam(required = false) String cursor,
+                                                                                       @RequestParam(defaultValue = "100") int limit,
+                                                                                       @RequestParam(defaultValue = "false") boolean normalized,
+                                                                                       @RequestParam(required = false) String fields) {
+
+        logger.info("in get events by user id show only in range inside EventController");
+
+        return getEventsPageInRange(userId, from, to, cursor, limit, true, normalized, fields);
+    }
 
-        List<Event> events = eventService.getEventsByUserId(userId);
+    private ResponseEntity<BaseResponse<EventPageDTO>> getEventsPageInRange(int userId, ZonedDateTime from, ZonedDateTime to,
+                                                                            String cursor, int limit, boolean showOnly,
+                                                                            boolean normalized, String fields) {
+        try {
+            List<EventSummaryDTO> events = eventService.getEventsByUserIdInRange(userId, from, to, cursor, limit, showOnly);
 
-        List<EventDTO> eventsDTO = EventDTO.convertEventsToEventsDTO(events);
+            String nextCursor = null;
 
-//        eventsDTO = Utils.changeEventTimesByTimeZone(eventsDTO, userOfEvent.getCity());
+            if (events.size() == limit) {
+                nextCursor = EventService.getCursorAfter(events.get(events.size() - 1));
+            }
+
+            return ResponseEntity.ok(eventsResponse(new EventPageDTO(events, nextCursor), events, normalized, fields));
+        } catch (IllegalArgumentException e) {
 
-        return ResponseEntity.ok(BaseResponse.success(eventsDTO));
+            return ResponseEntity.badRequest().body(BaseResponse.failure(e.getMessage()));
+        }
     }
 
     /**
@@ -385,12 +480,18 @@ public class EventController {
      *
      * @param sharedEmails - An array of all the emails of the users who shared his calendar with me which i want to see.
      * @param userId-      My user id which I get by using the token in the filter.
-     * @return The list of all relevant events to show in my calendar.
+     * @param normalized - true to add the guest lists, with every user once in the users of the response.
+     * @param fields     - The fields of the events to send (all if missing), the guest lists are only loaded if asked for.
+     * @return The summaries of all relevant events to show in my calendar.
      */
 
+    @Authenticated
+    @SelectableFields
     @PostMapping(value = "/GetAllShared")
-    public ResponseEntity<BaseResponse<List<EventDTO>>> GetAllShared(@RequestAttribute("userId") int userId,
-                                                                     @RequestBody String[] sharedEmails) {
+    public ResponseEntity<BaseResponse<List<EventSummaryDTO>>> GetAllShared(@RequestAttribute("userId") int userId,
+                                                                     @RequestBody String[] sharedEmails,
+                                                                     @RequestParam(defaultValue = "false") boolean normalized,
+                                                                     @RequestParam(required = false) String fields) {
         User user = userService.getById(userId);
 
         if (user == null) {
@@ -403,14 +504,63 @@ public class EventController {
 
         try {
 
-           List<EventDTO> events =  EventDTO.convertEventsToEventsDTO(eventService.GetAllShared(user, sharedEmails));
-
-//           events = Utils.changeEventTimesByTimeZone(events,user.getCity());
+           List<EventSummaryDTO> events = eventService.GetAllShared(user, sharedEmails);
 
-            return ResponseEntity.ok(BaseResponse.success(events));
+            return ResponseEntity.ok(eventsResponse(events, events, normalized, fields));
         } catch (IllegalArgumentException e) {
 
             return ResponseEntity.badRequest().body(BaseResponse.failure(String.format(e.getMessage())));
         }
     }
+
+    /**
+     * Streams the same events as GetAllShared while they are read from the database.
+     *
+     * @param userId       - My user id which I get by using the token in the filter.
+     * @param sharedEmails - An array of all the emails of the users who shared his calendar with me which i want to see.
+     * @param stream       - "json" for the same body as without streaming, "ndjson" for one event per line.
+     * @return The summaries of all relevant events to show in my calendar, written as they are read,
+     * or bad request if one of the emails does not belong to any user.
+     */
+    @Authenticated
+    @PostMapping(value = "/GetAllShared", params = "stream")
+    public ResponseEntity<StreamingResponseBody> streamAllShared(@RequestAttribute("userId") int userId,
+                                                                 @RequestBody String[] sharedEmails,
+                                                                 @RequestParam String stream) {
+        User user = userService.getById(userId);
+
+        if (user == null) {
+            return jsonStreamWriter.failure("The user does not exist!");
+        }
+
+        // resolved before the body is written, once it started the status can not change anymore.
+        List<User> sharedUsers;
+
+        try {
+            sharedUsers = eventService.getValidSharedUsers(user, sharedEmails);
+        } catch (IllegalArgumentException e) {
+            return jsonStreamWriter.failure(e.getMessage());
+        }
+
+        return jsonStreamWriter.<EventSummaryDTO>stream(stream, sink -> eventService.streamAllShared(user, sharedUsers, sink));
+    }
+
+    /**
+     * Wraps event summaries in a response, in the normalized format the guest lists are added to the events and their
+     * users are sent once in the users of the response.
+     *
+     * @param data       - The data of the response.
+     * @param events     - The summaries in the data.
+     * @param normalized - true for the normalized format.
+     * @param fields     - The selected fields of the events, the guest lists are skipped if they were not selected.
+     * @return the response.
+     */
+    private <T> BaseResponse<T> eventsResponse(T data, List<EventSummaryDTO> events, boolean normalized, String fields) {
+
+        if (!normalized || events == null || !FieldSelection.parse(fields).includes("participants")) {
+            return BaseResponse.success(data);
+        }
+
+        return BaseResponse.success(data, eventService.addParticipants(events));
+    }
 }
@@ -0,0 +1,57 @@
+package calendar.controller;
+
+import calendar.controller.response.BaseResponse;
+import calendar.entities.DTO.DeliveryLaneStatsDTO;
+import calendar.entities.DTO.OutboxStatsDTO;
+import calendar.eventNotifications.delivery.NotificationDelivery;
+import calendar.eventNotifications.outbox.NotificationOutbox;
+import calendar.filters.Authenticated;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Operational counters of the notification delivery, for logged-in users only.
+ */
+@RestController
+@CrossOrigin
+@Authenticated
+@RequestMapping("/notification")
+public class NotificationDeliveryController {
+    @Autowired
+    private NotificationDelivery notificationDelivery;
+    @Autowired
+    private NotificationOutbox notificationOutbox;
+
+    private static final Logger logger = LogManager.getLogger(NotificationDeliveryController.class.getName());
+
+    /**
+     * Returns the state of every notification delivery lane: queue depth, counters and drain rate.
+     *
+     * @return the statistics of the email and popup lanes.
+     */
+    @GetMapping(value = "/metrics")
+    public ResponseEntity<BaseResponse<List<DeliveryLaneStatsDTO>>> getDeliveryMetrics() {
+
+        logger.debug("in get delivery metrics inside NotificationDeliveryController");
+
+        return ResponseEntity.ok(BaseResponse.success(notificationDelivery.getStats()));
+    }
+
+    /**
+     * Returns the amount of notifications in the outbox by status, dead ones used all their delivery attempts.
+     *
+     * @return the amount of pending, in flight, sent and dead notifications.
+     */
+    @GetMapping(value = "/outbox")
+    public ResponseEntity<BaseResponse<OutboxStatsDTO>> getOutboxMetrics() {
+
+        logger.debug("in get outbox metrics inside NotificationDeliveryController");
+
+        return ResponseEntity.ok(BaseResponse.success(notificationOutbox.getStats()));
+    }
+}
@@ -1,10 +1,14 @@
 package calendar.controller;
 
+import calendar.controller.request.FieldSelection;
 import calendar.controller.response.BaseResponse;
+import calendar.controller.response.SelectableFields;
 import calendar.entities.DTO.NotificationSettingsDTO;
 import calendar.entities.DTO.UserDTO;
 import calendar.entities.NotificationSettings;
+import calendar.entities.Principal;
 import calendar.entities.User;
+import calendar.filters.Authenticated;
 import calendar.service.UserService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -27,15 +31,20 @@ public class UserController {
     /**
      * Find user by email from the database.
      *
-     * @param email - The email of the user we wish to retrieve.
+     * @param email  - The email of the user we wish to retrieve.
+     * @param fields - The fields of the user to send (all if missing), the notification settings are only loaded if asked for.
      * @return the User were looking for or bad request if not found.
      */
+    @SelectableFields
     @RequestMapping(method = RequestMethod.GET)
-    public ResponseEntity<BaseResponse<UserDTO>> getUserByEmail(@RequestParam String email) {
+    public ResponseEntity<BaseResponse<UserDTO>> getUserByEmail(@RequestParam String email,
+                                                                @RequestParam(required = false) String fields) {
 
         logger.info("in getUserByEmail inside UserController");
 
-        Optional<UserDTO> user = userService.getDTOByEmail(email);
+        Optional<UserDTO> user = FieldSelection.parse(fields).includes("notificationSettings")
+                ? userService.getDTOByEmail(email)
+                : userService.getSummaryDTOByEmail(email);
 
         return user.map(value -> ResponseEntity.ok(BaseResponse.success(value)))
                 .orElseGet(() -> ResponseEntity.badRequest().body(BaseResponse.failure("User not found!")));
@@ -49,6 +58,7 @@ public class UserController {
      * @param notificationSettingsRequest - The notification Settings we wish to insert into the user.
      * @return the updated user or bad request if not found.
      */
+    @Authenticated
     @PutMapping(value = "/update", params = "notifications")
     public ResponseEntity<BaseResponse<UserDTO>> updateNotifications(@RequestAttribute("userId") int userId,
                                                                      @RequestBody NotificationSettings notificationSettingsRequest) {
@@ -73,6 +83,7 @@ public class UserController {
      * @param newCity - The city we wish to update the user information with.
      * @return the updated user or bad request if not found.
      */
+    @Authenticated
     @RequestMapping(value = "/updateCity", method = RequestMethod.PATCH)
     public ResponseEntity<BaseResponse<UserDTO>> updateCity(@RequestAttribute("userId") int userId, @RequestParam String newCity) {
 
@@ -91,22 +102,23 @@ public class UserController {
 
 
     /**
-     * Gets the notification settings of a user.
+     * Gets the notification settings of a user, from the principal the token filter attached to the request.
      *
-     * @param userId - The id of the user we wish update.
+     * @param principal - The logged-in user.
      * @return the notification settings of a user.
      */
+    @Authenticated
     @RequestMapping(value = "/getNotificationSettings", method = RequestMethod.GET)
-    public ResponseEntity<BaseResponse<NotificationSettingsDTO>> getNotificationSettings(@RequestAttribute("userId") int userId) {
+    public ResponseEntity<BaseResponse<NotificationSettingsDTO>> getNotificationSettings(@RequestAttribute("principal") Principal principal) {
 
         logger.debug("In get notification settings inside UserController");
 
-        NotificationSettings notificationSettings = userService.getNotificationSettings(userId);
+        NotificationSettingsDTO notificationSettings = principal.getNotificationSettings();
 
         logger.info(notificationSettings);
 
         if (notificationSettings != null) {
-            return ResponseEntity.ok(BaseResponse.success(new NotificationSettingsDTO(notificationSettings)));
+            return ResponseEntity.ok(BaseResponse.success(notificationSettings));
         }
 
         return ResponseEntity.badRequest().body(BaseResponse.failure("failed to get notification settings!"));
@@ -117,21 +129,21 @@ public class UserController {
      * Gets a list of users who shared their calendar with me.
      *
      * @param userId - The id of the user we wish to retrieve the list of shared calendars.
+     * @param fields - The fields of the users to send (all if missing), the notification settings are only loaded if asked for.
      * @return the list of users who shared their calendar with the user.
      */
+    @Authenticated
+    @SelectableFields
     @RequestMapping(value = "/getUsersWhoSharedWithMe", method = RequestMethod.GET)
-    public ResponseEntity<BaseResponse<List<UserDTO>>> getUsersWhoSharedWithMe(@RequestAttribute("userId") int userId) {
+    public ResponseEntity<BaseResponse<List<UserDTO>>> getUsersWhoSharedWithMe(@RequestAttribute("userId") int userId,
+                                                                               @RequestParam(required = false) String fields) {
 
         logger.debug("In get users who shared their calendar with me inside UserController.");
 
-        User user = userService.getById(userId);
-
-        if (user == null) {
-            return ResponseEntity.badRequest().body(BaseResponse.failure("The user does not exist!"));
-        }
-
         try {
-            List<UserDTO> usersWhoSharedWithMe = UserDTO.convertUsersToUsersDTO(userService.getUsersWhoSharedWithMe(userId));
+            List<UserDTO> usersWhoSharedWithMe = FieldSelection.parse(fields).includes("notificationSettings")
+                    ? UserDTO.convertUsersToUsersDTO(userService.getUsersWhoSharedWithMe(userId))
+                    : userService.getUserDTOsWhoSharedWithMe(userId);
 
             return ResponseEntity.ok(BaseResponse.success(usersWhoSharedWithMe));
         } catch (IllegalArgumentException e) {
@@ -148,6 +160,7 @@ public class UserController {
      * @param userId- My user id which I get by using the token in the filter.
      * @return The user i shared my calendar with.
      */
+    @Authenticated
     @PostMapping(value = "/share")
     public ResponseEntity<BaseResponse<UserDTO>> shareCalendar(@RequestAttribute("userId") int userId,
                                                                @RequestParam String email) {
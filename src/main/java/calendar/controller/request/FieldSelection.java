@@ -0,0 +1,71 @@
+package calendar.controller.request;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The fields a client asked for with ?fields=id,title,start (a sparse fieldset).
+ * No fields parameter means the whole object. The id is always sent, the client needs it to reference the object.
+ */
+public class FieldSelection {
+
+    public static final String PARAM = "fields";
+
+    private static final FieldSelection ALL = new FieldSelection(null);
+
+    // null for all the fields.
+    private final Set<String> fields;
+
+    private FieldSelection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @param fields - The value of the fields parameter, a comma separated list of field names.
+     * @return the selection, all the fields if the parameter is missing or empty.
+     */
+    public static FieldSelection parse(String fields) {
+
+        if (fields == null || fields.trim().isEmpty()) {
+            return ALL;
+        }
+
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+
+        for (String field : fields.split(",")) {
+            if (!field.trim().isEmpty()) {
+                selected.add(field.trim());
+            }
+        }
+
+        return new FieldSelection(Collections.unmodifiableSet(selected));
+    }
+
+    public static FieldSelection all() {
+        return ALL;
+    }
+
+    public boolean isAll() {
+        return fields == null;
+    }
+
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * @return the selected fields, null if all the fields are selected.
+     */
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    @Override
+    public String toString() {
+        return "FieldSelection{" +
+                "fields=" + (fields == null ? "all" : fields) +
+                '}';
+    }
+}
@@ -1,10 +1,19 @@
 package calendar.controller.response;
 
+import calendar.entities.DTO.UserDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
 public class BaseResponse<T> {
     private boolean success;
     private String message;
     private T data;
 
+    // the users the data references by id, each one once (only in the normalized format).
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<UserDTO> users;
+
     private BaseResponse(boolean success, String message, T data) {
         this.success = success;
         this.message = message;
@@ -15,6 +24,12 @@ public class BaseResponse<T> {
         return new BaseResponse<T>(true, null, data);
     }
 
+    public static <T> BaseResponse<T> success(T data, List<UserDTO> users) {
+        BaseResponse<T> response = new BaseResponse<T>(true, null, data);
+        response.users = users;
+        return response;
+    }
+
     public static <T> BaseResponse<T> failure(String message) {
         return new BaseResponse<T>(false, message, null);
     }
@@ -34,4 +49,8 @@ public class BaseResponse<T> {
     public T getData() {
         return data;
     }
+
+    public List<UserDTO> getUsers() {
+        return users;
+    }
 }
\ No newline at end of file
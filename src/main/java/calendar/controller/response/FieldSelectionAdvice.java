@@ -0,0 +1,88 @@
+package calendar.controller.response;
+
+import calendar.controller.request.FieldSelection;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Trims the data of the responses of @SelectableFields endpoints to the fields of the ?fields= parameter.
+ * Failures and requests without the parameter are written as they are.
+ */
+@ControllerAdvice
+public class FieldSelectionAdvice implements ResponseBodyAdvice<Object> {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public FieldSelectionAdvice() {
+    }
+
+    FieldSelectionAdvice(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(SelectableFields.class)
+                && AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+
+        if (!(body instanceof BaseResponse) || !((BaseResponse<?>) body).isSuccess()
+                || !(request instanceof ServletServerHttpRequest)) {
+            return body;
+        }
+
+        FieldSelection selection = FieldSelection.parse(
+                ((ServletServerHttpRequest) request).getServletRequest().getParameter(FieldSelection.PARAM));
+
+        if (selection.isAll()) {
+            return body;
+        }
+
+        return select(body, returnType.getMethodAnnotation(SelectableFields.class).value(), selection);
+    }
+
+    /**
+     * @param body      - The response.
+     * @param path      - The property of the data which holds the selectable objects, empty for the data itself.
+     * @param selection - The fields to keep.
+     * @return the response as a JSON tree, with only the selected fields in the selectable objects.
+     */
+    JsonNode select(Object body, String path, FieldSelection selection) {
+
+        JsonNode tree = objectMapper.valueToTree(body);
+        JsonNode selectable = path.isEmpty() ? tree.path("data") : tree.path("data").path(path);
+
+        if (selectable.isArray()) {
+            for (JsonNode element : selectable) {
+                retain(element, selection);
+            }
+        } else {
+            retain(selectable, selection);
+        }
+
+        return tree;
+    }
+
+    private static void retain(JsonNode node, FieldSelection selection) {
+        if (node.isObject()) {
+            ((ObjectNode) node).retain(selection.getFields());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package calendar.controller.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes a list response one element at a time while the elements are read, so a long list is never held in memory
+ * (neither the entities nor the serialized body).
+ * "json" writes the same body as BaseResponse.success(list), "ndjson" writes one element per line.
+ * The status is sent before the first element, so everything that can fail the request must be checked before;
+ * if the source fails midway, the body is left unterminated, so clients see invalid JSON rather than a short list.
+ */
+@Component
+public class JsonStreamWriter {
+
+    public static final String JSON = "json";
+
+    public static final String NDJSON = "ndjson";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Builds the streaming response of a list.
+     *
+     * @param format - "json" or "ndjson".
+     * @param source - passes every element of the list to the sink it gets, it is called while the body is written.
+     * @param <T>    - The type of the elements.
+     * @return the response, or bad request if the format is not supported.
+     */
+    public <T> ResponseEntity<StreamingResponseBody> stream(String format, Consumer<Consumer<T>> source) {
+
+        if (JSON.equals(format)) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> writeJson(out, source));
+        }
+
+        if (NDJSON.equals(format)) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> writeNdjson(out, source));
+        }
+
+        return failure("Invalid stream format: " + format);
+    }
+
+    /**
+     * @param message - The message of the failure.
+     * @return a bad request with the body of BaseResponse.failure(message).
+     */
+    public ResponseEntity<StreamingResponseBody> failure(String message) {
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, BaseResponse.failure(message)));
+    }
+
+    private <T> void writeJson(OutputStream out, Consumer<Consumer<T>> source) throws IOException {
+
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeBooleanField("success", true);
+            generator.writeNullField("message");
+            generator.writeArrayFieldStart("data");
+            source.accept(element -> write(generator, element));
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private <T> void writeNdjson(OutputStream out, Consumer<Consumer<T>> source) throws IOException {
+
+        // no separator between the root values, every element ends with its own new line.
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            source.accept(element -> {
+                write(generator, element);
+                try {
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // the servlet closes its own stream.
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // a stream that failed midway must not be completed into a valid (but truncated) list.
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        return generator;
+    }
+
+    private static void write(JsonGenerator generator, Object element) {
+        try {
+            generator.writeObject(element);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
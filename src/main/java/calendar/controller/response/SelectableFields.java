@@ -0,0 +1,21 @@
+package calendar.controller.response;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read endpoint whose response can be trimmed with ?fields= (see FieldSelection).
+ * The fields apply to the data of the response: to every element if it is a list, or to the object itself.
+ * The handler should also skip loading the associations which were not asked for.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SelectableFields {
+
+    /**
+     * @return the property of the data which holds the selectable objects (the events of a page), empty for the data itself.
+     */
+    String value() default "";
+}
@@ -0,0 +1,79 @@
+package calendar.entities.DTO;
+
+public class DeliveryLaneStatsDTO {
+
+    private String name;
+
+    private int queueDepth, queueRemainingCapacity, activeWorkers;
+
+    private long submitted, completed, failed, rejected;
+
+    private double drainRatePerSecond;
+
+    public DeliveryLaneStatsDTO() {
+    }
+
+    public DeliveryLaneStatsDTO(String name, int queueDepth, int queueRemainingCapacity, int activeWorkers,
+                                long submitted, long completed, long failed, long rejected, double drainRatePerSecond) {
+        this.name = name;
+        this.queueDepth = queueDepth;
+        this.queueRemainingCapacity = queueRemainingCapacity;
+        this.activeWorkers = activeWorkers;
+        this.submitted = submitted;
+        this.completed = completed;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.drainRatePerSecond = drainRatePerSecond;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueRemainingCapacity() {
+        return queueRemainingCapacity;
+    }
+
+    public int getActiveWorkers() {
+        return activeWorkers;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public double getDrainRatePerSecond() {
+        return drainRatePerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "DeliveryLaneStatsDTO{" +
+                "name='" + name + '\'' +
+                ", queueDepth=" + queueDepth +
+                ", queueRemainingCapacity=" + queueRemainingCapacity +
+                ", activeWorkers=" + activeWorkers +
+                ", submitted=" + submitted +
+                ", completed=" + completed +
+                ", failed=" + failed +
+                ", rejected=" + rejected +
+                ", drainRatePerSecond=" + drainRatePerSecond +
+                '}';
+    }
+}
@@ -35,6 +35,20 @@ public class EventDTO {
         this.roles = convertRolesToRolesDTO(event.getRoles());
     }
 
+    /**
+     * An event without its roles and attachments, built straight from a JPQL constructor expression.
+     */
+    public EventDTO(int id, boolean isPublic, ZonedDateTime time, float duration, String location, String title,
+                    String description) {
+        this.id = id;
+        this.isPublic = isPublic;
+        this.time = time;
+        this.duration = duration;
+        this.location = location;
+        this.title = title;
+        this.description = description;
+    }
+
     public static List<RoleDTO> convertRolesToRolesDTO(List<Role> roles) {
 
         List<RoleDTO> rolesDTO = new ArrayList<>();
@@ -0,0 +1,34 @@
+package calendar.entities.DTO;
+
+import java.util.List;
+
+public class EventPageDTO {
+
+    private List<EventSummaryDTO> events;
+
+    private String nextCursor;
+
+    public EventPageDTO() {
+    }
+
+    public EventPageDTO(List<EventSummaryDTO> events, String nextCursor) {
+        this.events = events;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<EventSummaryDTO> getEvents() {
+        return events;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "EventPageDTO{" +
+                "events=" + events +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,114 @@
+package calendar.entities.DTO;
+
+import calendar.entities.enums.RoleType;
+import calendar.entities.enums.StatusType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What a calendar view shows of an event: built straight from a JPQL constructor expression, so no event, role or
+ * user entity is loaded for it. The full event, with its guests, only comes from getEventById as an EventDTO.
+ */
+public class EventSummaryDTO {
+
+    private int id;
+
+    private String title;
+
+    private Instant start;
+
+    private Instant end;
+
+    private String location;
+
+    private boolean isPublic;
+
+    // null if I am not part of the event (a public event of a user who shared his calendar with me).
+    private RoleType roleType;
+
+    private StatusType statusType;
+
+    // everyone in the guest list of the event, the organizer included.
+    private int guestCount;
+
+    // the guest list, only in the normalized format (the users are in the users of the response).
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ParticipantDTO> participants;
+
+    public EventSummaryDTO() {
+    }
+
+    public EventSummaryDTO(int id, String title, Instant start, Instant end, String location, boolean isPublic,
+                           RoleType roleType, StatusType statusType, int guestCount) {
+        this.id = id;
+        this.title = title;
+        this.start = start;
+        this.end = end;
+        this.location = location;
+        this.isPublic = isPublic;
+        this.roleType = roleType;
+        this.statusType = statusType;
+        this.guestCount = guestCount;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public Instant getEnd() {
+        return end;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public boolean isPublic() {
+        return isPublic;
+    }
+
+    public RoleType getRoleType() {
+        return roleType;
+    }
+
+    public StatusType getStatusType() {
+        return statusType;
+    }
+
+    public int getGuestCount() {
+        return guestCount;
+    }
+
+    public List<ParticipantDTO> getParticipants() {
+        return participants;
+    }
+
+    public void setParticipants(List<ParticipantDTO> participants) {
+        this.participants = participants;
+    }
+
+    @Override
+    public String toString() {
+        return "EventSummaryDTO{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", start=" + start +
+                ", end=" + end +
+                ", location='" + location + '\'' +
+                ", isPublic=" + isPublic +
+                ", roleType=" + roleType +
+                ", statusType=" + statusType +
+                ", guestCount=" + guestCount +
+                '}';
+    }
+}
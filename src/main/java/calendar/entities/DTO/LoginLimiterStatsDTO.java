@@ -0,0 +1,36 @@
+package calendar.entities.DTO;
+
+public class LoginLimiterStatsDTO {
+
+    private long allowed, rejectedByEmail, rejectedByIp;
+
+    public LoginLimiterStatsDTO() {
+    }
+
+    public LoginLimiterStatsDTO(long allowed, long rejectedByEmail, long rejectedByIp) {
+        this.allowed = allowed;
+        this.rejectedByEmail = rejectedByEmail;
+        this.rejectedByIp = rejectedByIp;
+    }
+
+    public long getAllowed() {
+        return allowed;
+    }
+
+    public long getRejectedByEmail() {
+        return rejectedByEmail;
+    }
+
+    public long getRejectedByIp() {
+        return rejectedByIp;
+    }
+
+    @Override
+    public String toString() {
+        return "LoginLimiterStatsDTO{" +
+                "allowed=" + allowed +
+                ", rejectedByEmail=" + rejectedByEmail +
+                ", rejectedByIp=" + rejectedByIp +
+                '}';
+    }
+}
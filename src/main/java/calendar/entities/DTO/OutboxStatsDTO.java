@@ -0,0 +1,42 @@
+package calendar.entities.DTO;
+
+public class OutboxStatsDTO {
+
+    private long pending, inFlight, sent, dead;
+
+    public OutboxStatsDTO() {
+    }
+
+    public OutboxStatsDTO(long pending, long inFlight, long sent, long dead) {
+        this.pending = pending;
+        this.inFlight = inFlight;
+        this.sent = sent;
+        this.dead = dead;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getDead() {
+        return dead;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxStatsDTO{" +
+                "pending=" + pending +
+                ", inFlight=" + inFlight +
+                ", sent=" + sent +
+                ", dead=" + dead +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package calendar.entities.DTO;
+
+import calendar.entities.enums.RoleType;
+import calendar.entities.enums.StatusType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * One user in the guest list of an event in the normalized format: the user is referenced by his id, and sent once
+ * per response in its users. Built straight from a JPQL constructor expression.
+ */
+public class ParticipantDTO {
+
+    private int eventId;
+
+    private int userId;
+
+    private RoleType roleType;
+
+    private StatusType statusType;
+
+    public ParticipantDTO() {
+    }
+
+    public ParticipantDTO(int eventId, int userId, RoleType roleType, StatusType statusType) {
+        this.eventId = eventId;
+        this.userId = userId;
+        this.roleType = roleType;
+        this.statusType = statusType;
+    }
+
+    @JsonIgnore
+    public int getEventId() {
+        return eventId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public RoleType getRoleType() {
+        return roleType;
+    }
+
+    public StatusType getStatusType() {
+        return statusType;
+    }
+
+    @Override
+    public String toString() {
+        return "ParticipantDTO{" +
+                "eventId=" + eventId +
+                ", userId=" + userId +
+                ", roleType=" + roleType +
+                ", statusType=" + statusType +
+                '}';
+    }
+}
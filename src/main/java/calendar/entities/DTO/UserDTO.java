@@ -28,6 +28,18 @@ public class UserDTO {
         this.city = user.getCity();
     }
 
+    /**
+     * A user as another user sees him in the guest list of an event, without his notification settings.
+     * Built straight from a JPQL constructor expression.
+     */
+    public UserDTO(int id, String name, String email, ProviderType provider, City city) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.provider = provider;
+        this.city = city;
+    }
+
     public int getId() {
         return id;
     }
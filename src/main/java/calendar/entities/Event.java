@@ -2,6 +2,7 @@ package calendar.entities;
 
 import javax.persistence.*;
 import java.io.File;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -9,7 +10,8 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "event")
+@Table(name = "event", indexes = {@Index(name = "idx_event_start_utc", columnList = "start_utc"),
+        @Index(name = "idx_event_end_utc", columnList = "end_utc")})
 public class Event {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -22,7 +24,18 @@ public class Event {
     private String description;
     private ArrayList<File> attachments;
 
+    // UTC copies of the event window, derived from time and duration, used by the range queries.
+    @Column(name = "start_utc")
+    private Instant startUtc;
+    @Column(name = "end_utc")
+    private Instant endUtc;
+
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    @JoinTable(name = "event_roles",
+            joinColumns = @JoinColumn(name = "event_id"),
+            inverseJoinColumns = @JoinColumn(name = "roles_id"),
+            indexes = {@Index(name = "idx_event_roles_event_role", columnList = "event_id, roles_id"),
+                    @Index(name = "idx_event_roles_role", columnList = "roles_id")})
     private List<Role> roles;
 
     public Event() {
@@ -120,6 +133,35 @@ public class Event {
         this.roles = roles;
     }
 
+    public Instant getStartUtc() {
+        return startUtc;
+    }
+
+    public Instant getEndUtc() {
+        return endUtc;
+    }
+
+    /**
+     * Calculates the UTC end of an event.
+     *
+     * @param time     - The starting time of the event.
+     * @param duration - The duration of the event in hours.
+     * @return the end of the event as an Instant or null if the time is null.
+     */
+    public static Instant calculateEndUtc(ZonedDateTime time, float duration) {
+        if (time == null) {
+            return null;
+        }
+        return time.toInstant().plusSeconds((long) (duration * 3600));
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void updateTimeWindow() {
+        this.startUtc = time == null ? null : time.toInstant();
+        this.endUtc = calculateEndUtc(time, duration);
+    }
+
     public Role getUserRole(int userId) {
 
         return this.roles.stream().filter((r) -> r.getUser().getId() == userId).findFirst().orElse(null);
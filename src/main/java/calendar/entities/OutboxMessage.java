@@ -0,0 +1,177 @@
+package calendar.entities;
+
+import calendar.entities.enums.DeliveryChannel;
+import calendar.entities.enums.NotificationType;
+import calendar.entities.enums.OutboxStatus;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "notification_outbox",
+        uniqueConstraints = @UniqueConstraint(name = "uk_notification_outbox_key", columnNames = "idempotency_key"),
+        indexes = @Index(name = "idx_notification_outbox_ready", columnList = "status, next_attempt_at"))
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    // notification key + channel + destination, the same notification is never queued twice for the same target.
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DeliveryChannel channel;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    // the email address for emails, the STOMP destination for popups.
+    @Column(nullable = false)
+    private String destination;
+
+    @Column(name = "event_id")
+    private Integer eventId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "notification_type")
+    private NotificationType notificationType;
+
+    private String title;
+
+    @Column(length = 2000)
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public OutboxMessage() {
+    }
+
+    public OutboxMessage(String idempotencyKey, DeliveryChannel channel, String recipient, String destination,
+                         NotificationType notificationType, String title, String message, Instant now) {
+        this.idempotencyKey = idempotencyKey;
+        this.channel = channel;
+        this.recipient = recipient;
+        this.destination = destination;
+        this.notificationType = notificationType;
+        this.title = title;
+        this.message = message;
+        this.status = OutboxStatus.PENDING;
+        this.nextAttemptAt = now;
+        this.createdAt = now;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public DeliveryChannel getChannel() {
+        return channel;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public Integer getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Integer eventId) {
+        this.eventId = eventId;
+    }
+
+    public NotificationType getNotificationType() {
+        return notificationType;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public OutboxStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OutboxStatus status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(Instant sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMessage{" +
+                "id=" + id +
+                ", idempotencyKey='" + idempotencyKey + '\'' +
+                ", channel=" + channel +
+                ", destination='" + destination + '\'' +
+                ", status=" + status +
+                ", attempts=" + attempts +
+                ", nextAttemptAt=" + nextAttemptAt +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package calendar.entities;
+
+import calendar.entities.DTO.NotificationSettingsDTO;
+import calendar.entities.enums.City;
+import calendar.entities.enums.ProviderType;
+
+/**
+ * An immutable snapshot of the logged-in user, attached by the TokenFilter to every authenticated request
+ * (request attribute "principal"), so the controllers do not load the user again.
+ */
+public final class Principal {
+
+    private final int id;
+
+    private final String name;
+
+    private final String email;
+
+    private final City city;
+
+    private final ProviderType provider;
+
+    private final NotificationSettingsDTO notificationSettings;
+
+    public Principal(User user) {
+        this.id = user.getId();
+        this.name = user.getName();
+        this.email = user.getEmail();
+        this.city = user.getCity();
+        this.provider = user.getProvider();
+        this.notificationSettings = user.getNotificationSettings() == null ? null : new NotificationSettingsDTO(user.getNotificationSettings());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public City getCity() {
+        return city;
+    }
+
+    public ProviderType getProvider() {
+        return provider;
+    }
+
+    public NotificationSettingsDTO getNotificationSettings() {
+        return notificationSettings;
+    }
+
+    @Override
+    public String toString() {
+        return "Principal{" +
+                "id=" + id +
+                ", email='" + email + '\'' +
+                ", city=" + city +
+                ", provider=" + provider +
+                '}';
+    }
+}
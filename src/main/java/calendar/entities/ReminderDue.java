@@ -0,0 +1,75 @@
+package calendar.entities;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "reminder_due",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reminder_due_event_user", columnNames = {"event_id", "user_id"}),
+        indexes = @Index(name = "idx_reminder_due_pending", columnList = "sent_at, due_at"))
+public class ReminderDue {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false)
+    private int eventId;
+
+    @Column(name = "user_id", nullable = false)
+    private int userId;
+
+    @Column(name = "due_at", nullable = false)
+    private Instant dueAt;
+
+    // null until the reminder is sent, the row is kept so the same reminder is never sent twice.
+    @Column(name = "sent_at")
+    private Instant sentAt;
+
+    public ReminderDue() {
+    }
+
+    public ReminderDue(int eventId, int userId, Instant dueAt) {
+        this.eventId = eventId;
+        this.userId = userId;
+        this.dueAt = dueAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getEventId() {
+        return eventId;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public Instant getDueAt() {
+        return dueAt;
+    }
+
+    public void setDueAt(Instant dueAt) {
+        this.dueAt = dueAt;
+    }
+
+    public Instant getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(Instant sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ReminderDue{" +
+                "id=" + id +
+                ", eventId=" + eventId +
+                ", userId=" + userId +
+                ", dueAt=" + dueAt +
+                ", sentAt=" + sentAt +
+                '}';
+    }
+}
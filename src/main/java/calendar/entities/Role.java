@@ -6,6 +6,7 @@ import calendar.entities.enums.StatusType;
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = @Index(name = "idx_role_user", columnList = "user_id"))
 public class Role {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -0,0 +1,36 @@
+package calendar.entities;
+
+import calendar.entities.enums.RoleType;
+import calendar.entities.enums.StatusType;
+
+/**
+ * The role type and status of one user in one event, all the RoleFilter needs to authorize a request.
+ * Loaded with one query on the role of the user instead of the whole event with all of its guests.
+ */
+public final class RoleGrant {
+
+    private final RoleType roleType;
+
+    private final StatusType statusType;
+
+    public RoleGrant(RoleType roleType, StatusType statusType) {
+        this.roleType = roleType;
+        this.statusType = statusType;
+    }
+
+    public RoleType getRoleType() {
+        return roleType;
+    }
+
+    public StatusType getStatusType() {
+        return statusType;
+    }
+
+    @Override
+    public String toString() {
+        return "RoleGrant{" +
+                "roleType=" + roleType +
+                ", statusType=" + statusType +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package calendar.entities;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "token_revocation", indexes = {
+        @Index(name = "idx_token_revocation_revoked_at", columnList = "revoked_at"),
+        @Index(name = "idx_token_revocation_expires_at", columnList = "expires_at")})
+public class TokenRevocation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 64 bit fingerprint of the revoked token's jti, null when every token of the user is revoked.
+    @Column(name = "token_fingerprint")
+    private Long tokenFingerprint;
+
+    // set when every token of the user issued before revokedAt is revoked.
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    // the tokens covered by the revocation have all expired by then.
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public TokenRevocation() {
+    }
+
+    private TokenRevocation(Long tokenFingerprint, Integer userId, Instant revokedAt, Instant expiresAt) {
+        this.tokenFingerprint = tokenFingerprint;
+        this.userId = userId;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public static TokenRevocation ofToken(long tokenFingerprint, Instant revokedAt, Instant expiresAt) {
+        return new TokenRevocation(tokenFingerprint, null, revokedAt, expiresAt);
+    }
+
+    public static TokenRevocation ofUser(int userId, Instant revokedAt, Instant expiresAt) {
+        return new TokenRevocation(null, userId, revokedAt, expiresAt);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getTokenFingerprint() {
+        return tokenFingerprint;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public Instant getRevokedAt() {
+        return revokedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenRevocation{" +
+                "tokenFingerprint=" + tokenFingerprint +
+                ", userId=" + userId +
+                ", revokedAt=" + revokedAt +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package calendar.entities;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "user_session", indexes = {
+        @Index(name = "idx_user_session_user", columnList = "user_id"),
+        @Index(name = "idx_user_session_last_access", columnList = "last_access_at")})
+public class UserSession {
+    // SHA-256 of the token, the tokens themselves are never stored.
+    @Id
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    @Column(name = "user_id", nullable = false)
+    private int userId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "last_access_at", nullable = false)
+    private Instant lastAccessAt;
+
+    public UserSession() {
+    }
+
+    public UserSession(String tokenHash, int userId, Instant now) {
+        this.tokenHash = tokenHash;
+        this.userId = userId;
+        this.createdAt = now;
+        this.lastAccessAt = now;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getLastAccessAt() {
+        return lastAccessAt;
+    }
+
+    @Override
+    public String toString() {
+        return "UserSession{" +
+                "userId=" + userId +
+                ", createdAt=" + createdAt +
+                ", lastAccessAt=" + lastAccessAt +
+                '}';
+    }
+}
@@ -0,0 +1,7 @@
+package calendar.entities.enums;
+
+public enum DeliveryChannel {
+    EMAIL,
+    POPUP,
+    BROADCAST // one popup to an event topic, delivered by the broker to every subscribed session
+}
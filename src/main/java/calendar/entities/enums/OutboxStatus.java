@@ -0,0 +1,8 @@
+package calendar.entities.enums;
+
+public enum OutboxStatus {
+    PENDING,   // waiting for its first attempt or for a retry
+    IN_FLIGHT, // handed to a delivery lane, claimed again if the lease expires without an answer
+    SENT,
+    DEAD       // gave up after the maximum amount of attempts
+}
@@ -1,20 +1,20 @@
 package calendar.eventNotifications;
 
 import calendar.entities.NotificationSettings;
-import calendar.entities.User;
+import calendar.entities.enums.NotificationGetType;
 import calendar.entities.enums.NotificationType;
 import calendar.eventNotifications.entity.Notification;
+import calendar.eventNotifications.entity.NotificationRecipient;
+import calendar.eventNotifications.outbox.NotificationOutbox;
 import calendar.service.UserService;
-import calendar.utils.GMailer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
-import java.util.Optional;
+import java.util.List;
 
 @Component
 public class NotificationListener implements ApplicationListener<Notification> {
@@ -23,7 +23,9 @@ public class NotificationListener implements ApplicationListener<Notification> {
     public UserService userService;
 
     @Autowired
-    SimpMessagingTemplate simpMessagingTemplate;
+    NotificationOutbox notificationOutbox;
+
+    public static final String EVENT_TOPIC_PREFIX = "/events/";
 
     private static final Logger logger = LogManager.getLogger(NotificationListener.class.getName());
 
@@ -32,6 +34,8 @@ public class NotificationListener implements ApplicationListener<Notification> {
      * This method is called when a new notification created because the Notification class
      * extends the ApplicationEvent abstract class.
      * Calls onGenericEvent method to deal with the notifcation sending logic.
+     * The emails and popups are only written to the outbox here, in the transaction of the caller,
+     * the OutboxRelay delivers them once that transaction is committed.
      *
      * @param notification - The notification that was created.
      */
@@ -39,75 +43,81 @@ public class NotificationListener implements ApplicationListener<Notification> {
 
         logger.info("Received generic event - " + notification);
 
-        try {
-            this.onGenericEvent(notification);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        this.onGenericEvent(notification);
     }
 
     /**
-     * Receives a notification and all of its information and sends the notification to the relevant user via
-     * email, popup, both or none depends on his preference.
+     * Receives a notification and all of its information and sends the notification to the relevant users via
+     * email, popup, both or none depends on their preference.
+     * The recipients and their settings are loaded together in one batch, users who do not exist are skipped.
      *
      * @param notification - The notification we wish to send.
-     * @throws Exception - if Gmailer.sendMail failed.
      */
-    private void onGenericEvent(Notification notification) throws Exception {
+    private void onGenericEvent(Notification notification) {
 
         logger.info("onGenericEvent");
         logger.info("event" + notification);
 
-        ArrayList<String> emails = notification.getEmailsToSend();
-
-        logger.info(emails);
-
-        for (String email : emails) {
-            Optional<User> user = userService.getByEmail(email);
+        ArrayList<Integer> userIds = notification.getUserIdsToSend();
 
-            if (!user.isPresent()) {
-                return;
-            }
+        logger.info(userIds);
 
-            simpMessagingTemplate.convertAndSend("/update/" + email, notification);
+        NotificationType notificationType = notification.getNotificationType();
+        List<NotificationOutbox.Target> targets = new ArrayList<>();
 
-            logger.info("user - " + user.get());
-            logger.info("settings - " + user.get().getNotificationSettings());
+        // the participants' sessions subscribe to the topic of the event (see EventTopicInterceptor), so the update
+        // is sent once for all.
+        if (notification.isEventWide()) {
+            targets.add(NotificationOutbox.Target.broadcast(getEventTopic(notification.getEventId())));
+        }
 
-            NotificationSettings notificationSettings = user.get().getNotificationSettings();
-            NotificationType notificationType = notification.getNotificationType();
+        for (NotificationRecipient recipient : userService.getNotificationRecipients(userIds)) {
+            String email = recipient.getEmail();
 
-            logger.info(notificationType);
+            if (!notification.isEventWide()) {
+                targets.add(NotificationOutbox.Target.popup(email, "/update/" + email));
+            }
 
             if (notificationType == NotificationType.REGISTER) {
-                GMailer.sendMail(email, notification.getTitle(), notification.getMessage());
-                return;
+                targets.add(NotificationOutbox.Target.email(email));
+                continue;
             }
 
-            logger.info("value - " + notificationSettings.getValue(notificationType));
-            logger.info("notification - " + notification);
+            NotificationSettings notificationSettings = recipient.getNotificationSettings();
+            NotificationGetType notificationGetType = notificationSettings == null ? null
+                    : notificationSettings.getValue(notificationType);
+
+            if (notificationGetType == null) {
+                logger.info("no notification settings for " + recipient);
+                continue;
+            }
 
-            switch (notificationSettings.getValue(notificationType)) {
+            switch (notificationGetType) {
                 case EMAIL:
-                    logger.info("------ send email");
-                    GMailer.sendMail(email, notification.getTitle(), notification.getMessage());
+                    targets.add(NotificationOutbox.Target.email(email));
                     break;
                 case POPUP:
-                    logger.info("------- send socket popup");
-                    simpMessagingTemplate.convertAndSend("/notifications/" + email, notification);
+                    targets.add(NotificationOutbox.Target.popup(email, "/notifications/" + email));
                     break;
                 case ALL:
-                    logger.info("-------- send email and popup");
-                    GMailer.sendMail(email, notification.getTitle(), notification.getMessage());
-                    simpMessagingTemplate.convertAndSend("/notifications/" + email, notification);
-                    break;
-                case NONE:
-                    logger.info("--------- no notifications ");
+                    targets.add(NotificationOutbox.Target.email(email));
+                    targets.add(NotificationOutbox.Target.popup(email, "/notifications/" + email));
                     break;
                 default:
-                    logger.info("default");
                     break;
             }
         }
+
+        logger.info("queueing " + targets.size() + " deliveries of " + notification);
+
+        notificationOutbox.enqueueAll(notification, targets);
+    }
+
+    /**
+     * @param eventId - The id of the event.
+     * @return the STOMP topic the sessions of the event's participants subscribe to.
+     */
+    public static String getEventTopic(int eventId) {
+        return EVENT_TOPIC_PREFIX + eventId;
     }
 }
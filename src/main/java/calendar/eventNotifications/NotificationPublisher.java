@@ -1,6 +1,7 @@
 package calendar.eventNotifications;
 
 import calendar.entities.Event;
+import calendar.entities.ReminderDue;
 import calendar.entities.Role;
 import calendar.entities.User;
 import calendar.entities.enums.*;
@@ -31,7 +32,8 @@ public class NotificationPublisher {
     @Autowired
     public EventService eventService;
 
-    private static final int SCHEDULE = 1000 * 60; // 1min
+    @Autowired
+    public ReminderScheduler reminderScheduler;
 
     private static final Logger logger = LogManager.getLogger(NotificationPublisher.class.getName());
 
@@ -56,16 +58,18 @@ public class NotificationPublisher {
 
         List<Role> roles = event.getRoles();
 
-        ArrayList<String> emails = new ArrayList<>();
+        ArrayList<Integer> userIds = new ArrayList<>();
 
         for (Role role : roles) {
-            String email = role.getUser().getEmail();
-            emails.add(email);
+            userIds.add(role.getUser().getId());
         }
 
-        logger.info(emails);
+        logger.info(userIds);
+
+        Notification notification = new Notification(message, title, userIds, NotificationType.EVENT_CHANGED);
+        notification.setEventId(event.getId());
 
-        eventPublisher.publishEvent(new Notification(message, title, emails, NotificationType.EVENT_CHANGED));
+        eventPublisher.publishEvent(notification);
     }
 
     /**
@@ -74,9 +78,9 @@ public class NotificationPublisher {
      * notification extends the ApplicationEvent abstract class.
      *
      * @param eventId - The event id to which we wish to invite someone. (Only organizer and admins can invite guests).
-     * @param email   - The email of the user we wish to invite. (Must be part of our database).
+     * @param userId  - The id of the user we invited.
      */
-    public void publishInviteGuestNotification(int eventId, String email) {
+    public void publishInviteGuestNotification(int eventId, int userId) {
         String title = "New Event Invitation";
 
         Event event = eventService.getEventById(eventId);
@@ -87,9 +91,9 @@ public class NotificationPublisher {
 
         String message = "You were invited to Event '" + event.getTitle() + "' at " + event.getTime() + " !";
 
-        ArrayList<String> emails = new ArrayList<>(List.of(email));
+        ArrayList<Integer> userIds = new ArrayList<>(List.of(userId));
 
-        eventPublisher.publishEvent(new Notification(message, title, emails, NotificationType.INVITE_GUEST));
+        eventPublisher.publishEvent(new Notification(message, title, userIds, NotificationType.INVITE_GUEST));
     }
 
     /**
@@ -98,9 +102,9 @@ public class NotificationPublisher {
      * notification extends the ApplicationEvent abstract class.
      *
      * @param eventId - The event id to which we wish to invite someone. (Only organizer and admins can invite guests).
-     * @param email   - The email of the user we wish to invite. (Must be part of our database).
+     * @param userId  - The id of the user we removed.
      */
-    public void publishRemoveUserFromEventNotification(int eventId, String email) {
+    public void publishRemoveUserFromEventNotification(int eventId, int userId) {
         String title = "UnInvitation from Event";
 
         Event event = eventService.getEventById(eventId);
@@ -111,9 +115,9 @@ public class NotificationPublisher {
 
         String message = "You were uninvited from Event '" + event.getTitle() + "' at " + event.getTime() + " !";
 
-        ArrayList<String> emails = new ArrayList<>(List.of(email));
+        ArrayList<Integer> userIds = new ArrayList<>(List.of(userId));
 
-        eventPublisher.publishEvent(new Notification(message, title, emails, NotificationType.UNINVITE_GUEST));
+        eventPublisher.publishEvent(new Notification(message, title, userIds, NotificationType.UNINVITE_GUEST));
     }
 
     /**
@@ -145,164 +149,68 @@ public class NotificationPublisher {
         }
 
         List<Role> roles = event.getRoles();
-        ArrayList<String> emails = new ArrayList<>();
+        ArrayList<Integer> userIds = new ArrayList<>();
         for (Role role : roles) {
             if (role.getRoleType() == RoleType.ADMIN || role.getRoleType() == RoleType.ORGANIZER)
-                emails.add(role.getUser().getEmail());
+                userIds.add(role.getUser().getId());
         }
 
-        eventPublisher.publishEvent(new Notification(message, title, emails, NotificationType.USER_STATUS_CHANGED));
+        eventPublisher.publishEvent(new Notification(message, title, userIds, NotificationType.USER_STATUS_CHANGED));
     }
 
 
     /**
-     * This is a method which runs on a scheduled time once every minute.
-     * It gets the events that occur in the next 24 hours and checks each event for users who need to be
-     * notified about an upcoming event (Only those who chose to receive the notification).
+     * This is a method which runs on a scheduled time once every second.
+     * When the timing wheel of the ReminderScheduler hands back a due reminder (or a sweep is due),
+     * it claims the reminders which are due from the reminder_due table and notifies their users
+     * about the upcoming event (Only those who still want to receive the notification).
+     * A full batch means there is a backlog (e.g. after downtime), so it keeps claiming until it is drained.
      */
-    @Scheduled(fixedRate = SCHEDULE) // minute
+    @Scheduled(fixedRate = ReminderScheduler.TICK)
     public void scheduleCheckComingEvents() {
 
-        logger.info("---------- in scheduleCheckComingEvents-------------");
-
-        List<Event> eventsTillNextDay = eventService.getEventsTillNextDay();
-
-        logger.info(eventsTillNextDay);
-
-        for (Event event : eventsTillNextDay) {
-
-            logger.info("--------------------- event " + event.getId() + "-----------------------------");
-
-            List<Role> roles = event.getRoles();
-
-            logger.info("event roles: " + roles);
-
-            for (Role role : roles) {
-                User user = role.getUser();
-
-                logger.info("------- event " + user.getEmail() + " - " + user.getId() + "-------------");
-
-                if (isInterestedInNotification(user)) {
-
-                    NotificationRange notificationRange = user.getNotificationSettings().getNotificationRange();
-
-                    int secondsRange = getNotificationRangeInSeconds(notificationRange);
-
-                    ZonedDateTime eventTime = event.getTime();
-
-                    if (isEventInNotificationRange(eventTime, secondsRange, user.getCity())) {
-
-                        String title = "Upcoming event";
-                        String message = "Event '" + event.getTitle() + "' at " + event.getTime().
-                                withZoneSameInstant(ZoneId.of(Utils.getTimeZoneId(user.getCity()))) + " is starting soon!";
-                        ArrayList<String> email = new ArrayList<>(List.of(role.getUser().getEmail()));
-
-                        logger.info("send notification!");
-
-                        eventPublisher.publishEvent(new Notification(message, title, email, NotificationType.UPCOMING_EVENT));
-                    }
-                }
-            }
+        if (!reminderScheduler.pollDue()) {
+            return;
         }
-    }
-
 
-    /**
-     * Checks if a user wants to receive a notification about an upcoming event.
-     *
-     * @param user - The user we wish to check about.
-     * @return - True or false , whether he wants to receive the notification or not.
-     */
-    private boolean isInterestedInNotification(User user) {
-
-        NotificationGetType notificationGetType = user.getNotificationSettings().getValue(NotificationType.UPCOMING_EVENT);
-
-        if (notificationGetType == NotificationGetType.NONE) {
-            return false;
+        while (reminderScheduler.dispatchDueReminders(this::publishUpcomingEventNotification) == ReminderScheduler.BATCH_SIZE) {
+            logger.info("dispatched a full batch of reminders");
         }
-
-        return true;
     }
 
     /**
-     * Returns the amount of seconds of the notification in regard to the event.
+     * Sends an upcoming event notification to the user of a reminder, if the event did not start yet and the user
+     * is still part of the event and still wants to be reminded about it.
      *
-     * @param notificationRange - The request notification time of the user.
-     * @return the amount of seconds.
+     * @param reminder - The reminder that became due.
      */
-    private int getNotificationRangeInSeconds(NotificationRange notificationRange) {
-
-        int secondsRange;
-
-        switch (notificationRange) {
-            case TEN_MINUTES:
-                logger.info("------ 10 min");
-                secondsRange = 600;    // 10min - 10*60
-                break;
-
-            case THIRTY_MINUTES:
-                logger.info("------ 30 min");
-                secondsRange = 1800;   // 30min - 30*60
-                break;
-
-            case ONE_HOUR:
-                logger.info("------ 1 hour");
-                secondsRange = 3600;   // 60min - 60*60
-                break;
-
-            case ONE_DAY:
-                logger.info("------ 1 day");
-                secondsRange = 86400;   // 60min - 60*60*24
-                break;
-
-            default:
-                logger.info("default");
-                secondsRange = 0;
-                break;
-        }
+    public void publishUpcomingEventNotification(ReminderDue reminder) {
 
-        return secondsRange;
-    }
+        logger.info("reminder is due - " + reminder);
 
-    /**
-     * Checks if a notification is close enough to the event time to see if it needs to be sent.
-     *
-     * @param eventTime    - The time of the event
-     * @param secondsRange - The amount of seconds before the notification needs to be sent.
-     * @param city         - The city of the user , user to get the timezone.
-     * @return returns true or false whether we need to send the notification or not.
-     */
-    private boolean isEventInNotificationRange(ZonedDateTime eventTime, int secondsRange, City city) {
+        Event event = eventService.getEventById(reminder.getEventId());
 
-        logger.info("---------- in isEventInNotificationRange-------------");
+        if (event == null || event.getTime() == null || event.getTime().isBefore(ZonedDateTime.now())) {
+            return;
+        }
 
-        ZonedDateTime zonedEventTime = eventTime.withZoneSameInstant(ZoneId.of(Utils.getTimeZoneId(city)));
-        ZonedDateTime zonedNow = ZonedDateTime.now().withZoneSameInstant(ZoneId.of(Utils.getTimeZoneId(city)));
-        logger.info("zoned now: " + zonedNow);
-        logger.info("zoned event date: " + zonedEventTime);
+        Role role = event.getUserRole(reminder.getUserId());
 
-        Duration duration = Duration.between(zonedNow, zonedEventTime);
-        logger.info("duration sec : " + duration.getSeconds());
+        if (role == null || ReminderScheduler.getReminderTime(event, role) == null) {
+            return;
+        }
 
-        int range, startRange, endRange;
+        User user = role.getUser();
 
-        if (secondsRange == 86400) {
-            range = (SCHEDULE / 1000); // 60sec
-            startRange = secondsRange - range;
-            endRange = secondsRange;
-        } else {
-            range = (SCHEDULE / 1000) / 2; // 30sec
-            startRange = secondsRange - range;
-            endRange = secondsRange + range;
-        }
+        String title = "Upcoming event";
+        String message = "Event '" + event.getTitle() + "' at " + event.getTime().
+                withZoneSameInstant(ZoneId.of(Utils.getTimeZoneId(user.getCity()))) + " is starting soon!";
+        ArrayList<Integer> userIds = new ArrayList<>(List.of(user.getId()));
 
-        logger.info("range : " + startRange + ", " + endRange);
+        Notification notification = new Notification(message, title, userIds, NotificationType.UPCOMING_EVENT);
+        notification.setKey("reminder:" + reminder.getId() + ":" + reminder.getDueAt().getEpochSecond());
 
-        if (duration.getSeconds() > startRange && duration.getSeconds() < endRange) {
-            logger.info("in the range!");
-            return true;
-        }
-        return false;
+        eventPublisher.publishEvent(notification);
     }
 
 //    ------------------------ optional - not in requirements ------------------------
@@ -337,18 +245,19 @@ public class NotificationPublisher {
             message = "You are now guest at Event '" + event.getTitle() + "' at " + event.getTime() + " !";
         }
 
-        ArrayList<String> emails = new ArrayList<>(List.of(userService.getById(userId).getEmail()));
+        // the user has a role in the event, so he exists.
+        ArrayList<Integer> userIds = new ArrayList<>(List.of(userId));
 
-        eventPublisher.publishEvent(new Notification(message, title, emails, NotificationType.USER_ROLE_CHANGED));
+        eventPublisher.publishEvent(new Notification(message, title, userIds, NotificationType.USER_ROLE_CHANGED));
     }
 
 
     /**
      * A notification that is sent to users who register to our app.
      *
-     * @param email - the email of the user who jus registered.
+     * @param userId - the id of the user who just registered.
      */
-    public void publishRegistrationNotification(String email) {
+    public void publishRegistrationNotification(int userId) {
 
         String title = "Welcome to Calendar App";
 
@@ -356,9 +265,9 @@ public class NotificationPublisher {
                 "\n Welcome! " +
                 "\n Visit us at : https://lam-calendar-client.web.app ";
 
-        ArrayList<String> emails = new ArrayList<>(List.of(email));
+        ArrayList<Integer> userIds = new ArrayList<>(List.of(userId));
 
-        Notification notification = new Notification(message, title, emails, NotificationType.REGISTER);
+        Notification notification = new Notification(message, title, userIds, NotificationType.REGISTER);
 
         eventPublisher.publishEvent(notification);
     }
@@ -0,0 +1,353 @@
+package calendar.eventNotifications;
+
+import calendar.entities.Event;
+import calendar.entities.NotificationSettings;
+import calendar.entities.ReminderDue;
+import calendar.entities.Role;
+import calendar.entities.enums.NotificationGetType;
+import calendar.entities.enums.NotificationRange;
+import calendar.repository.EventRepository;
+import calendar.repository.ReminderDueRepository;
+import calendar.utils.TimingWheel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the reminder_due table in sync with the events and the users' settings, and hands the due reminders
+ * to the dispatcher. A reminder is sent once: its row is claimed with SKIP LOCKED and marked as sent in the same
+ * transaction, and reminders that were missed while the server was down stay due until they are claimed.
+ * <p>
+ * The table is the durable ledger, and the pending reminders this node scheduled are also kept in a timing wheel,
+ * so the dispatcher only queries the table when the wheel hands back a due reminder. Every sweep-interval it
+ * queries the table anyway, for the reminders scheduled by other nodes or dropped from the wheel
+ * (a rolled back claim, a deadline that passed before it was scheduled).
+ */
+@Component
+public class ReminderScheduler {
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private ReminderDueRepository reminderDueRepository;
+
+    public static final long TICK = 1000; // 1sec
+
+    public static final int BATCH_SIZE = 100;
+
+    private static final long PURGE_SCHEDULE = 1000 * 60 * 60; // 1hour
+
+    private static final int WHEEL_SIZE = 60;
+
+    private static final int WHEEL_LEVELS = 4; // seconds, minutes, hours, 60 hours
+
+    // the pending reminders of this node, by event id and user id.
+    private final TimingWheel<Long> wheel;
+
+    private final long sweepInterval;
+
+    private final Clock clock;
+
+    // 0 until the first tick, so the reminders missed while the server was down are claimed at once.
+    private volatile long nextSweep;
+
+    private static final Logger logger = LogManager.getLogger(ReminderScheduler.class.getName());
+
+    @Autowired
+    public ReminderScheduler(@Value("${reminder.sweep-interval:60000}") long sweepInterval) {
+        this(sweepInterval, Clock.systemUTC());
+    }
+
+    ReminderScheduler(long sweepInterval, Clock clock) {
+        this.sweepInterval = sweepInterval;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(TICK, WHEEL_SIZE, WHEEL_LEVELS, clock.millis());
+    }
+
+    /**
+     * Makes sure every upcoming event has its reminders when the application starts
+     * (events created before the table existed, or changed while the reminders could not be saved).
+     * Reminders which did not change keep their sent state, so nothing is sent twice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    @Transactional
+    public void rebuild() {
+
+        List<Event> upcomingEvents = eventRepository.findEventsStartingAfter(clock.instant());
+
+        for (Event event : upcomingEvents) {
+            scheduleEvent(event);
+        }
+
+        logger.info("synced reminders of " + upcomingEvents.size() + " upcoming events, "
+                + reminderDueRepository.countBySentAtIsNull() + " reminders are pending, "
+                + wheel.size() + " of them in the wheel");
+    }
+
+    /**
+     * (Re)schedules the reminders of all the users in an event, called whenever an event or its guests change.
+     *
+     * @param event - The event we wish to schedule reminders for.
+     */
+    @Transactional
+    public void scheduleEvent(Event event) {
+
+        if (event == null) {
+            return;
+        }
+
+        Map<Integer, ReminderDue> existingReminders = new HashMap<>();
+
+        for (ReminderDue reminderDue : reminderDueRepository.findByEventId(event.getId())) {
+            existingReminders.put(reminderDue.getUserId(), reminderDue);
+        }
+
+        for (Role role : event.getRoles()) {
+            if (role.getUser() != null) {
+                schedule(event, role, existingReminders.remove(role.getUser().getId()));
+            }
+        }
+
+        // Users who are not part of the event anymore.
+        for (ReminderDue reminderDue : existingReminders.values()) {
+            wheel.cancel(key(reminderDue.getEventId(), reminderDue.getUserId()));
+        }
+        reminderDueRepository.deleteAll(existingReminders.values());
+    }
+
+    /**
+     * (Re)schedules the reminder of one user in an event.
+     *
+     * @param event  - The event of the reminder.
+     * @param userId - The user of the reminder.
+     */
+    @Transactional
+    public void scheduleUser(Event event, int userId) {
+
+        if (event == null) {
+            return;
+        }
+
+        Role role = event.getUserRole(userId);
+
+        if (role == null) {
+            cancel(event.getId(), userId);
+            return;
+        }
+
+        ReminderDue existingReminder = reminderDueRepository.findByEventId(event.getId()).stream()
+                .filter(reminderDue -> reminderDue.getUserId() == userId).findFirst().orElse(null);
+
+        schedule(event, role, existingReminder);
+    }
+
+    /**
+     * (Re)schedules the reminders of one user in all of his upcoming events, called when his settings change.
+     *
+     * @param userId - The user of the reminders.
+     */
+    @Transactional
+    public void scheduleUser(int userId) {
+
+        for (Event event : eventRepository.findEventsByUserIdStartingAfter(userId, clock.instant())) {
+            scheduleUser(event, userId);
+        }
+    }
+
+    /**
+     * Cancels the reminders of all the users in an event.
+     *
+     * @param eventId - The id of the event.
+     */
+    public void cancelEvent(int eventId) {
+
+        for (ReminderDue reminderDue : reminderDueRepository.findByEventId(eventId)) {
+            wheel.cancel(key(eventId, reminderDue.getUserId()));
+        }
+
+        reminderDueRepository.deleteByEventId(eventId);
+    }
+
+    /**
+     * Cancels the reminder of one user in an event.
+     *
+     * @param eventId - The id of the event.
+     * @param userId  - The id of the user.
+     */
+    public void cancel(int eventId, int userId) {
+        wheel.cancel(key(eventId, userId));
+        reminderDueRepository.deleteByEventIdAndUserId(eventId, userId);
+    }
+
+    /**
+     * Advances the wheel to the current time, called every tick before dispatching.
+     *
+     * @return true if a reminder of this node became due or it is time to sweep the table, false if the dispatcher
+     * has nothing to claim.
+     */
+    public boolean pollDue() {
+
+        long now = clock.millis();
+        boolean due = !wheel.advance(now).isEmpty();
+
+        if (now >= nextSweep) {
+            nextSweep = now + sweepInterval;
+            return true;
+        }
+
+        return due;
+    }
+
+    /**
+     * Claims the reminders that are due (including the ones missed while the server was down),
+     * passes them to the sender and marks them as sent, all in one transaction.
+     * Rows claimed by another node at the same time are skipped.
+     *
+     * @param sender - Sends the notification of a reminder.
+     * @return the amount of reminders that were dispatched.
+     */
+    @Transactional
+    public int dispatchDueReminders(Consumer<ReminderDue> sender) {
+
+        Instant now = clock.instant();
+
+        List<ReminderDue> dueReminders = reminderDueRepository.claimDueReminders(now, PageRequest.of(0, BATCH_SIZE));
+
+        for (ReminderDue reminderDue : dueReminders) {
+            // a reminder claimed by a sweep may still be waiting in the wheel.
+            wheel.cancel(key(reminderDue.getEventId(), reminderDue.getUserId()));
+            try {
+                sender.accept(reminderDue);
+            } catch (RuntimeException e) {
+                logger.error("failed to send reminder " + reminderDue + " - " + e);
+            }
+            reminderDue.setSentAt(now);
+        }
+
+        return dueReminders.size();
+    }
+
+    /**
+     * Deletes reminders that were sent a while ago, their events already started.
+     */
+    @Scheduled(fixedRate = PURGE_SCHEDULE)
+    public void purgeSentReminders() {
+
+        int rows = reminderDueRepository.deleteSentBefore(clock.instant().minus(2, ChronoUnit.DAYS));
+
+        logger.info("purged " + rows + " sent reminders");
+    }
+
+    /**
+     * @return the amount of reminders waiting to be sent.
+     */
+    public long countPending() {
+        return reminderDueRepository.countBySentAtIsNull();
+    }
+
+    /**
+     * Calculates when the user of a role needs to be reminded about an event.
+     *
+     * @param event - The event of the reminder.
+     * @param role  - The role of the user in the event.
+     * @return the time of the reminder, or null if the user does not want to be reminded.
+     */
+    public static Instant getReminderTime(Event event, Role role) {
+
+        if (!role.isShownInMyCalendar() || role.getUser() == null) {
+            return null;
+        }
+
+        NotificationSettings notificationSettings = role.getUser().getNotificationSettings();
+
+        if (notificationSettings == null || notificationSettings.getNotificationRange() == null
+                || notificationSettings.getUpcoming_event() == null
+                || notificationSettings.getUpcoming_event() == NotificationGetType.NONE) {
+            return null;
+        }
+
+        Instant start = event.getStartUtc();
+
+        if (start == null) {
+            if (event.getTime() == null) {
+                return null;
+            }
+            start = event.getTime().toInstant();
+        }
+
+        return start.minusSeconds(getNotificationRangeInSeconds(notificationSettings.getNotificationRange()))
+                .truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Returns the amount of seconds of the notification in regard to the event.
+     *
+     * @param notificationRange - The request notification time of the user.
+     * @return the amount of seconds.
+     */
+    public static int getNotificationRangeInSeconds(NotificationRange notificationRange) {
+
+        switch (notificationRange) {
+            case TEN_MINUTES:
+                return 600;     // 10min - 10*60
+            case THIRTY_MINUTES:
+                return 1800;    // 30min - 30*60
+            case ONE_HOUR:
+                return 3600;    // 60min - 60*60
+            case ONE_DAY:
+                return 86400;   // 1day - 60*60*24
+            default:
+                return 0;
+        }
+    }
+
+    private void schedule(Event event, Role role, ReminderDue existingReminder) {
+
+        Instant reminderTime = getReminderTime(event, role);
+
+        long key = key(event.getId(), role.getUser().getId());
+
+        if (reminderTime == null) {
+            if (existingReminder != null) {
+                wheel.cancel(key);
+                reminderDueRepository.delete(existingReminder);
+            }
+            return;
+        }
+
+        if (existingReminder == null) {
+            reminderDueRepository.save(new ReminderDue(event.getId(), role.getUser().getId(), reminderTime));
+        } else if (!reminderTime.equals(existingReminder.getDueAt())) {
+            existingReminder.setDueAt(reminderTime);
+            existingReminder.setSentAt(null);
+            reminderDueRepository.save(existingReminder);
+        } else if (existingReminder.getSentAt() != null) {
+            return;
+        }
+
+        if (!wheel.schedule(key, reminderTime.toEpochMilli())) {
+            // already due, the next tick sweeps the table for it.
+            nextSweep = 0;
+        }
+    }
+
+    private static long key(int eventId, int userId) {
+        return ((long) eventId << 32) | (userId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,192 @@
+package calendar.eventNotifications.delivery;
+
+import calendar.entities.DTO.DeliveryLaneStatsDTO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded asynchronous delivery stage for one notification channel (email, popup...).
+ * Tasks wait in a bounded queue and are run by a fixed pool of worker threads.
+ * When the queue is full the rejection policy decides what happens to the new task. Every task has a future which
+ * completes when it ran, or exceptionally when it failed or was rejected or discarded, so no publisher waits forever.
+ */
+public class DeliveryLane {
+
+    public enum RejectionPolicy {
+        CALLER_RUNS,    // backpressure - the publishing thread runs the task itself
+        DISCARD,        // drop the new task
+        DISCARD_OLDEST, // drop the oldest waiting task and queue the new one
+        ABORT           // throw RejectedExecutionException to the publisher
+    }
+
+    private final String name;
+    private final int threads;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private long lastSampleTime = System.nanoTime();
+    private long lastSampleCompleted = 0;
+    private volatile double drainRate = 0;
+
+    private static final Logger logger = LogManager.getLogger(DeliveryLane.class.getName());
+
+    public DeliveryLane(String name, int threads, int queueCapacity, RejectionPolicy rejectionPolicy) {
+        this.name = name;
+        this.threads = threads;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-delivery-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, countingHandler(rejectionPolicy));
+    }
+
+    /**
+     * Queues a delivery task. Failures of the task are logged and counted, they are only reported through the future.
+     *
+     * @param task - The delivery we wish to run.
+     * @return completes when the task ran, exceptionally if it failed, or was rejected or discarded by the policy.
+     * @throws RejectedExecutionException if the queue is full and the policy is ABORT.
+     */
+    public CompletableFuture<Void> submit(Runnable task) {
+        submitted.incrementAndGet();
+
+        LaneTask laneTask = new LaneTask(task);
+
+        try {
+            executor.execute(laneTask);
+        } catch (RejectedExecutionException e) {
+            laneTask.result.completeExceptionally(e);
+            throw e;
+        }
+
+        return laneTask.result;
+    }
+
+    /**
+     * @return how many more tasks the lane takes without rejecting any: the free places in the queue and the idle
+     * worker threads.
+     */
+    public int getRemainingCapacity() {
+        return executor.getQueue().remainingCapacity() + Math.max(0, threads - executor.getActiveCount());
+    }
+
+    /**
+     * Calculates the amount of deliveries completed per second since the previous sample.
+     */
+    public synchronized void sampleDrainRate() {
+        long now = System.nanoTime();
+        long completedNow = completed.get();
+
+        double seconds = (now - lastSampleTime) / 1_000_000_000.0;
+
+        if (seconds > 0) {
+            drainRate = (completedNow - lastSampleCompleted) / seconds;
+        }
+
+        lastSampleTime = now;
+        lastSampleCompleted = completedNow;
+    }
+
+    public DeliveryLaneStatsDTO getStats() {
+        return new DeliveryLaneStatsDTO(name, executor.getQueue().size(), executor.getQueue().remainingCapacity(),
+                executor.getActiveCount(), submitted.get(), completed.get(), failed.get(), rejected.get(), drainRate);
+    }
+
+    /**
+     * Stops taking new tasks and waits a little for the queued ones to be delivered.
+     *
+     * @param timeoutMs - The maximum time to wait in milliseconds.
+     */
+    public void shutdown(long timeoutMs) {
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                List<Runnable> undelivered = executor.shutdownNow();
+                undelivered.forEach(this::discard);
+                logger.warn(name + " delivery lane stopped with " + undelivered.size() + " undelivered tasks");
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Applies the rejection policy like the policies of ThreadPoolExecutor do, and also fails the future of the task
+     * that is dropped, the new one (DISCARD, ABORT) or the oldest waiting one (DISCARD_OLDEST).
+     */
+    private RejectedExecutionHandler countingHandler(RejectionPolicy rejectionPolicy) {
+
+        return (runnable, threadPoolExecutor) -> {
+            rejected.incrementAndGet();
+            logger.warn(name + " delivery queue is full, policy " + rejectionPolicy);
+
+            if (threadPoolExecutor.isShutdown()) {
+                discard(runnable);
+                return;
+            }
+
+            switch (rejectionPolicy) {
+                case CALLER_RUNS:
+                    runnable.run();
+                    break;
+                case DISCARD:
+                    discard(runnable);
+                    break;
+                case DISCARD_OLDEST:
+                    discard(threadPoolExecutor.getQueue().poll());
+                    threadPoolExecutor.execute(runnable);
+                    break;
+                default:
+                    throw new RejectedExecutionException(name + " delivery queue is full");
+            }
+        };
+    }
+
+    private void discard(Runnable runnable) {
+        if (runnable instanceof LaneTask) {
+            ((LaneTask) runnable).result.completeExceptionally(
+                    new RejectedExecutionException(name + " delivery was discarded"));
+        }
+    }
+
+    private class LaneTask implements Runnable {
+
+        private final Runnable task;
+
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private LaneTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+                result.complete(null);
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                logger.error(name + " delivery failed - " + e);
+                result.completeExceptionally(e);
+            } finally {
+                completed.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package calendar.eventNotifications.delivery;
+
+import calendar.entities.DTO.DeliveryLaneStatsDTO;
+import calendar.entities.enums.DeliveryChannel;
+import calendar.eventNotifications.mail.MailTransport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Delivers notifications asynchronously, one lane per channel so slow emails never hold back popups.
+ * The sizes and rejection policies of the lanes are configurable with the notifications.* properties.
+ */
+@Component
+public class NotificationDelivery {
+
+    private static final int SAMPLE_SCHEDULE = 1000 * 10; // 10sec
+
+    private static final long SHUTDOWN_TIMEOUT = 1000 * 10; // 10sec
+
+    private final DeliveryLane emailLane;
+
+    private final DeliveryLane popupLane;
+
+    @Autowired
+    private MailTransport mailTransport;
+
+    @Autowired
+    private SimpMessagingTemplate simpMessagingTemplate;
+
+    public NotificationDelivery(@Value("${notifications.email.threads:4}") int emailThreads,
+                                @Value("${notifications.email.queue-capacity:1000}") int emailQueueCapacity,
+                                @Value("${notifications.email.rejection-policy:CALLER_RUNS}") DeliveryLane.RejectionPolicy emailRejectionPolicy,
+                                @Value("${notifications.popup.threads:2}") int popupThreads,
+                                @Value("${notifications.popup.queue-capacity:10000}") int popupQueueCapacity,
+                                @Value("${notifications.popup.rejection-policy:DISCARD_OLDEST}") DeliveryLane.RejectionPolicy popupRejectionPolicy) {
+
+        this.emailLane = new DeliveryLane("email", emailThreads, emailQueueCapacity, emailRejectionPolicy);
+        this.popupLane = new DeliveryLane("popup", popupThreads, popupQueueCapacity, popupRejectionPolicy);
+    }
+
+    /**
+     * Queues an email.
+     *
+     * @param emailAddress - The address we wish to send the email to.
+     * @param subject      - The subject of the email.
+     * @param message      - The body of the email.
+     * @param start        - Called by the worker right before sending, the email is skipped if it returns false.
+     * @return completes when the email was sent, is cancelled if it was skipped, or completes exceptionally if
+     * sending it failed or the lane dropped it.
+     */
+    public CompletableFuture<Void> sendEmail(String emailAddress, String subject, String message, BooleanSupplier start) {
+        return deliver(emailLane, start, () -> {
+            try {
+                mailTransport.send(emailAddress, subject, message);
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to send email to " + emailAddress, e);
+            }
+        });
+    }
+
+    /**
+     * Queues a socket message.
+     *
+     * @param destination - The STOMP destination of the message.
+     * @param payload     - The message.
+     * @param start       - Called by the worker right before sending, the message is skipped if it returns false.
+     * @return completes when the message was sent, is cancelled if it was skipped, or completes exceptionally if
+     * sending it failed or the lane dropped it.
+     */
+    public CompletableFuture<Void> sendPopup(String destination, Object payload, BooleanSupplier start) {
+        return deliver(popupLane, start, () -> simpMessagingTemplate.convertAndSend(destination, payload));
+    }
+
+    /**
+     * @param channel - The channel of a delivery.
+     * @return how many more deliveries the lane of the channel takes without rejecting any.
+     */
+    public int getRemainingCapacity(DeliveryChannel channel) {
+        return channel == DeliveryChannel.EMAIL ? emailLane.getRemainingCapacity() : popupLane.getRemainingCapacity();
+    }
+
+    @Scheduled(fixedRate = SAMPLE_SCHEDULE)
+    public void sampleDrainRates() {
+        emailLane.sampleDrainRate();
+        popupLane.sampleDrainRate();
+    }
+
+    public List<DeliveryLaneStatsDTO> getStats() {
+        return List.of(emailLane.getStats(), popupLane.getStats());
+    }
+
+    private static CompletableFuture<Void> deliver(DeliveryLane lane, BooleanSupplier start, Runnable send) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+
+        lane.submit(() -> {
+            if (start.getAsBoolean()) {
+                send.run();
+            } else {
+                result.cancel(false);
+            }
+        }).whenComplete((ignored, error) -> {
+            if (error == null) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        emailLane.shutdown(SHUTDOWN_TIMEOUT);
+        popupLane.shutdown(SHUTDOWN_TIMEOUT);
+    }
+}
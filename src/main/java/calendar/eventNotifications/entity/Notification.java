@@ -2,21 +2,34 @@ package calendar.eventNotifications.entity;
 
 import calendar.entities.Event;
 import calendar.entities.enums.NotificationType;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.context.ApplicationEvent;
 
 import javax.persistence.Entity;
 import java.util.ArrayList;
+import java.util.UUID;
 
+@JsonIgnoreProperties(value = {"source", "timestamp"}, allowGetters = true)
 public class Notification extends ApplicationEvent {
 
     private Integer id;
 
+    // identifies the notification in the outbox, so queueing it twice does not send it twice.
+    private String key = UUID.randomUUID().toString();
+
     private String title;
 
     private String message;
 
     private Event event;
 
+    // set for notifications about a whole event, they are broadcast once on the topic of the event.
+    private Integer eventId;
+
+    private ArrayList<Integer> userIdsToSend;
+
     private ArrayList<String> emailsToSend;
 
     private NotificationType notificationType;
@@ -29,10 +42,34 @@ public class Notification extends ApplicationEvent {
         this.event = event;
     }
 
+    public Integer getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Integer eventId) {
+        this.eventId = eventId;
+    }
+
+    /**
+     * @return true if this notification concerns every participant of its event, and not one user.
+     */
+    public boolean isEventWide() {
+        return eventId != null && (notificationType == NotificationType.EVENT_CHANGED
+                || notificationType == NotificationType.CANCEL_EVENT);
+    }
+
     public Integer getNotificationId() {
         return id;
     }
 
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
     public String getMessage() {
         return message;
     }
@@ -50,6 +87,14 @@ public class Notification extends ApplicationEvent {
         this.title = title;
     }
 
+    public ArrayList<Integer> getUserIdsToSend() {
+        return userIdsToSend;
+    }
+
+    public void setUserIdsToSend(ArrayList<Integer> userIdsToSend) {
+        this.userIdsToSend = userIdsToSend;
+    }
+
     public ArrayList<String> getEmailsToSend() {
         return emailsToSend;
     }
@@ -67,11 +112,22 @@ public class Notification extends ApplicationEvent {
     }
 
 
-    public Notification(String message, String title, ArrayList<String> emails, NotificationType notificationType  ){
+    /**
+     * A notification a client sends over the socket ("/app/application"), in JSON or CBOR.
+     *
+     * @param message - The message of the notification.
+     * @param title   - The title of the notification.
+     */
+    @JsonCreator
+    Notification(@JsonProperty("message") String message, @JsonProperty("title") String title) {
+        this(message, title, new ArrayList<>(), null);
+    }
+
+    public Notification(String message, String title, ArrayList<Integer> userIds, NotificationType notificationType  ){
         super(message);
         this.title = title;
         this.message = message;
-        this.emailsToSend = emails;
+        this.userIdsToSend = userIds;
         this.notificationType = notificationType;
     }
 
@@ -0,0 +1,61 @@
+package calendar.eventNotifications.entity;
+
+import calendar.entities.NotificationSettings;
+import calendar.entities.enums.NotificationGetType;
+
+/**
+ * The email and notification settings of a user who should receive a notification, loaded for all the
+ * recipients of a notification with one query instead of loading every user with his shared calendars.
+ */
+public class NotificationRecipient {
+
+    private final int userId;
+
+    private final String email;
+
+    // null if the user has no notification settings.
+    private final NotificationSettings notificationSettings;
+
+    public NotificationRecipient(int userId, String email, NotificationGetType eventChanged,
+                                 NotificationGetType inviteGuest, NotificationGetType uninviteGuest,
+                                 NotificationGetType userStatus, NotificationGetType userRole,
+                                 NotificationGetType cancelEvent, NotificationGetType upcomingEvent,
+                                 Integer settingsId) {
+        this.userId = userId;
+        this.email = email;
+
+        if (settingsId == null) {
+            this.notificationSettings = null;
+            return;
+        }
+
+        this.notificationSettings = new NotificationSettings();
+        notificationSettings.setEvent_changed(eventChanged);
+        notificationSettings.setInvite_guest(inviteGuest);
+        notificationSettings.setUninvite_guest(uninviteGuest);
+        notificationSettings.setUser_status(userStatus);
+        notificationSettings.setUser_role(userRole);
+        notificationSettings.setCancel_event(cancelEvent);
+        notificationSettings.setUpcoming_event(upcomingEvent);
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public NotificationSettings getNotificationSettings() {
+        return notificationSettings;
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationRecipient{" +
+                "userId=" + userId +
+                ", email='" + email + '\'' +
+                '}';
+    }
+}
@@ -1,4 +1,4 @@
-package calendar.utils;
+package calendar.eventNotifications.mail;
 
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInstalledApp;
@@ -14,9 +14,12 @@ import com.google.api.client.util.store.FileDataStoreFactory;
 import com.google.api.services.gmail.Gmail;
 import com.google.api.services.gmail.model.Message;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
 
 import javax.mail.Session;
-import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -26,30 +29,71 @@ import java.util.Properties;
 import java.util.Set;
 
 import static com.google.api.services.gmail.GmailScopes.GMAIL_SEND;
-import static javax.mail.Message.RecipientType.TO;
 
-public class GMailer {
+/**
+ * Sends emails through the Gmail API. The http transport, the client secrets and the stored credentials
+ * are loaded once, on the first email, and the same client (and its connections) is reused afterwards.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.mail.transport", havingValue = "gmail", matchIfMissing = true)
+public class GmailMailTransport implements MailTransport {
 
-    private static final String FROM_EMAIL = "anaalamed@gmail.com";
+    private static final Logger logger = LogManager.getLogger(GmailMailTransport.class.getName());
 
-    private static Gmail init() throws Exception {
+    private final Session session = Session.getInstance(new Properties());
 
-        NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+    private volatile Gmail service;
 
-        GsonFactory jsonFactory = GsonFactory.getDefaultInstance();
+    @Override
+    public void send(String emailAddress, String subject, String message) throws Exception {
 
-        Gmail service = new Gmail.Builder(httpTransport, jsonFactory, getCredentials(httpTransport, jsonFactory))
-                .setApplicationName("Test Mailer")
-                .build();
+        MimeMessage email = MimeMessages.create(session, emailAddress, subject, message);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        email.writeTo(buffer);
+        Message msg = new Message();
+        msg.setRaw(Base64.encodeBase64URLSafeString(buffer.toByteArray()));
 
-        return service;
+        try {
+            msg = getService().users().messages().send("me", msg).execute();
+            logger.debug("Message id: " + msg.getId());
+        } catch (GoogleJsonResponseException e) {
+            GoogleJsonError error = e.getDetails();
+            if (error.getCode() == 403) {
+                logger.error("Unable to send message: " + e.getDetails());
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    private Gmail getService() throws Exception {
+
+        Gmail gmail = service;
+
+        if (gmail == null) {
+            synchronized (this) {
+                gmail = service;
+                if (gmail == null) {
+                    NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+                    GsonFactory jsonFactory = GsonFactory.getDefaultInstance();
+
+                    gmail = new Gmail.Builder(httpTransport, jsonFactory, getCredentials(httpTransport, jsonFactory))
+                            .setApplicationName("Test Mailer")
+                            .build();
+                    service = gmail;
+                }
+            }
+        }
+
+        return gmail;
     }
 
     private static Credential getCredentials(final NetHttpTransport httpTransport, GsonFactory jsonFactory)
             throws IOException {
 
-        GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(jsonFactory, new InputStreamReader(GMailer.class
-                .getResourceAsStream("/gmail.json")));
+        GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(jsonFactory, new InputStreamReader(
+                GmailMailTransport.class.getResourceAsStream("/gmail.json")));
 
         GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow.Builder(
                 httpTransport, jsonFactory, clientSecrets, Set.of(GMAIL_SEND))
@@ -61,36 +105,4 @@ public class GMailer {
 
         return new AuthorizationCodeInstalledApp(flow, receiver).authorize("user");
     }
-
-    public static void sendMail(String emailAddress, String subject, String message) throws Exception {
-
-        Gmail service = init();
-        Properties props = new Properties();
-        Session session = Session.getDefaultInstance(props, null);
-        MimeMessage email = new MimeMessage(session);
-        email.setFrom(new InternetAddress(FROM_EMAIL));
-        email.addRecipient(TO, new InternetAddress(emailAddress));
-        email.setSubject(subject);
-        email.setText(message);
-
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        email.writeTo(buffer);
-        byte[] rawMessageBytes = buffer.toByteArray();
-        String encodedEmail = Base64.encodeBase64URLSafeString(rawMessageBytes);
-        Message msg = new Message();
-        msg.setRaw(encodedEmail);
-
-        try {
-            msg = service.users().messages().send("me", msg).execute();
-            System.out.println("Message id: " + msg.getId());
-            System.out.println(msg.toPrettyString());
-        } catch (GoogleJsonResponseException e) {
-            GoogleJsonError error = e.getDetails();
-            if (error.getCode() == 403) {
-                System.err.println("Unable to send message: " + e.getDetails());
-            } else {
-                throw e;
-            }
-        }
-    }
-}
\ No newline at end of file
+}
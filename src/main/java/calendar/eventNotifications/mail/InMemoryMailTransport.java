@@ -0,0 +1,87 @@
+package calendar.eventNotifications.mail;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the emails in memory instead of sending them, for tests and load runs.
+ * Only the last capacity emails are kept, the counter covers all of them.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.mail.transport", havingValue = "memory")
+public class InMemoryMailTransport implements MailTransport {
+
+    private final int capacity;
+
+    private final ConcurrentLinkedDeque<SentMail> sentMails = new ConcurrentLinkedDeque<>();
+
+    private final AtomicLong sentCount = new AtomicLong();
+
+    public InMemoryMailTransport(@Value("${notifications.mail.memory.capacity:1000}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void send(String emailAddress, String subject, String message) {
+
+        sentMails.addLast(new SentMail(emailAddress, subject, message));
+
+        if (sentCount.incrementAndGet() > capacity) {
+            sentMails.pollFirst();
+        }
+    }
+
+    public List<SentMail> getSentMails() {
+        return new ArrayList<>(sentMails);
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public void clear() {
+        sentMails.clear();
+        sentCount.set(0);
+    }
+
+    public static class SentMail {
+
+        private final String emailAddress;
+
+        private final String subject;
+
+        private final String message;
+
+        public SentMail(String emailAddress, String subject, String message) {
+            this.emailAddress = emailAddress;
+            this.subject = subject;
+            this.message = message;
+        }
+
+        public String getEmailAddress() {
+            return emailAddress;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "SentMail{" +
+                    "emailAddress='" + emailAddress + '\'' +
+                    ", subject='" + subject + '\'' +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package calendar.eventNotifications.mail;
+
+/**
+ * Sends emails. One transport bean is created according to the notifications.mail.transport property
+ * (gmail, smtp or memory) and is shared by all the delivery threads, so implementations must be thread safe.
+ */
+public interface MailTransport {
+
+    String FROM_EMAIL = "anaalamed@gmail.com";
+
+    /**
+     * Sends an email.
+     *
+     * @param emailAddress - The address we wish to send the email to.
+     * @param subject      - The subject of the email.
+     * @param message      - The body of the email.
+     * @throws Exception if the email could not be sent.
+     */
+    void send(String emailAddress, String subject, String message) throws Exception;
+}
@@ -0,0 +1,32 @@
+package calendar.eventNotifications.mail;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+import static javax.mail.Message.RecipientType.TO;
+
+class MimeMessages {
+
+    /**
+     * Builds a plain text email sent from FROM_EMAIL.
+     *
+     * @param session      - The mail session of the transport.
+     * @param emailAddress - The address we wish to send the email to.
+     * @param subject      - The subject of the email.
+     * @param message      - The body of the email.
+     * @return the email.
+     */
+    static MimeMessage create(Session session, String emailAddress, String subject, String message)
+            throws MessagingException {
+
+        MimeMessage email = new MimeMessage(session);
+        email.setFrom(new InternetAddress(MailTransport.FROM_EMAIL));
+        email.addRecipient(TO, new InternetAddress(emailAddress));
+        email.setSubject(subject);
+        email.setText(message);
+
+        return email;
+    }
+}
@@ -0,0 +1,128 @@
+package calendar.eventNotifications.mail;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends emails to an SMTP server, keeping up to pool-size connections open between emails.
+ * A connection that failed is closed instead of being returned to the pool.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.mail.transport", havingValue = "smtp")
+public class SmtpMailTransport implements MailTransport {
+
+    private static final Logger logger = LogManager.getLogger(SmtpMailTransport.class.getName());
+
+    private final Session session;
+
+    private final String username;
+
+    private final String password;
+
+    private final long borrowTimeout;
+
+    private final Semaphore permits;
+
+    private final BlockingQueue<Transport> idleConnections;
+
+    public SmtpMailTransport(@Value("${notifications.mail.smtp.host:localhost}") String host,
+                             @Value("${notifications.mail.smtp.port:25}") int port,
+                             @Value("${notifications.mail.smtp.username:}") String username,
+                             @Value("${notifications.mail.smtp.password:}") String password,
+                             @Value("${notifications.mail.smtp.starttls:false}") boolean startTls,
+                             @Value("${notifications.mail.smtp.pool-size:4}") int poolSize,
+                             @Value("${notifications.mail.smtp.borrow-timeout:10000}") long borrowTimeout) {
+
+        Properties props = new Properties();
+        props.put("mail.smtp.host", host);
+        props.put("mail.smtp.port", String.valueOf(port));
+        props.put("mail.smtp.auth", String.valueOf(!username.isEmpty()));
+        props.put("mail.smtp.starttls.enable", String.valueOf(startTls));
+        props.put("mail.smtp.connectiontimeout", "10000");
+        props.put("mail.smtp.timeout", "10000");
+
+        this.session = Session.getInstance(props);
+        this.username = username;
+        this.password = password;
+        this.borrowTimeout = borrowTimeout;
+        this.permits = new Semaphore(poolSize);
+        this.idleConnections = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    @Override
+    public void send(String emailAddress, String subject, String message) throws Exception {
+
+        MimeMessage email = MimeMessages.create(session, emailAddress, subject, message);
+        email.saveChanges();
+
+        if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("No SMTP connection available after " + borrowTimeout + "ms");
+        }
+
+        try {
+            Transport transport = borrow();
+            try {
+                transport.sendMessage(email, email.getAllRecipients());
+            } catch (MessagingException e) {
+                close(transport);
+                throw e;
+            }
+            if (!idleConnections.offer(transport)) {
+                close(transport);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+
+        Transport transport;
+
+        while ((transport = idleConnections.poll()) != null) {
+            close(transport);
+        }
+    }
+
+    private Transport borrow() throws MessagingException {
+
+        Transport transport = idleConnections.poll();
+
+        if (transport == null) {
+            transport = session.getTransport("smtp");
+        }
+
+        if (!transport.isConnected()) {
+            if (username.isEmpty()) {
+                transport.connect();
+            } else {
+                transport.connect(username, password);
+            }
+        }
+
+        return transport;
+    }
+
+    private void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            logger.warn("failed to close SMTP connection - " + e);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package calendar.eventNotifications.outbox;
+
+import calendar.entities.DTO.OutboxStatsDTO;
+import calendar.entities.OutboxMessage;
+import calendar.entities.enums.DeliveryChannel;
+import calendar.entities.enums.OutboxStatus;
+import calendar.eventNotifications.entity.Notification;
+import calendar.repository.OutboxMessageRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The notification_outbox table. Notifications are written here in the transaction of the change that caused them,
+ * and the OutboxRelay delivers them afterwards, retrying with exponential backoff until they are sent
+ * or dead-lettered after max-attempts.
+ */
+@Component
+public class NotificationOutbox {
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    private final int maxAttempts;
+
+    private final Duration baseBackoff;
+
+    private final Duration maxBackoff;
+
+    private final Duration lease;
+
+    private final Clock clock;
+
+    private static final long PURGE_SCHEDULE = 1000 * 60 * 60; // 1hour
+
+    private static final List<OutboxStatus> CLAIMABLE = List.of(OutboxStatus.PENDING, OutboxStatus.IN_FLIGHT);
+
+    private static final Logger logger = LogManager.getLogger(NotificationOutbox.class.getName());
+
+    @Autowired
+    public NotificationOutbox(@Value("${notifications.outbox.max-attempts:8}") int maxAttempts,
+                              @Value("${notifications.outbox.base-backoff:2000}") long baseBackoffMs,
+                              @Value("${notifications.outbox.max-backoff:600000}") long maxBackoffMs,
+                              @Value("${notifications.outbox.lease:60000}") long leaseMs) {
+        this(maxAttempts, baseBackoffMs, maxBackoffMs, leaseMs, Clock.systemUTC());
+    }
+
+    NotificationOutbox(int maxAttempts, long baseBackoffMs, long maxBackoffMs, long leaseMs, Clock clock) {
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofMillis(baseBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.lease = Duration.ofMillis(leaseMs);
+        this.clock = clock;
+    }
+
+    /**
+     * Queues a notification for a list of channels and users. Joins the transaction of the caller, so the
+     * notification is only delivered if the change that caused it is committed.
+     * The targets that were already queued for this notification are checked with one query.
+     *
+     * @param notification - The notification we wish to deliver.
+     * @param targets      - The channels and destinations we wish to deliver it to.
+     */
+    @Transactional
+    public void enqueueAll(Notification notification, List<Target> targets) {
+
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        Instant now = clock.instant();
+        Map<String, OutboxMessage> messages = new LinkedHashMap<>();
+
+        for (Target target : targets) {
+            String idempotencyKey = notification.getKey() + ":" + target.channel + ":" + target.destination;
+
+            OutboxMessage message = new OutboxMessage(idempotencyKey, target.channel, target.recipient,
+                    target.destination, notification.getNotificationType(), notification.getTitle(),
+                    notification.getMessage(), now);
+            message.setEventId(notification.getEventId());
+
+            messages.putIfAbsent(idempotencyKey, message);
+        }
+
+        for (String existingKey : outboxMessageRepository.findExistingKeys(messages.keySet())) {
+            logger.info("notification " + existingKey + " is already in the outbox");
+            messages.remove(existingKey);
+        }
+
+        outboxMessageRepository.saveAll(messages.values());
+    }
+
+    /**
+     * Claims the messages which are ready to be delivered: new ones, retries whose backoff passed, and messages
+     * which were in flight when their lease expired (e.g. the server died before the answer of the provider).
+     * Each claim counts as an attempt, so a message that keeps crashing the delivery is dead-lettered as well.
+     *
+     * @param channels  - The channels of the messages to claim.
+     * @param batchSize - The maximum amount of messages to claim.
+     * @return the claimed messages, marked as in flight until the lease expires.
+     */
+    @Transactional
+    public List<OutboxMessage> claim(Collection<DeliveryChannel> channels, int batchSize) {
+
+        Instant now = clock.instant();
+
+        List<OutboxMessage> messages = outboxMessageRepository.claimReady(CLAIMABLE, channels, now,
+                PageRequest.of(0, batchSize));
+
+        messages.removeIf(message -> {
+            if (message.getAttempts() >= maxAttempts) {
+                deadLetter(message, "lease expired on the last attempt");
+                return true;
+            }
+            return false;
+        });
+
+        for (OutboxMessage message : messages) {
+            message.setAttempts(message.getAttempts() + 1);
+            message.setStatus(OutboxStatus.IN_FLIGHT);
+            message.setNextAttemptAt(now.plus(lease));
+        }
+
+        return messages;
+    }
+
+    /**
+     * Renews the lease of a claimed message when its delivery starts, so the time it waited in a delivery lane
+     * does not count against the lease.
+     *
+     * @param id       - The id of the message.
+     * @param attempts - The attempts of the message when it was claimed, which identify the claim.
+     * @return false if the claim was lost (the lease expired and the message was claimed again, or it is done),
+     * the message must not be delivered then.
+     */
+    public boolean renewLease(long id, int attempts) {
+        return outboxMessageRepository.renewLease(id, attempts, OutboxStatus.IN_FLIGHT, clock.instant().plus(lease)) == 1;
+    }
+
+    /**
+     * Marks a message as sent.
+     *
+     * @param id - The id of the message.
+     */
+    @Transactional
+    public void markSent(long id) {
+
+        outboxMessageRepository.findById(id).ifPresent(message -> {
+            message.setStatus(OutboxStatus.SENT);
+            message.setSentAt(clock.instant());
+            message.setLastError(null);
+        });
+    }
+
+    /**
+     * Schedules the retry of a message that failed, or dead-letters it if it used all of its attempts.
+     *
+     * @param id       - The id of the message.
+     * @param attempts - The attempts of the message when it was claimed, a failure of an older claim is ignored.
+     * @param error    - Why the delivery failed.
+     */
+    @Transactional
+    public void markFailed(long id, int attempts, Throwable error) {
+
+        outboxMessageRepository.findById(id).ifPresent(message -> {
+            if (message.getStatus() != OutboxStatus.IN_FLIGHT || message.getAttempts() != attempts) {
+                return;
+            }
+
+            if (message.getAttempts() >= maxAttempts) {
+                deadLetter(message, String.valueOf(error));
+                return;
+            }
+
+            Duration backoff = getBackoff(message.getAttempts(), baseBackoff, maxBackoff);
+
+            message.setStatus(OutboxStatus.PENDING);
+            message.setNextAttemptAt(clock.instant().plus(backoff));
+            message.setLastError(truncate(String.valueOf(error)));
+
+            logger.warn("delivery of " + message + " failed, retrying in " + backoff + " - " + error);
+        });
+    }
+
+    /**
+     * Deletes messages that were sent a while ago, dead messages are kept until someone looks at them.
+     */
+    @Scheduled(fixedRate = PURGE_SCHEDULE)
+    public void purgeSentMessages() {
+
+        int rows = outboxMessageRepository.deleteByStatusCreatedBefore(OutboxStatus.SENT,
+                clock.instant().minus(2, ChronoUnit.DAYS));
+
+        logger.info("purged " + rows + " sent outbox messages");
+    }
+
+    public OutboxStatsDTO getStats() {
+        return new OutboxStatsDTO(outboxMessageRepository.countByStatus(OutboxStatus.PENDING),
+                outboxMessageRepository.countByStatus(OutboxStatus.IN_FLIGHT),
+                outboxMessageRepository.countByStatus(OutboxStatus.SENT),
+                outboxMessageRepository.countByStatus(OutboxStatus.DEAD));
+    }
+
+    /**
+     * Calculates the wait before the next attempt: base * 2^(attempts-1), capped at max, minus up to 20% of jitter
+     * so messages that failed together during an outage do not all retry at the same moment.
+     *
+     * @param attempts    - The amount of attempts made so far (at least 1).
+     * @param baseBackoff - The wait after the first failure.
+     * @param maxBackoff  - The longest wait.
+     * @return the wait before the next attempt.
+     */
+    public static Duration getBackoff(int attempts, Duration baseBackoff, Duration maxBackoff) {
+
+        int exponent = Math.min(Math.max(attempts - 1, 0), 30);
+
+        long backoffMs = Math.min(baseBackoff.toMillis() << exponent, maxBackoff.toMillis());
+
+        if (backoffMs <= 0) {
+            backoffMs = maxBackoff.toMillis();
+        }
+
+        long jitterMs = ThreadLocalRandom.current().nextLong(backoffMs / 5 + 1);
+
+        return Duration.ofMillis(backoffMs - jitterMs);
+    }
+
+    private void deadLetter(OutboxMessage message, String error) {
+
+        message.setStatus(OutboxStatus.DEAD);
+        message.setLastError(truncate(error));
+
+        logger.error("gave up on " + message + " after " + message.getAttempts() + " attempts - " + error);
+    }
+
+    private static String truncate(String error) {
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+
+    /**
+     * Where a notification should be delivered.
+     */
+    public static class Target {
+
+        private final DeliveryChannel channel;
+
+        private final String recipient;
+
+        private final String destination;
+
+        private Target(DeliveryChannel channel, String recipient, String destination) {
+            this.channel = channel;
+            this.recipient = recipient;
+            this.destination = destination;
+        }
+
+        public static Target email(String email) {
+            return new Target(DeliveryChannel.EMAIL, email, email);
+        }
+
+        public static Target popup(String email, String destination) {
+            return new Target(DeliveryChannel.POPUP, email, destination);
+        }
+
+        public static Target broadcast(String topic) {
+            return new Target(DeliveryChannel.BROADCAST, topic, topic);
+        }
+
+        public DeliveryChannel getChannel() {
+            return channel;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+    }
+}
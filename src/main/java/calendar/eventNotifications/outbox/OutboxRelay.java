@@ -0,0 +1,155 @@
+package calendar.eventNotifications.outbox;
+
+import calendar.entities.OutboxMessage;
+import calendar.entities.enums.DeliveryChannel;
+import calendar.eventNotifications.delivery.NotificationDelivery;
+import calendar.eventNotifications.entity.Notification;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Drains the notification outbox into the delivery lanes, one batch at a time, and records the answer of every
+ * delivery back in the outbox. It never claims more messages than a lane has room for, so during a provider
+ * brownout the relay slows down to the speed of the provider and the backlog waits in the table instead of in
+ * memory. The lease of a message is renewed when its delivery starts, and a message whose claim was lost while
+ * it waited in a lane is skipped, so it is not delivered twice.
+ * The relay runs on its own thread, a slow provider never holds back the other scheduled tasks.
+ */
+@Component
+public class OutboxRelay {
+
+    @Autowired
+    private NotificationOutbox notificationOutbox;
+
+    @Autowired
+    private NotificationDelivery notificationDelivery;
+
+    private final int batchSize;
+
+    private ScheduledExecutorService scheduler;
+
+    private static final long TICK = 1000; // 1sec
+
+    private static final List<DeliveryChannel> EMAIL_CHANNELS = List.of(DeliveryChannel.EMAIL);
+
+    private static final List<DeliveryChannel> POPUP_CHANNELS = List.of(DeliveryChannel.POPUP, DeliveryChannel.BROADCAST);
+
+    private static final Logger logger = LogManager.getLogger(OutboxRelay.class.getName());
+
+    public OutboxRelay(@Value("${notifications.outbox.batch-size:100}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::drain, TICK, TICK, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs once a second, a full batch means there is a backlog so it keeps claiming until it is drained
+     * or the lanes are full.
+     */
+    public void drain() {
+
+        try {
+            while (relayBatch() >= batchSize) {
+                logger.info("relayed a full batch of notifications");
+            }
+        } catch (RuntimeException e) {
+            // the next tick tries again, an exception would cancel the schedule.
+            logger.error("could not relay the outbox - " + e);
+        }
+    }
+
+    /**
+     * Claims one batch of ready messages for every lane, up to the room left in the lane, and hands them over.
+     *
+     * @return the amount of messages that were claimed.
+     */
+    public int relayBatch() {
+        return relay(EMAIL_CHANNELS) + relay(POPUP_CHANNELS);
+    }
+
+    private int relay(List<DeliveryChannel> channels) {
+
+        int limit = Math.min(batchSize, notificationDelivery.getRemainingCapacity(channels.get(0)));
+
+        if (limit <= 0) {
+            return 0;
+        }
+
+        List<OutboxMessage> messages = notificationOutbox.claim(channels, limit);
+
+        for (OutboxMessage message : messages) {
+            long id = message.getId();
+            int attempts = message.getAttempts();
+
+            try {
+                deliver(message, () -> notificationOutbox.renewLease(id, attempts)).whenComplete((result, error) -> {
+                    if (error == null) {
+                        notificationOutbox.markSent(id);
+                    } else if (error instanceof CancellationException) {
+                        logger.info("skipped " + message + ", it was claimed again");
+                    } else {
+                        notificationOutbox.markFailed(id, attempts, error);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // the lane refused the message (ABORT policy), it is retried after its backoff.
+                notificationOutbox.markFailed(id, attempts, e);
+            }
+        }
+
+        return messages.size();
+    }
+
+    private CompletableFuture<Void> deliver(OutboxMessage message, BooleanSupplier start) {
+
+        switch (message.getChannel()) {
+            case EMAIL:
+                return notificationDelivery.sendEmail(message.getDestination(), message.getTitle(), message.getMessage(),
+                        start);
+            case POPUP:
+            case BROADCAST:
+                return notificationDelivery.sendPopup(message.getDestination(), toPopup(message), start);
+            default:
+                throw new IllegalStateException("Unknown delivery channel " + message.getChannel());
+        }
+    }
+
+    private static Notification toPopup(OutboxMessage message) {
+
+        Notification notification = new Notification(message.getMessage(), message.getTitle(),
+                new ArrayList<>(), message.getNotificationType());
+        notification.setKey(message.getIdempotencyKey());
+        notification.setEventId(message.getEventId());
+
+        if (message.getChannel() == DeliveryChannel.POPUP) {
+            notification.setEmailsToSend(new ArrayList<>(List.of(message.getRecipient())));
+        }
+
+        return notification;
+    }
+}
@@ -0,0 +1,13 @@
+package calendar.filters;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a handler (or every handler of a controller) that needs the "token" header of a logged-in user.
+ * The RouteSecurityInterceptor attaches the id of the user ("userId") and his principal ("principal") to the request.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Authenticated {
+}
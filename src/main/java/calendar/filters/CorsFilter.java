@@ -9,15 +9,55 @@ import javax.servlet.FilterConfig;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 
+/**
+ * Answers the CORS preflights itself, before the route security, and adds the CORS headers to the responses of
+ * allowed origins. The allowed origins are compiled once: exact origins go into a set, and an origin with a wildcard
+ * subdomain ("https://*.example.com") matches any subdomain of it, at any depth. The header values are built once, and
+ * the preflight carries a Max-Age so browsers do not repeat it before every request.
+ */
 public class CorsFilter implements Filter {
-    private Set<String> origins = new HashSet<>(Set.of("http://localhost:9000"));
 
-    public static final Logger logger = LogManager.getLogger(TokenFilter.class);
+    static final String ALLOWED_METHODS = "GET, OPTIONS, HEAD, PUT, POST, PATCH, DELETE";
 
+    private final Set<String> origins = new HashSet<>();
+
+    private final List<WildcardOrigin> wildcardOrigins = new ArrayList<>();
+
+    private final String allowedHeaders;
+
+    private final String maxAge;
+
+    public static final Logger logger = LogManager.getLogger(CorsFilter.class);
+
+    /**
+     * @param allowedOrigins - The origins that may call the API, exact ("http://localhost:9000")
+     *                       or with a wildcard subdomain ("https://*.example.com").
+     * @param allowedHeaders - The value of Access-Control-Allow-Headers.
+     * @param maxAge         - How long browsers may cache a preflight, in milliseconds.
+     * @throws IllegalArgumentException if an origin has a wildcard anywhere but in front of its host.
+     */
+    public CorsFilter(Collection<String> allowedOrigins, String allowedHeaders, long maxAge) {
+
+        for (String origin : allowedOrigins) {
+            origin = origin.trim();
+
+            if (origin.isEmpty()) {
+                continue;
+            }
+
+            if (origin.contains("*")) {
+                wildcardOrigins.add(WildcardOrigin.compile(origin));
+            } else {
+                origins.add(origin);
+            }
+        }
+
+        this.allowedHeaders = allowedHeaders;
+        this.maxAge = String.valueOf(maxAge / 1000);
+    }
 
     /**
      * Called by the web container to indicate to a filter that it is being placed into service.
@@ -35,7 +75,8 @@ public class CorsFilter implements Filter {
 
     /**
      * This method is called by the container each time a request/response pair is passed through the chain due to a client request for a resource at the end of the chain.
-     * The FilterChain passed in to this method allows the Filter to pass on the request and response to the next entity in the chain.
+     * A preflight is answered here (Accepted for an allowed origin, Forbidden for any other), other requests get the
+     * CORS headers of their origin and are passed on to the next entity in the chain.
      * @param servletRequest  The request to process
      * @param servletResponse The response associated with the request
      * @param filterChain    Provides access to the next filter in the chain for this
@@ -47,26 +88,62 @@ public class CorsFilter implements Filter {
      */
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
-        logger.info("Cors filter is working on the following request: " + servletRequest);
 
         HttpServletRequest request = (HttpServletRequest) servletRequest;
-        HttpServletResponse res=((HttpServletResponse)servletResponse);
+        HttpServletResponse res = (HttpServletResponse) servletResponse;
+
+        String origin = request.getHeader("Origin");
+
+        if (origin == null) {
+            filterChain.doFilter(servletRequest, res);
+            return;
+        }
 
-        String header = request.getHeader("origin");
+        boolean allowed = isAllowed(origin);
+        boolean preflight = "OPTIONS".equals(request.getMethod())
+                && request.getHeader("Access-Control-Request-Method") != null;
 
-        if(origins.contains(header)){
-            res.addHeader("Access-Control-Allow-Origin", header);
-            res.addHeader("Access-Control-Allow-Headers", "*");
-            res.addHeader("Access-Control-Allow-Methods",
-                    "GET, OPTIONS, HEAD, PUT, POST, PATCH, DELETE");
-            res.addHeader("Access-Control-Allow-Credentials", "true");
+        res.addHeader("Vary", "Origin");
 
-            if (request.getMethod().equals("OPTIONS")) {
-                res.setStatus(HttpServletResponse.SC_ACCEPTED);
-                return;
+        if (allowed) {
+            res.setHeader("Access-Control-Allow-Origin", origin);
+            res.setHeader("Access-Control-Allow-Credentials", "true");
+        }
+
+        if (!preflight) {
+            filterChain.doFilter(servletRequest, res);
+            return;
+        }
+
+        if (!allowed) {
+            logger.debug("Rejected a preflight from {}", origin);
+            res.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        res.setHeader("Access-Control-Allow-Methods", ALLOWED_METHODS);
+        res.setHeader("Access-Control-Allow-Headers", allowedHeaders);
+        res.setHeader("Access-Control-Max-Age", maxAge);
+        res.setStatus(HttpServletResponse.SC_ACCEPTED);
+    }
+
+    /**
+     * @param origin - The Origin header of a request.
+     * @return true if the origin may call the API.
+     */
+    public boolean isAllowed(String origin) {
+
+        if (origins.contains(origin)) {
+            return true;
+        }
+
+        for (WildcardOrigin wildcardOrigin : wildcardOrigins) {
+            if (wildcardOrigin.matches(origin)) {
+                return true;
             }
         }
-        filterChain.doFilter(servletRequest, res);
+
+        return false;
     }
 
     /**
@@ -78,4 +155,48 @@ public class CorsFilter implements Filter {
     public void destroy() {
         Filter.super.destroy();
     }
-}
\ No newline at end of file
+
+    /**
+     * An origin with a wildcard subdomain, split around the wildcard: "https://*.example.com:8443" matches every origin
+     * that starts with "https://", ends with ".example.com:8443" and has a host name in between.
+     */
+    private static final class WildcardOrigin {
+
+        private final String prefix;
+
+        private final String suffix;
+
+        private WildcardOrigin(String prefix, String suffix) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        private static WildcardOrigin compile(String origin) {
+
+            int schemeEnd = origin.indexOf("://");
+
+            if (schemeEnd < 0 || !origin.startsWith("*.", schemeEnd + 3) || origin.indexOf('*', schemeEnd + 4) >= 0) {
+                throw new IllegalArgumentException("Invalid wildcard origin: " + origin);
+            }
+
+            return new WildcardOrigin(origin.substring(0, schemeEnd + 3), origin.substring(schemeEnd + 4));
+        }
+
+        private boolean matches(String origin) {
+
+            if (origin.length() <= prefix.length() + suffix.length()
+                    || !origin.startsWith(prefix) || !origin.endsWith(suffix)) {
+                return false;
+            }
+
+            for (int i = prefix.length(); i < origin.length() - suffix.length(); i++) {
+                char c = origin.charAt(i);
+                if (!Character.isLetterOrDigit(c) && c != '-' && c != '.') {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package calendar.filters;
+
+import calendar.entities.enums.RoleType;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a handler that only users with one of the given roles in the event of the "eventId" parameter may use.
+ * Implies {@link Authenticated}. The RouteSecurityInterceptor attaches the role type ("roleType") and status
+ * ("statusType") of the user in the event to the request.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface EventRoles {
+
+    RoleType[] value();
+}
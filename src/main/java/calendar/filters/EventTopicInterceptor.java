@@ -0,0 +1,121 @@
+package calendar.filters;
+
+import calendar.eventNotifications.NotificationListener;
+import calendar.service.AuthService;
+import calendar.service.RoleGrantCache;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Guards the STOMP topics of the events ("/events/{eventId}"), which carry the changes of an event to all of its
+ * participants at once. A session logs in by sending the "token" header on its CONNECT frame, and may only
+ * SUBSCRIBE to the topic of an event its user is part of, checked with the {@link RoleGrantCache}.
+ * The subscription is checked once, so a guest removed from the event keeps receiving its topic until the session
+ * reconnects.
+ * Other destinations ("/update/{email}", "/notifications/{email}") are not checked here, but no destination may be
+ * a pattern: the simple broker matches Ant patterns, so "/**" would receive the topics of all the events.
+ */
+@Component
+public class EventTopicInterceptor implements ChannelInterceptor {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private RoleGrantCache roleGrantCache;
+
+    // the user of every session that connected with a valid token.
+    private final Map<String, Integer> sessionUsers = new ConcurrentHashMap<>();
+
+    private static final Logger logger = LogManager.getLogger(EventTopicInterceptor.class.getName());
+
+    public EventTopicInterceptor() {
+    }
+
+    EventTopicInterceptor(AuthService authService, RoleGrantCache roleGrantCache) {
+        this.authService = authService;
+        this.roleGrantCache = roleGrantCache;
+    }
+
+    /**
+     * Remembers the user of a connecting session, forgets it when the session disconnects, and rejects the
+     * subscriptions to the topic of an event the user of the session is not part of.
+     *
+     * @param message - A frame a client sent.
+     * @param channel - The inbound channel of the clients.
+     * @return the frame, if it may reach the broker.
+     * @throws MessageDeliveryException if the subscription is not allowed, the client gets an ERROR frame.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+
+        if (messageType == null || sessionId == null) {
+            return message;
+        }
+
+        switch (messageType) {
+            case CONNECT:
+                String token = SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader("token");
+                Optional<Integer> userId = token == null ? Optional.empty() : authService.getUserIdByToken(token);
+
+                if (userId.isPresent()) {
+                    sessionUsers.put(sessionId, userId.get());
+                } else {
+                    sessionUsers.remove(sessionId);
+                }
+                break;
+            case DISCONNECT:
+                sessionUsers.remove(sessionId);
+                break;
+            case SUBSCRIBE:
+                String destination = SimpMessageHeaderAccessor.getDestination(headers);
+
+                if (destination != null && (isPattern(destination)
+                        || destination.startsWith(NotificationListener.EVENT_TOPIC_PREFIX)
+                        && !mayReceive(sessionUsers.get(sessionId), destination))) {
+                    logger.info("session " + sessionId + " may not subscribe to " + destination);
+                    throw new MessageDeliveryException(message, "Unauthorized");
+                }
+                break;
+            default:
+                break;
+        }
+
+        return message;
+    }
+
+    private static boolean isPattern(String destination) {
+        return destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0;
+    }
+
+    private boolean mayReceive(Integer userId, String destination) {
+
+        if (userId == null) {
+            return false;
+        }
+
+        try {
+            int eventId = Integer.parseInt(destination.substring(NotificationListener.EVENT_TOPIC_PREFIX.length()));
+            return roleGrantCache.get(userId, eventId).isPresent();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
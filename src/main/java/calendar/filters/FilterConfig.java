@@ -1,55 +1,49 @@
 package calendar.filters;
 
-import calendar.service.AuthService;
-import calendar.service.EventService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Arrays;
 
 @Configuration
-public class FilterConfig {
+public class FilterConfig implements WebMvcConfigurer {
 
     public static final Logger logger = LogManager.getLogger(FilterConfig.class);
-    private final AuthService authService;
-    private final EventService eventService;
-
-    private static String[] tokenUrls =   {"/user/update", "/user/delete", "/user/getNotificationSettings",
-            "/user/getUsersWhoSharedWithMe", "/user/updateCity", "/user/share",
-            "/event/removeGuest", "/event/inviteGuest", "/event/switchRole", "/event/saveEvent",
-            "/event/updateEvent", "/event/GetAllShared", "/event/deleteEvent",
-            "/event/getEventsByUserId", "/event/updateEvent/isPublic", "/event/updateEvent/location",
-            "/event/updateEvent/title", "/event/updateEvent/description", "/event/updateEvent/time",
-            "/event/updateEvent/duration", "/event/updateEvent/event", "/event/updateEvent/date",
-            "/event/switchStatus", "/event/leaveEvent", "/event/getEventsByUserIdShowOnly"};
-
-    private static String[] roleUrls = { "/event/removeGuest", "/event/inviteGuest", "/event/updateEvent/isPublic", "/event/updateEvent/location",
-            "/event/updateEvent/time", "/event/updateEvent/duration", "/event/updateEvent/date", "/event/updateEvent/description",
-            "/event/updateEvent/title", "/event/updateEvent/event", "/event/deleteEvent", "/event/switchRole", "/event/leaveEvent"};
+    private final RouteSecurityInterceptor routeSecurityInterceptor;
 
     @Autowired
-    public FilterConfig(AuthService authService, EventService eventService) {
+    public FilterConfig(RouteSecurityInterceptor routeSecurityInterceptor) {
 
         logger.info("AppConfig is created");
 
-        this.authService = authService;
-        this.eventService = eventService;
+        this.routeSecurityInterceptor = routeSecurityInterceptor;
     }
 
     /**
-     * this method is used to register the cors filter
+     * this method is used to register the cors filter, it runs first so preflights never reach the route security.
      *
+     * @param allowedOrigins - Comma separated origins, a subdomain may be a wildcard ("https://*.example.com").
+     * @param allowedHeaders - The headers a cross-origin request may send.
+     * @param maxAge         - How long browsers may cache a preflight, in milliseconds.
      * @return FilterRegistrationBean<CorsFilter>
      */
     @Bean
-    public FilterRegistrationBean<CorsFilter> corsFilterBean() {
+    public FilterRegistrationBean<CorsFilter> corsFilterBean(
+            @Value("${cors.allowed-origins:http://localhost:9000}") String allowedOrigins,
+            @Value("${cors.allowed-headers:*}") String allowedHeaders,
+            @Value("${cors.max-age:3600000}") long maxAge) {
 
         logger.info("CorsFilterBean has been created");
 
         FilterRegistrationBean<CorsFilter> registrationBean = new FilterRegistrationBean<>();
-        CorsFilter corsFilter = new CorsFilter();
+        CorsFilter corsFilter = new CorsFilter(Arrays.asList(allowedOrigins.split(",")), allowedHeaders, maxAge);
         registrationBean.setFilter(corsFilter);
         registrationBean.addUrlPatterns("/*");
         registrationBean.setOrder(1); //set precedence
@@ -57,48 +51,16 @@ public class FilterConfig {
     }
 
     /**
-     * his method is used to register the token filter
-     * the token filter initialized with the auth service
-     * the token filter is running first in the filter chain
-     *
-     * @return FilterRegistrationBean<TokenFilter>
-     */
-    @Bean
-    public FilterRegistrationBean<TokenFilter> filterRegistrationBean() {
-
-        logger.info("FilterRegistrationBean has been created");
-
-        FilterRegistrationBean<TokenFilter> registrationBean = new FilterRegistrationBean<>();
-        TokenFilter customURLFilter = new TokenFilter(authService);
-        registrationBean.setFilter(customURLFilter);
-
-        registrationBean.addUrlPatterns(tokenUrls);
-
-        registrationBean.setOrder(2); //set precedence
-
-        return registrationBean;
-    }
-
-    /**
-     * his method is used to register the token filter
-     * the token filter initialized with the auth service
-     * the token filter is running first in the filter chain
+     * this method is used to register the route security interceptor, which checks the token and the event role
+     * a handler asks for with its @Authenticated and @EventRoles annotations.
      *
-     * @return FilterRegistrationBean<TokenFilter>
+     * @param registry - The interceptors of the application.
      */
-    @Bean
-    public FilterRegistrationBean<RoleFilter> RoleFilterBean() {
-
-        logger.info("Filter Role Bean has been created");
-
-        FilterRegistrationBean<RoleFilter> registrationBean = new FilterRegistrationBean<>();
-        RoleFilter customURLFilter = new RoleFilter(eventService);
-        registrationBean.setFilter(customURLFilter);
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
 
-        registrationBean.addUrlPatterns(roleUrls);
+        logger.info("RouteSecurityInterceptor has been registered");
 
-        registrationBean.setOrder(3); //set precedence
-
-        return registrationBean;
+        registry.addInterceptor(routeSecurityInterceptor);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package calendar.filters;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the role permissions override the RouteSecurityInterceptor applies on top of the {@link EventRoles}
+ * annotations. Without auth.role-permissions.file there is no override. When it is set, the file is watched:
+ * every change is compiled and swapped in at once, a broken file keeps the permissions that were in use.
+ * A file written in place may be read half written (e.g. empty, which removes the override until the next change),
+ * so deployments should replace it with a move.
+ */
+@Component
+public class RolePermissionRegistry {
+
+    private final AtomicReference<RolePermissions> permissions = new AtomicReference<>(RolePermissions.NONE);
+
+    private final Path overrideFile;
+
+    private Thread watcher;
+
+    private static final Logger logger = LogManager.getLogger(RolePermissionRegistry.class.getName());
+
+    public RolePermissionRegistry(@Value("${auth.role-permissions.file:}") String overrideFile) throws IOException {
+
+        this.overrideFile = overrideFile.isEmpty() ? null : Paths.get(overrideFile).toAbsolutePath();
+
+        if (this.overrideFile != null) {
+            reload();
+            watch();
+        }
+    }
+
+    /**
+     * @return the permissions in use, {@link RolePermissions#NONE} if there is no override.
+     */
+    public RolePermissions get() {
+        return permissions.get();
+    }
+
+    /**
+     * Compiles the override file and swaps it in, the current permissions stay if the file cannot be used.
+     *
+     * @return true if the permissions were replaced.
+     */
+    public boolean reload() {
+
+        if (overrideFile == null) {
+            return false;
+        }
+
+        try (Reader reader = Files.newBufferedReader(overrideFile, StandardCharsets.UTF_8)) {
+            Properties properties = new Properties();
+            properties.load(reader);
+
+            permissions.set(RolePermissions.compile(properties));
+            logger.info("loaded role permissions from " + overrideFile);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("could not load role permissions from " + overrideFile + ", keeping the current ones - " + e);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+
+    private void watch() throws IOException {
+
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        overrideFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        watcher = new Thread(() -> {
+            try (WatchService service = watchService) {
+                while (!Thread.currentThread().isInterrupted()) {
+                    WatchKey key = service.take();
+
+                    boolean changed = key.pollEvents().stream()
+                            .anyMatch(event -> overrideFile.getFileName().equals(event.context()));
+
+                    if (changed) {
+                        reload();
+                    }
+
+                    key.reset();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                logger.error("stopped watching " + overrideFile + " - " + e);
+            }
+        }, "role-permissions-watcher");
+
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+}
@@ -0,0 +1,71 @@
+package calendar.filters;
+
+import calendar.entities.enums.RoleType;
+
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * The compiled role permissions override: for some handlers, the event roles that may use them instead of the roles
+ * of their {@link EventRoles} annotation. A handler is named by its controller and method
+ * ("EventController.inviteGuest"), the value is a comma separated list of role types. Immutable, a reload builds
+ * a new instance.
+ */
+public final class RolePermissions {
+
+    public static final RolePermissions NONE = new RolePermissions(Collections.emptyMap());
+
+    private final Map<String, Set<RoleType>> eventRoles;
+
+    private RolePermissions(Map<String, Set<RoleType>> eventRoles) {
+        this.eventRoles = eventRoles;
+    }
+
+    /**
+     * @param properties - The role types per handler name.
+     * @return the compiled permissions.
+     * @throws IllegalArgumentException if a handler lists no role types, or an unknown one.
+     */
+    public static RolePermissions compile(Properties properties) {
+
+        Map<String, Set<RoleType>> eventRoles = new HashMap<>();
+
+        for (String handler : properties.stringPropertyNames()) {
+            EnumSet<RoleType> roles = EnumSet.noneOf(RoleType.class);
+
+            for (String role : properties.getProperty(handler).split(",")) {
+                if (!role.trim().isEmpty()) {
+                    roles.add(RoleType.valueOf(role.trim()));
+                }
+            }
+
+            if (roles.isEmpty()) {
+                throw new IllegalArgumentException("No event roles for " + handler);
+            }
+
+            eventRoles.put(handler.trim(), Collections.unmodifiableSet(roles));
+        }
+
+        return new RolePermissions(Collections.unmodifiableMap(eventRoles));
+    }
+
+    /**
+     * @param method - The handler method.
+     * @return the name of the handler in the override.
+     */
+    public static String getHandlerName(Method method) {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    /**
+     * @param method - The handler method.
+     * @return the event roles that may use the handler, null if the override does not list it.
+     */
+    public Set<RoleType> getEventRoles(Method method) {
+        return eventRoles.get(getHandlerName(method));
+    }
+
+    public Set<String> getHandlers() {
+        return eventRoles.keySet();
+    }
+}
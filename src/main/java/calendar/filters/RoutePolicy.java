@@ -0,0 +1,97 @@
+package calendar.filters;
+
+import calendar.entities.enums.RoleType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * What a handler needs from the request: a logged-in user, and possibly one of some roles in the event of the request.
+ * Resolved once per handler from its {@link Authenticated} and {@link EventRoles} annotations, and the
+ * {@link RolePermissions} override. Immutable.
+ */
+public final class RoutePolicy {
+
+    public static final RoutePolicy PUBLIC = new RoutePolicy(false, Collections.emptySet());
+
+    private final boolean authenticated;
+
+    // empty if the role of the user in the event is not checked.
+    private final Set<RoleType> eventRoles;
+
+    private RoutePolicy(boolean authenticated, Set<RoleType> eventRoles) {
+        this.authenticated = authenticated;
+        this.eventRoles = eventRoles;
+    }
+
+    /**
+     * @param method - The handler method, annotated directly or through its controller.
+     * @return the policy of the handler, {@link #PUBLIC} if it is not annotated.
+     * @throws IllegalArgumentException if the handler lists no event roles.
+     */
+    public static RoutePolicy of(Method method) {
+
+        EventRoles eventRoles = AnnotatedElementUtils.findMergedAnnotation(method, EventRoles.class);
+
+        if (eventRoles != null) {
+            if (eventRoles.value().length == 0) {
+                throw new IllegalArgumentException("No event roles on " + method);
+            }
+            EnumSet<RoleType> roles = EnumSet.copyOf(Arrays.asList(eventRoles.value()));
+            return new RoutePolicy(true, Collections.unmodifiableSet(roles));
+        }
+
+        if (AnnotatedElementUtils.hasAnnotation(method, Authenticated.class)
+                || AnnotatedElementUtils.hasAnnotation(method.getDeclaringClass(), Authenticated.class)) {
+            return new RoutePolicy(true, Collections.emptySet());
+        }
+
+        return PUBLIC;
+    }
+
+    /**
+     * @param roles - The event roles that may use the handler instead of its own.
+     * @return a policy which needs a logged-in user with one of the roles in the event of the request.
+     * @throws IllegalArgumentException if no roles are given.
+     */
+    public RoutePolicy withEventRoles(Set<RoleType> roles) {
+
+        if (roles.isEmpty()) {
+            throw new IllegalArgumentException("No event roles");
+        }
+
+        return new RoutePolicy(true, Collections.unmodifiableSet(EnumSet.copyOf(roles)));
+    }
+
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    public boolean isEventRoleChecked() {
+        return !eventRoles.isEmpty();
+    }
+
+    /**
+     * @param roleType - The role of the user in the event.
+     * @return true if a user with this role may use the handler.
+     */
+    public boolean isAllowed(RoleType roleType) {
+        return eventRoles.contains(roleType);
+    }
+
+    public Set<RoleType> getEventRoles() {
+        return eventRoles;
+    }
+
+    @Override
+    public String toString() {
+        return "RoutePolicy{" +
+                "authenticated=" + authenticated +
+                ", eventRoles=" + eventRoles +
+                '}';
+    }
+}
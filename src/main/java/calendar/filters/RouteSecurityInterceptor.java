@@ -0,0 +1,225 @@
+package calendar.filters;
+
+import calendar.entities.Principal;
+import calendar.entities.RoleGrant;
+import calendar.entities.enums.RoleType;
+import calendar.service.AuthService;
+import calendar.service.PrincipalCache;
+import calendar.service.RoleGrantCache;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Authenticates and authorizes every request in one pass, according to the {@link Authenticated} and
+ * {@link EventRoles} annotations of its handler. The annotations are resolved once, when the application starts,
+ * into a handler to policy table, so a request costs one map lookup before the token and role checks.
+ * The event roles of a handler can be replaced without a restart by the {@link RolePermissionRegistry} override,
+ * the table is rebuilt by the first request after the override changed.
+ * A missing or invalid token, or a role that may not use the handler, gets an Unauthorized response.
+ */
+@Component
+public class RouteSecurityInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private RoleGrantCache roleGrantCache;
+
+    @Autowired
+    private RolePermissionRegistry rolePermissionRegistry;
+
+    private volatile Collection<Method> handlers = Collections.emptyList();
+
+    private volatile Map<Method, RoutePolicy> policies = Collections.emptyMap();
+
+    // the override the policies were built with.
+    private volatile RolePermissions permissions;
+
+    private static final Logger logger = LogManager.getLogger(RouteSecurityInterceptor.class.getName());
+
+    public RouteSecurityInterceptor() {
+    }
+
+    RouteSecurityInterceptor(AuthService authService, PrincipalCache principalCache, RoleGrantCache roleGrantCache,
+                             RolePermissionRegistry rolePermissionRegistry) {
+        this.authService = authService;
+        this.principalCache = principalCache;
+        this.roleGrantCache = roleGrantCache;
+        this.rolePermissionRegistry = rolePermissionRegistry;
+    }
+
+    /**
+     * Resolves the policies of all the handlers once the handler mappings are ready.
+     *
+     * @param event - The refresh of the application context.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void compile(ContextRefreshedEvent event) {
+
+        Map<RequestMappingInfo, HandlerMethod> handlerMethods = event.getApplicationContext()
+                .getBean("requestMappingHandlerMapping", RequestMappingHandlerMapping.class).getHandlerMethods();
+
+        compile(handlerMethods.values());
+    }
+
+    /**
+     * Builds the handler to policy table of the handlers of the application.
+     *
+     * @param handlerMethods - The handlers of the application.
+     */
+    synchronized void compile(Collection<HandlerMethod> handlerMethods) {
+
+        List<Method> methods = new ArrayList<>(handlerMethods.size());
+
+        for (HandlerMethod handlerMethod : handlerMethods) {
+            methods.add(handlerMethod.getMethod());
+        }
+
+        handlers = methods;
+        permissions = null;
+        rebuild(rolePermissionRegistry.get());
+    }
+
+    /**
+     * @param handlerMethod - The handler of a request.
+     * @return the policy of the handler, {@link RoutePolicy#PUBLIC} if it has none.
+     */
+    public RoutePolicy getPolicy(HandlerMethod handlerMethod) {
+
+        RolePermissions current = rolePermissionRegistry.get();
+
+        if (current != permissions) {
+            rebuild(current);
+        }
+
+        return policies.getOrDefault(handlerMethod.getMethod(), RoutePolicy.PUBLIC);
+    }
+
+    /**
+     * Builds the handler to policy table with an override, handlers without annotations or override are left out
+     * (they are public).
+     *
+     * @param override - The role permissions override.
+     */
+    private synchronized void rebuild(RolePermissions override) {
+
+        // another request already rebuilt it.
+        if (override == permissions) {
+            return;
+        }
+
+        Map<Method, RoutePolicy> compiled = new HashMap<>();
+        Set<String> unknownHandlers = new HashSet<>(override.getHandlers());
+
+        for (Method method : handlers) {
+            RoutePolicy policy = RoutePolicy.of(method);
+            Set<RoleType> eventRoles = override.getEventRoles(method);
+
+            if (eventRoles != null) {
+                policy = policy.withEventRoles(eventRoles);
+                unknownHandlers.remove(RolePermissions.getHandlerName(method));
+            }
+
+            if (policy != RoutePolicy.PUBLIC) {
+                compiled.put(method, policy);
+            }
+        }
+
+        if (!unknownHandlers.isEmpty()) {
+            logger.warn("role permissions of unknown handlers are ignored - " + unknownHandlers);
+        }
+
+        policies = compiled;
+        permissions = override;
+
+        logger.info("compiled route policies of " + compiled.size() + " handlers");
+    }
+
+    /**
+     * Checks the token of the request, and the role of its user in the event of the "eventId" parameter
+     * when the handler asks for it. Attaches "userId", "principal", "roleType" and "statusType" to the request.
+     *
+     * @param request  - The request to process.
+     * @param response - The response associated with the request.
+     * @param handler  - The handler the request was mapped to.
+     * @return true if the request may reach its handler.
+     * @throws IOException if the Unauthorized response could not be sent.
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+
+        // the async dispatch of a handler which returned a future was already checked.
+        if (!(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+
+        RoutePolicy policy = getPolicy((HandlerMethod) handler);
+
+        if (!policy.isAuthenticated()) {
+            return true;
+        }
+
+        String token = request.getHeader("token");
+        Optional<Principal> principal = token == null ? Optional.empty()
+                : authService.getUserIdByToken(token).flatMap(principalCache::get);
+
+        if (!principal.isPresent()) {
+            response.sendError(401, "Unauthorized");
+            return false;
+        }
+
+        int userId = principal.get().getId();
+        request.setAttribute("userId", userId);
+        request.setAttribute("principal", principal.get());
+
+        if (!policy.isEventRoleChecked()) {
+            return true;
+        }
+
+        Optional<RoleGrant> roleGrant = getEventId(request).flatMap(eventId -> roleGrantCache.get(userId, eventId));
+
+        if (!roleGrant.isPresent() || !policy.isAllowed(roleGrant.get().getRoleType())) {
+            response.sendError(401, "Invalid role type");
+            return false;
+        }
+
+        request.setAttribute("roleType", roleGrant.get().getRoleType());
+        request.setAttribute("statusType", roleGrant.get().getStatusType());
+
+        return true;
+    }
+
+    private static Optional<Integer> getEventId(HttpServletRequest request) {
+
+        String eventId = request.getParameter("eventId");
+
+        if (eventId == null) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(Integer.parseInt(eventId));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -1,25 +1,114 @@
 package calendar.repository;
 
+import calendar.entities.DTO.EventDTO;
+import calendar.entities.DTO.EventSummaryDTO;
+import calendar.entities.DTO.ParticipantDTO;
 import calendar.entities.Event;
+import calendar.entities.RoleGrant;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import javax.transaction.Transactional;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Integer> {
 
+    String STREAM_FETCH_SIZE = "100";
+
     Optional<Event> findById(int id);
 
+    // the columns of an event without its roles and attachments.
+    @Query("select new calendar.entities.DTO.EventDTO(e.id, e.isPublic, e.time, e.duration, e.location, e.title," +
+            " e.description) from Event e where e.id =:id")
+    Optional<EventDTO> findEventDTOById(@Param("id") int id);
+
+    @Query("select new calendar.entities.DTO.EventSummaryDTO(e.id, e.title, e.startUtc, e.endUtc, e.location," +
+            " e.isPublic, r.roleType, r.statusType, size(e.roles)) from Event e join e.roles r where r.user.id =:userId" +
+            " and (:showOnly = false or r.isShownInMyCalendar = true) order by e.startUtc, e.id")
+    List<EventSummaryDTO> findEventSummariesByUserId(@Param("userId") int userId, @Param("showOnly") boolean showOnly);
+
+    @Query("select new calendar.entities.DTO.EventSummaryDTO(e.id, e.title, e.startUtc, e.endUtc, e.location," +
+            " e.isPublic, v.roleType, v.statusType, size(e.roles)) from Event e join e.roles r" +
+            " left join e.roles v on v.user.id =:viewerId" +
+            " where r.user.id =:userId and e.isPublic = true order by e.startUtc, e.id")
+    List<EventSummaryDTO> findPublicEventSummariesByUserId(@Param("userId") int userId, @Param("viewerId") int viewerId);
+
+    // read forward-only in batches of STREAM_FETCH_SIZE rows, on MySQL through the cursor DataSourceConfig turns on.
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select new calendar.entities.DTO.EventSummaryDTO(e.id, e.title, e.startUtc, e.endUtc, e.location," +
+            " e.isPublic, r.roleType, r.statusType, size(e.roles)) from Event e join e.roles r where r.user.id =:userId" +
+            " and (:showOnly = false or r.isShownInMyCalendar = true) order by e.startUtc, e.id")
+    Stream<EventSummaryDTO> streamEventSummariesByUserId(@Param("userId") int userId, @Param("showOnly") boolean showOnly);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select new calendar.entities.DTO.EventSummaryDTO(e.id, e.title, e.startUtc, e.endUtc, e.location," +
+            " e.isPublic, v.roleType, v.statusType, size(e.roles)) from Event e join e.roles r" +
+            " left join e.roles v on v.user.id =:viewerId" +
+            " where r.user.id =:userId and e.isPublic = true order by e.startUtc, e.id")
+    Stream<EventSummaryDTO> streamPublicEventSummariesByUserId(@Param("userId") int userId, @Param("viewerId") int viewerId);
+
+    @Query("select new calendar.entities.DTO.ParticipantDTO(e.id, r.user.id, r.roleType, r.statusType)" +
+            " from Event e join e.roles r where e.id in :eventIds")
+    List<ParticipantDTO> findParticipants(@Param("eventIds") Collection<Integer> eventIds);
+
+    @Query("select new calendar.entities.RoleGrant(r.roleType, r.statusType) from Event e join e.roles r" +
+            " where e.id =:eventId and r.user.id =:userId")
+    Optional<RoleGrant> findRoleGrant(@Param("userId") int userId, @Param("eventId") int eventId);
+
+    @Query("select e from Event e where e.startUtc >:from")
+    List<Event> findEventsStartingAfter(@Param("from") Instant from);
+
+    @Query("select e from Event e where e.startUtc >:from and e.startUtc <:to")
+    List<Event> findEventsStartingBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("select distinct e from Event e join e.roles r where r.user.id =:userId and e.startUtc >:from")
+    List<Event> findEventsByUserIdStartingAfter(@Param("userId") int userId, @Param("from") Instant from);
+
+    @Query("select new calendar.entities.DTO.EventSummaryDTO(e.id, e.title, e.startUtc, e.endUtc, e.location," +
+            " e.isPublic, r.roleType, r.statusType, size(e.roles)) from Event e join e.roles r where r.user.id =:userId" +
+            " and (:showOnly = false or r.isShownInMyCalendar = true)" +
+            " and e.endUtc >:from and e.startUtc <:to order by e.startUtc, e.id")
+    List<EventSummaryDTO> findEventSummariesByUserIdInRange(@Param("userId") int userId, @Param("showOnly") boolean showOnly,
+                                                            @Param("from") Instant from, @Param("to") Instant to,
+                                                            Pageable pageable);
+
+    @Query("select new calendar.entities.DTO.EventSummaryDTO(e.id, e.title, e.startUtc, e.endUtc, e.location," +
+            " e.isPublic, r.roleType, r.statusType, size(e.roles)) from Event e join e.roles r where r.user.id =:userId" +
+            " and (:showOnly = false or r.isShownInMyCalendar = true)" +
+            " and e.endUtc >:from and e.startUtc <:to" +
+            " and (e.startUtc >:afterStart or (e.startUtc =:afterStart and e.id >:afterId)) order by e.startUtc, e.id")
+    List<EventSummaryDTO> findEventSummariesByUserIdInRangeAfter(@Param("userId") int userId, @Param("showOnly") boolean showOnly,
+                                                                 @Param("from") Instant from, @Param("to") Instant to,
+                                                                 @Param("afterStart") Instant afterStart,
+                                                                 @Param("afterId") int afterId, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Event e set e.startUtc =:startUtc,e.endUtc =:endUtc where e.id =:id")
+    @Transactional
+    int updateEventWindow(@Param("startUtc") Instant startUtc, @Param("endUtc") Instant endUtc, @Param("id") int id);
 
     @Modifying
+    @Query(value = "update event set start_utc = time, end_utc = timestampadd(second, round(duration * 3600), time)" +
+            " where start_utc is null and time is not null", nativeQuery = true)
+    @Transactional
+    int backfillEventWindows();
+
+    // clears the persistence context, so the event read back in the same transaction is the updated one.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query("update Event e set e.isPublic =:isPublic,e.title =:title,e.time =:time,e.duration =:duration,e.location =:location,e.description =:description where e.id =:id")
     @Transactional
     int updateEvent(@Param("isPublic") boolean isPublic, @Param("title") String title
@@ -28,7 +117,7 @@ public interface EventRepository extends JpaRepository<Event, Integer> {
 
 
 
-    @Modifying
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query("update Event e set e.isPublic =:isPublic,e.location =:location,e.description =:description where e.id =:id")
     @Transactional
     int updateEventRestricted(@Param("isPublic") boolean isPublic,@Param("location") String location, @Param("description") String description, @Param("id") int id);
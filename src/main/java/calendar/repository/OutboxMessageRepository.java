@@ -0,0 +1,45 @@
+package calendar.repository;
+
+import calendar.entities.OutboxMessage;
+import calendar.entities.enums.DeliveryChannel;
+import calendar.entities.enums.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    @Query("select o.idempotencyKey from OutboxMessage o where o.idempotencyKey in :keys")
+    List<String> findExistingKeys(@Param("keys") Collection<String> keys);
+
+    // lock timeout -2 is SKIP LOCKED, so relays that drain at the same time claim different rows.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select o from OutboxMessage o where o.status in :statuses and o.channel in :channels and o.nextAttemptAt <=:now order by o.nextAttemptAt")
+    List<OutboxMessage> claimReady(@Param("statuses") Collection<OutboxStatus> statuses,
+                                   @Param("channels") Collection<DeliveryChannel> channels, @Param("now") Instant now,
+                                   Pageable pageable);
+
+    // only matches while the claim made with these attempts is still the current one.
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage o set o.nextAttemptAt =:leaseEnd where o.id =:id and o.attempts =:attempts and o.status =:status")
+    int renewLease(@Param("id") long id, @Param("attempts") int attempts, @Param("status") OutboxStatus status,
+                   @Param("leaseEnd") Instant leaseEnd);
+
+    long countByStatus(OutboxStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxMessage o where o.status =:status and o.createdAt <:before")
+    int deleteByStatusCreatedBefore(@Param("status") OutboxStatus status, @Param("before") Instant before);
+}
@@ -0,0 +1,42 @@
+package calendar.repository;
+
+import calendar.entities.ReminderDue;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ReminderDueRepository extends JpaRepository<ReminderDue, Long> {
+
+    List<ReminderDue> findByEventId(int eventId);
+
+    // lock timeout -2 is SKIP LOCKED, so nodes that dispatch at the same time claim different rows.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select r from ReminderDue r where r.sentAt is null and r.dueAt <=:now order by r.dueAt")
+    List<ReminderDue> claimDueReminders(@Param("now") Instant now, Pageable pageable);
+
+    long countBySentAtIsNull();
+
+    @Transactional
+    @Modifying
+    @Query("delete from ReminderDue r where r.eventId =:eventId")
+    int deleteByEventId(@Param("eventId") int eventId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ReminderDue r where r.eventId =:eventId and r.userId =:userId")
+    int deleteByEventIdAndUserId(@Param("eventId") int eventId, @Param("userId") int userId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ReminderDue r where r.sentAt is not null and r.dueAt <:before")
+    int deleteSentBefore(@Param("before") Instant before);
+}
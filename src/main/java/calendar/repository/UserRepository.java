@@ -1,12 +1,17 @@
 package calendar.repository;
 
+import calendar.entities.DTO.UserDTO;
 import calendar.entities.User;
+import calendar.eventNotifications.entity.NotificationRecipient;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -16,6 +21,23 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
         User findById(int id);
 
+        @Query("select new calendar.eventNotifications.entity.NotificationRecipient(u.id, u.email," +
+                " s.event_changed, s.invite_guest, s.uninvite_guest, s.user_status, s.user_role, s.cancel_event," +
+                " s.upcoming_event, s.id) from User u left join u.notificationSettings s where u.id in :userIds")
+        List<NotificationRecipient> findNotificationRecipients(@Param("userIds") Collection<Integer> userIds);
+
+        @Query("select new calendar.entities.DTO.UserDTO(u.id, u.name, u.email, u.provider, u.city)" +
+                " from User u where u.id in :userIds")
+        List<UserDTO> findUserDTOs(@Param("userIds") Collection<Integer> userIds);
+
+        @Query("select new calendar.entities.DTO.UserDTO(u.id, u.name, u.email, u.provider, u.city)" +
+                " from User u where u.email =:email")
+        Optional<UserDTO> findUserDTOByEmail(@Param("email") String email);
+
+        @Query("select new calendar.entities.DTO.UserDTO(s.id, s.name, s.email, s.provider, s.city)" +
+                " from User u join u.usersWhoSharedTheirCalendarWithMe s where u.id =:userId")
+        List<UserDTO> findUserDTOsWhoSharedWith(@Param("userId") int userId);
+
         @Transactional
         @Modifying
         @Query("delete from User u where u.id = ?1")
@@ -0,0 +1,35 @@
+package calendar.repository;
+
+import calendar.entities.UserSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface UserSessionRepository extends JpaRepository<UserSession, String> {
+
+    @Transactional
+    @Modifying
+    @Query("update UserSession s set s.lastAccessAt =:lastAccessAt where s.tokenHash =:tokenHash")
+    int touch(@Param("tokenHash") String tokenHash, @Param("lastAccessAt") Instant lastAccessAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UserSession s where s.tokenHash =:tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UserSession s where s.userId =:userId")
+    int deleteByUserId(@Param("userId") int userId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UserSession s where s.lastAccessAt <:before")
+    int deleteIdleSince(@Param("before") Instant before);
+}
@@ -6,13 +6,15 @@ import calendar.entities.DTO.LoginDataDTO;
 import calendar.entities.NotificationSettings;
 import calendar.entities.User;
 import calendar.entities.enums.ProviderType;
+import calendar.eventNotifications.NotificationPublisher;
 import calendar.repository.UserRepository;
-import calendar.utils.Utils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.SQLDataException;
 import java.util.*;
@@ -25,7 +27,21 @@ public class AuthService {
     @Autowired
     private Environment env;
 
-    static HashMap<Integer, String> usersTokensMap = new HashMap<>();
+    @Autowired
+    private SessionStore sessionStore;
+
+    @Autowired
+    private SignedTokenService signedTokenService;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private NotificationPublisher notificationPublisher;
+
+    // session - opaque tokens kept in this node's SessionStore, signed - stateless signed tokens.
+    @Value("${auth.token.mode:session}")
+    private String tokenMode;
 
     public AuthService(UserRepository userRepository) {
         this.userRepository = userRepository;
@@ -39,6 +55,7 @@ public class AuthService {
      * @param userRequest - All the information of the user we wish to register.
      * @return the created User
      * @throws SQLDataException - If the user is already registered in our DB.
+     * @throws java.util.concurrent.RejectedExecutionException - If the password hasher is overloaded.
      */
     public User createUser(UserRequest userRequest, ProviderType provider) throws IllegalArgumentException {
         logger.info("in createUser()");
@@ -48,7 +65,7 @@ public class AuthService {
         }
         logger.debug(userRequest);
 
-        User createdUser = new User(userRequest.getName(), userRequest.getEmail(), Utils.hashPassword(userRequest.getPassword()), provider);
+        User createdUser = new User(userRequest.getName(), userRequest.getEmail(), passwordHasher.hash(userRequest.getPassword()), provider);
         NotificationSettings notificationSettings = new NotificationSettings(createdUser);
         createdUser.setNotificationSettings(notificationSettings);
 
@@ -57,11 +74,31 @@ public class AuthService {
         return savedUser;
     }
 
+    /**
+     * Registers a user with a password, and queues his welcome notification in the same transaction,
+     * so it is only sent if the user was saved.
+     *
+     * @param userRequest - All the information of the user we wish to register.
+     * @return the created User
+     * @throws IllegalArgumentException - If the user is already registered in our DB.
+     * @throws java.util.concurrent.RejectedExecutionException - If the password hasher is overloaded.
+     */
+    @Transactional
+    public User register(UserRequest userRequest) {
+
+        User createdUser = createUser(userRequest, ProviderType.LOCAL);
+        notificationPublisher.publishRegistrationNotification(createdUser.getId());
+
+        return createdUser;
+    }
+
     /**
      * User logs in into our system with his email and password.
+     * A password hashed with a different cost than the configured one is re-hashed in the background.
      *
      * @param userRequest -  All the information of the user we wish to log in.
      * @return LoginData: user id and token (if log in is successful)
+     * @throws java.util.concurrent.RejectedExecutionException - If the password hasher is overloaded.
      */
     public Optional<LoginDataDTO> login(UserRequest userRequest) {
 
@@ -70,10 +107,15 @@ public class AuthService {
         Optional<User> user = userRepository.findByEmail(userRequest.getEmail());
 
         if (user.isPresent()) {
-            if ((user.get().getProvider() == ProviderType.LOCAL && Utils.verifyPassword(userRequest.getPassword(), user.get().getPassword()))
+            if ((user.get().getProvider() == ProviderType.LOCAL && passwordHasher.verify(userRequest.getPassword(), user.get().getPassword()))
                     || user.get().getProvider() == ProviderType.GITHUB && userRequest.getPassword().equals("")) {
 
-                String token = executeLogin(user.get().getId());
+                if (user.get().getProvider() == ProviderType.LOCAL && passwordHasher.needsRehash(user.get().getPassword())) {
+                    int userId = user.get().getId();
+                    passwordHasher.rehashAsync(userRequest.getPassword(), hash -> userRepository.updateUserPasswordById(userId, hash));
+                }
+
+                String token = executeLogin(user.get());
                 return Optional.of(new LoginDataDTO(user.get().getId(), token, user.get().getName(), user.get().getCity(), user.get().getEmail()));
             }
         }
@@ -82,33 +124,62 @@ public class AuthService {
 
 
     /**
-     * Check if user is authenticated
+     * Check if user is authenticated. Signed tokens are verified in memory, without any store,
+     * other tokens are looked up in the session store (which also extends their session).
+     * Both kinds are accepted whatever the token mode is, so switching modes does not log anyone out.
      *
-     * @param token - The token we wish to compare with our local token storage.
-     * @return userId if is present in usersTokensMap
+     * @param token - The token of the request.
+     * @return userId if the token is valid.
      */
     public Optional<Integer> getUserIdByToken(String token) {
-        return usersTokensMap
-                .entrySet()
-                .stream()
-                .filter(entry -> token.equals(entry.getValue()))
-                .map(Map.Entry::getKey)
-                .findFirst();
-    }
 
-    public static HashMap<Integer, String> getUsersTokensMap() {
-        return usersTokensMap;
+        if (SignedTokenService.isSignedToken(token)) {
+            return signedTokenService.verify(token).map(SignedTokenService.Claims::getUserId);
+        }
+
+        return sessionStore.getUserId(token);
     }
 
     /**
-     * Puts the token of a logged-in user in our local map which maps a user id to a token.
-     * @param userId - The user id of the user who logged-in
+     * Issues a token for a logged-in user according to auth.token.mode, the other tokens of the user stay valid.
+     * @param user - The user who logged-in
      * @return the token.
      */
-    public String executeLogin(int userId) {
-        Optional<String> token = Optional.of(Utils.generateUniqueToken());
-        usersTokensMap.put(userId, token.get());
-        return token.get();
+    public String executeLogin(User user) {
+
+        if ("signed".equals(tokenMode)) {
+            return signedTokenService.issue(user);
+        }
+
+        return sessionStore.create(user.getId());
+    }
+
+    /**
+     * Ends the session of a token.
+     *
+     * @param token - The token of the session.
+     * @return true if the session existed.
+     */
+    public boolean logout(String token) {
+
+        if (SignedTokenService.isSignedToken(token)) {
+            return signedTokenService.revoke(token);
+        }
+
+        return sessionStore.revoke(token);
+    }
+
+    /**
+     * Ends all the sessions of a user, on all of his devices.
+     *
+     * @param userId - The id of the user.
+     * @return the amount of sessions that were ended in the session store.
+     */
+    public int logoutAll(int userId) {
+
+        signedTokenService.revokeAll(userId);
+
+        return sessionStore.revokeAll(userId);
     }
 
 }
@@ -0,0 +1,159 @@
+package calendar.service;
+
+import calendar.entities.UserSession;
+import calendar.repository.UserSessionRepository;
+import calendar.utils.TtlCache;
+import calendar.utils.Utils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Keeps the sessions in the user_session table, so every node accepts every token and sessions survive restarts.
+ * <p>
+ * Lookups go through a small near-cache: a session found in the database is trusted for cache-ttl milliseconds
+ * before it is read again, so almost every request is answered from memory. A logout invalidates the cache of the
+ * node that handled it, the other nodes notice within cache-ttl. The last access of a session is written at most
+ * once every touch-interval, so the sliding expiry does not cost a write per request.
+ */
+@Service
+@ConditionalOnProperty(name = "auth.session.store", havingValue = "database", matchIfMissing = true)
+public class DatabaseSessionStore implements SessionStore {
+
+    @Autowired
+    private UserSessionRepository userSessionRepository;
+
+    // the user ids of the recently read sessions, by token hash.
+    private final TtlCache<String, Integer> nearCache;
+
+    private final long ttl;
+
+    private final long touchInterval;
+
+    private final Clock clock;
+
+    private static final Logger logger = LogManager.getLogger(DatabaseSessionStore.class.getName());
+
+    @Autowired
+    public DatabaseSessionStore(@Value("${auth.session.ttl:86400000}") long ttl,
+                                @Value("${auth.session.cache-ttl:5000}") long cacheTtl,
+                                @Value("${auth.session.cache-size:10000}") int cacheSize,
+                                @Value("${auth.session.touch-interval:60000}") long touchInterval) {
+        this(ttl, cacheTtl, cacheSize, touchInterval, Clock.systemUTC());
+    }
+
+    DatabaseSessionStore(long ttl, long cacheTtl, int cacheSize, long touchInterval, Clock clock) {
+        this.ttl = ttl;
+        this.nearCache = new TtlCache<>(cacheTtl, cacheSize, clock);
+        this.touchInterval = touchInterval;
+        this.clock = clock;
+    }
+
+    @Override
+    public String create(int userId) {
+
+        String token = Utils.generateUniqueToken();
+        String tokenHash = hash(token);
+        long now = clock.millis();
+
+        userSessionRepository.save(new UserSession(tokenHash, userId, Instant.ofEpochMilli(now)));
+        nearCache.put(tokenHash, userId);
+
+        return token;
+    }
+
+    @Override
+    public Optional<Integer> getUserId(String token) {
+
+        String tokenHash = hash(token);
+        long now = clock.millis();
+
+        Integer cached = nearCache.get(tokenHash);
+
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<UserSession> session = userSessionRepository.findById(tokenHash);
+
+        if (!session.isPresent()) {
+            nearCache.remove(tokenHash);
+            return Optional.empty();
+        }
+
+        long lastAccess = session.get().getLastAccessAt().toEpochMilli();
+
+        if (now - lastAccess > ttl) {
+            revoke(token);
+            return Optional.empty();
+        }
+
+        if (now - lastAccess > touchInterval) {
+            userSessionRepository.touch(tokenHash, Instant.ofEpochMilli(now));
+        }
+
+        nearCache.put(tokenHash, session.get().getUserId());
+
+        return Optional.of(session.get().getUserId());
+    }
+
+    @Override
+    public boolean revoke(String token) {
+
+        String tokenHash = hash(token);
+
+        nearCache.remove(tokenHash);
+
+        return userSessionRepository.deleteByTokenHash(tokenHash) > 0;
+    }
+
+    @Override
+    public int revokeAll(int userId) {
+
+        nearCache.removeIf((tokenHash, cachedUserId) -> cachedUserId == userId);
+
+        return userSessionRepository.deleteByUserId(userId);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${auth.session.sweep-interval:60000}")
+    public void sweep() {
+
+        long now = clock.millis();
+
+        nearCache.evictExpired();
+
+        int removed = userSessionRepository.deleteIdleSince(Instant.ofEpochMilli(now - ttl));
+
+        if (removed > 0) {
+            logger.info("removed " + removed + " expired sessions");
+        }
+    }
+
+    private static String hash(String token) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
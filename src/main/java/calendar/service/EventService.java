@@ -2,17 +2,41 @@ package calendar.service;
 
 import calendar.controller.request.EventRequest;
 import calendar.entities.*;
+import calendar.entities.DTO.EventDTO;
+import calendar.entities.DTO.EventSummaryDTO;
+import calendar.entities.DTO.ParticipantDTO;
+import calendar.entities.DTO.UserDTO;
 import calendar.entities.enums.*;
+import calendar.eventNotifications.NotificationPublisher;
+import calendar.eventNotifications.ReminderScheduler;
 import calendar.repository.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.SQLDataException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class EventService {
@@ -21,6 +45,31 @@ public class EventService {
     EventRepository eventRepository;
     @Autowired
     UserRepository userRepository;
+    @Autowired
+    ReminderScheduler reminderScheduler;
+    @Autowired
+    RoleGrantCache roleGrantCache;
+    // lazy, the publisher reads the events through this service.
+    @Lazy
+    @Autowired
+    NotificationPublisher notificationPublisher;
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    // keeps the "in" list of one query under the limits of the database.
+    private static final int IN_BATCH_SIZE = 1000;
+
+    private static final Logger logger = LogManager.getLogger(EventService.class.getName());
+
+    /**
+     * Fills the UTC window columns of events that were saved before the columns existed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void backfillEventWindows() {
+        int rows = eventRepository.backfillEventWindows();
+        logger.info("backfilled time window of " + rows + " events");
+    }
 
     /**
      * Create a new event and save it in the database
@@ -38,7 +87,13 @@ public class EventService {
 
         eventReq.getRoles().add(organizer);
 
-        return eventRepository.save(eventReq);
+        Event savedEvent = eventRepository.save(eventReq);
+
+        roleGrantCache.invalidate(userOfEvent.getId(), savedEvent.getId());
+
+        reminderScheduler.scheduleEvent(savedEvent);
+
+        return savedEvent;
     }
 
     /**
@@ -55,6 +110,16 @@ public class EventService {
         }
     }
 
+    /**
+     * get the columns of an event without loading its roles (and their users) or its attachments.
+     *
+     * @param id - the id of the event we wish to retrieve.
+     * @return The event without roles and attachments, or null if not found.
+     */
+    public EventDTO getEventDTOById(int id) {
+        return eventRepository.findEventDTOById(id).orElse(null);
+    }
+
     /**
      * Delete an event by id from the database. Only an organizer can delete an event.
      *
@@ -62,15 +127,19 @@ public class EventService {
      */
     public void deleteEvent(Event event) {
         eventRepository.delete(event);
+        roleGrantCache.invalidateEvent(event.getId());
+        reminderScheduler.cancelEvent(event.getId());
     }
 
     /**
      * Update an event in the database if it exists. Only an organizer can access this method.
+     * The participants are notified in the same transaction.
      *
      * @param event    - The event with the updated information.
      * @param eventId  - The if of the event we wish to update.
      * @return The updated event.
      */
+    @Transactional
     public Event updateEvent(EventRequest event, int eventId) {
 
         Event eventDB = eventRepository.findById(eventId).get();
@@ -103,8 +172,14 @@ public class EventService {
         int rows = eventRepository.updateEvent(event.isPublic(), event.getTitle(), event.getTime()
                 , event.getDuration(), event.getLocation(), event.getDescription(), eventId);
 
+        eventRepository.updateEventWindow(event.getTime().toInstant(),
+                Event.calculateEndUtc(event.getTime(), event.getDuration()), eventId);
+
         if (rows > 0) {
-            return eventRepository.findById(eventId).get();
+            Event updatedEvent = eventRepository.findById(eventId).get();
+            reminderScheduler.scheduleEvent(updatedEvent);
+            notificationPublisher.publishEventChangeNotification(updatedEvent);
+            return updatedEvent;
         } else {
             return null;
         }
@@ -114,10 +189,12 @@ public class EventService {
     /**
      * Update an event in the database if it exists. Only an admin can access this method.
      * Unlike the normal update method , this method can update only a restricted amount of fields.
+     * The participants are notified in the same transaction.
      * @param event    - The event with the updated information.
      * @param eventId  - The if of the event we wish to update.
      * @return The updated event.
      */
+    @Transactional
     public Event updateEventRestricted(EventRequest event, int eventId) {
 
         Event eventDB = eventRepository.findById(eventId).get();
@@ -142,33 +219,115 @@ public class EventService {
         int rows = eventRepository.updateEventRestricted(event.isPublic(), event.getLocation(), event.getDescription(), eventId);
 
         if (rows > 0) {
-            return eventRepository.findById(eventId).get();
+            Event updatedEvent = eventRepository.findById(eventId).get();
+            notificationPublisher.publishEventChangeNotification(updatedEvent);
+            return updatedEvent;
         } else {
             return null;
         }
     }
 
     /**
-     * get all events of a user by his id.
+     * get the summaries of all the events of a user by his id, ordered by starting time.
      *
      * @param userId - the id of the user we want to get all of his events.
-     * @return a list of all the events.
+     * @return a list of the summaries of all the events.
+     */
+    public List<EventSummaryDTO> getEventsByUserId(int userId) {
+        return eventRepository.findEventSummariesByUserId(userId, false);
+    }
+
+    /**
+     * get one page of the events of a user which overlap a time window, ordered by starting time.
+     * Paging is done with a cursor (the start and id of the last event of the previous page) so every page
+     * costs the same no matter how deep into the calendar it is.
+     *
+     * @param userId   - the id of the user we want to get his events.
+     * @param from     - the start of the window.
+     * @param to       - the end of the window.
+     * @param cursor   - the cursor returned with the previous page, or null for the first page.
+     * @param limit    - the maximum amount of events in the page.
+     * @param showOnly - true to return only the events the user did not leave.
+     * @return a list of the summaries of at most limit events.
      */
-    public List<Event> getEventsByUserId(int userId) {
+    public List<EventSummaryDTO> getEventsByUserIdInRange(int userId, ZonedDateTime from, ZonedDateTime to,
+                                                String cursor, int limit, boolean showOnly) {
 
-        List<Event> allEvents = eventRepository.findAll();
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Invalid time range!");
+        }
 
-        List<Event> eventsOfUser = new ArrayList<>();
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(String.format("Limit must be between 1 and %s!", MAX_PAGE_SIZE));
+        }
 
-        for (Event event : allEvents) {
+        PageRequest page = PageRequest.of(0, limit);
 
-            for (Role role : event.getRoles()) {
-                if (role.getUser().getId() == userId) {
-                    eventsOfUser.add(event);
-                }
+        if (cursor == null || cursor.isEmpty()) {
+            return eventRepository.findEventSummariesByUserIdInRange(userId, showOnly, from.toInstant(), to.toInstant(), page);
+        }
+
+        String[] cursorParts = cursor.split("_");
+
+        try {
+            Instant afterStart = Instant.parse(cursorParts[0]);
+            int afterId = Integer.parseInt(cursorParts[1]);
+
+            return eventRepository.findEventSummariesByUserIdInRangeAfter(userId, showOnly, from.toInstant(), to.toInstant(),
+                    afterStart, afterId, page);
+        } catch (DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor!");
+        }
+    }
+
+    /**
+     * Adds the guest list to event summaries for the normalized format: each participant references his user by id,
+     * and every user is returned once, no matter in how many of the events he is.
+     * Costs one query per 1000 events and one per 1000 distinct users, no entity is loaded.
+     *
+     * @param events - The summaries to add the participants to.
+     * @return the distinct users of all the participants.
+     */
+    public List<UserDTO> addParticipants(List<EventSummaryDTO> events) {
+
+        Map<Integer, EventSummaryDTO> eventsById = new LinkedHashMap<>();
+
+        for (EventSummaryDTO event : events) {
+            event.setParticipants(new ArrayList<>());
+            eventsById.putIfAbsent(event.getId(), event);
+        }
+
+        Set<Integer> userIds = new LinkedHashSet<>();
+        List<Integer> eventIds = new ArrayList<>(eventsById.keySet());
+
+        for (int from = 0; from < eventIds.size(); from += IN_BATCH_SIZE) {
+            List<Integer> batch = eventIds.subList(from, Math.min(from + IN_BATCH_SIZE, eventIds.size()));
+
+            for (ParticipantDTO participant : eventRepository.findParticipants(batch)) {
+                eventsById.get(participant.getEventId()).getParticipants().add(participant);
+                userIds.add(participant.getUserId());
             }
         }
-        return eventsOfUser;
+
+        List<UserDTO> users = new ArrayList<>(userIds.size());
+        List<Integer> distinctUserIds = new ArrayList<>(userIds);
+
+        for (int from = 0; from < distinctUserIds.size(); from += IN_BATCH_SIZE) {
+            users.addAll(userRepository.findUserDTOs(
+                    distinctUserIds.subList(from, Math.min(from + IN_BATCH_SIZE, distinctUserIds.size()))));
+        }
+
+        return users;
+    }
+
+    /**
+     * Creates the cursor that points right after an event, to be used to get the next page of a range query.
+     *
+     * @param event - the last event of the current page.
+     * @return the cursor.
+     */
+    public static String getCursorAfter(EventSummaryDTO event) {
+        return event.getStart() + "_" + event.getId();
     }
 
     /**
@@ -181,22 +340,13 @@ public class EventService {
      */
     public Role getSpecificRole(int userId, int eventId) {
 
-        Event event;
-
-        Role role = null;
-
-        if (eventRepository.findById(eventId).isPresent()) {
-            event = eventRepository.findById(eventId).get();
-            role = event.getUserRole(userId);
-        } else { //Event does not exist!
-            return null;
-        }
+        Optional<Event> event = eventRepository.findById(eventId);
 
-        if (role == null) {
+        if (!event.isPresent()) { //Event does not exist!
             return null;
         }
 
-        return role;
+        return event.get().getUserRole(userId);
     }
 
     /**
@@ -207,6 +357,7 @@ public class EventService {
      * @param eventId -The id of the event we wish to remove the guest from.
      * @return a message confirming the removal of the guest.
      */
+    @Transactional
     public Role removeGuest(int userId, int eventId) {
 
         Event event = eventRepository.findById(eventId).get();
@@ -229,6 +380,12 @@ public class EventService {
 
         eventRepository.save(event);
 
+        roleGrantCache.invalidate(userId, eventId);
+
+        reminderScheduler.cancel(eventId, userId);
+
+        notificationPublisher.publishRemoveUserFromEventNotification(eventId, userId);
+
         return roleToRemove;
     }
 
@@ -240,6 +397,7 @@ public class EventService {
      * @param eventId - The id of the event to which we want to invite the user.
      * @return the invited user role.
      */
+    @Transactional
     public Role inviteGuest(User user, int eventId) {
 
         Event event = eventRepository.findById(eventId).get();
@@ -260,6 +418,12 @@ public class EventService {
 
         eventRepository.save(event);
 
+        roleGrantCache.invalidate(user.getId(), eventId);
+
+        reminderScheduler.scheduleUser(event, user.getId());
+
+        notificationPublisher.publishInviteGuestNotification(eventId, user.getId());
+
         return role;
     }
 
@@ -270,6 +434,7 @@ public class EventService {
      * @param userId  - The user id of the user we wish to switch his role.
      * @return -a message confirming the removal of the role.
      */
+    @Transactional
     public Role switchRole(int userId, int eventId) {
 
         Event event = eventRepository.findById(eventId).get();
@@ -298,6 +463,10 @@ public class EventService {
 
         eventRepository.save(event);
 
+        roleGrantCache.invalidate(userId, eventId);
+
+        notificationPublisher.publishUserRoleChangedNotification(eventId, userId);
+
         return roleToPromote;
     }
 
@@ -309,6 +478,7 @@ public class EventService {
      * @param approveOrReject - A boolean value true if approved false if rejected.
      * @return -the role after the changes.
      */
+    @Transactional
     public Role switchStatus(int userId, int eventId, boolean approveOrReject) {
 
         Event event = eventRepository.findById(eventId).get();
@@ -337,6 +507,10 @@ public class EventService {
 
         eventRepository.save(event);
 
+        roleGrantCache.invalidate(userId, eventId);
+
+        notificationPublisher.publishUserStatusChangedNotification(eventId, userId);
+
         return roleToUpdate;
     }
 
@@ -376,6 +550,10 @@ public class EventService {
 
         eventRepository.save(event);
 
+        roleGrantCache.invalidate(userId, eventId);
+
+        reminderScheduler.cancel(eventId, userId);
+
         return roleToHide;
     }
 
@@ -385,32 +563,25 @@ public class EventService {
      */
     public List<Event> getEventsTillNextDay() {
 
-        List<Event> eventsNext24Hours = eventRepository.findAll();
-
-        ZonedDateTime now = ZonedDateTime.now();
+        Instant now = Instant.now();
 
-        return eventsNext24Hours.stream()
-                .filter(event -> event.getTime().isAfter(now) && event.getTime().isBefore(now.plus(24, ChronoUnit.HOURS)))
-                .collect(Collectors.toList());
+        return eventRepository.findEventsStartingBetween(now, now.plus(24, ChronoUnit.HOURS));
     }
 
     /**
-     * get all events of a user by his id but only the ones he wishes to show in his calendar (Did not leave the event).
+     * get the summaries of all events of a user by his id but only the ones he wishes to show in his calendar
+     * (Did not leave the event).
      *
      * @param userId - the id of the user we want to get all of his events.
-     * @return a list of all the events a user wishes to show.
+     * @return a list of the summaries of all the events a user wishes to show.
      */
-    public List<Event> getEventsByUserIdShowOnly(int userId) {
+    public List<EventSummaryDTO> getEventsByUserIdShowOnly(int userId) {
 
         if (userRepository.findById(userId) == null) {
             return null;
         }
 
-        List<Event> events = getEventsByUserId(userId);
-
-        List<Event> eventsToShow = events.stream()
-                .filter(event -> event.getRoles().stream().anyMatch(role -> role.getUser().getId() == userId && role.isShownInMyCalendar()))
-                .collect(Collectors.toList());
+        List<EventSummaryDTO> eventsToShow = eventRepository.findEventSummariesByUserId(userId, true);
 
         return eventsToShow;
     }
@@ -423,35 +594,110 @@ public class EventService {
      *
      * @param user          - my user information.
      * @param sharedEmails- An array of all the emails of the users who shared his calendar with me which i want to see.
-     * @return The list of all relevant events to show in my calendar.
+     * @return The summaries of all relevant events to show in my calendar, with my role in them (if I have one).
      */
-    public List<Event> GetAllShared(User user, String[] sharedEmails) {
+    public List<EventSummaryDTO> GetAllShared(User user, String[] sharedEmails) {
 
         if (user == null) {
             throw new IllegalArgumentException("User does not exist!");
         }
 
 
-        List<User> validUsers = new ArrayList<>();
+        Map<Integer, EventSummaryDTO> finalList = new LinkedHashMap<>();
 
-        for (String email : sharedEmails) {
-            User tempUser = userRepository.findByEmail(email).get();
-            if (user.getUsersWhoSharedTheirCalendarWithMe().contains(tempUser) || tempUser.equals(user)) {
-                validUsers.add(tempUser);
+        for (User tempUser : getValidSharedUsers(user, sharedEmails)) {
+            List<EventSummaryDTO> events = tempUser.getId() == user.getId()
+                    ? getEventsByUserIdShowOnly(user.getId())
+                    : eventRepository.findPublicEventSummariesByUserId(tempUser.getId(), user.getId());
+
+            for (EventSummaryDTO event : events) {
+                finalList.putIfAbsent(event.getId(), event);
+            }
+        }
+
+        return new ArrayList<>(finalList.values());
+    }
+
+    /**
+     * Streams the summaries of all the events of a user from a database cursor, one event at a time,
+     * so the whole list is never held in memory. Same events and order as getEventsByUserId.
+     *
+     * @param userId - the id of the user we want to get all of his events.
+     * @param sink   - receives the events in order, it is called inside the read transaction.
+     * @return the amount of events that were streamed.
+     */
+    @Transactional(readOnly = true)
+    public int streamEventsByUserId(int userId, Consumer<EventSummaryDTO> sink) {
+
+        int count = 0;
+
+        try (Stream<EventSummaryDTO> events = eventRepository.streamEventSummariesByUserId(userId, false)) {
+            Iterator<EventSummaryDTO> iterator = events.iterator();
+            while (iterator.hasNext()) {
+                sink.accept(iterator.next());
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Streams the same events as GetAllShared from database cursors, one event at a time.
+     * Only the ids of the events that were already sent are kept, to skip the duplicates.
+     * The shared users are resolved before, with getValidSharedUsers, so an unknown email is rejected
+     * before the response starts.
+     *
+     * @param user        - my user information.
+     * @param sharedUsers - the users whose calendars I want to see, as returned by getValidSharedUsers.
+     * @param sink        - receives the events, it is called inside the read transaction.
+     * @return the amount of events that were streamed.
+     */
+    @Transactional(readOnly = true)
+    public int streamAllShared(User user, List<User> sharedUsers, Consumer<EventSummaryDTO> sink) {
+
+        if (user == null) {
+            throw new IllegalArgumentException("User does not exist!");
+        }
+
+        Set<Integer> sentIds = new HashSet<>();
+
+        for (User tempUser : sharedUsers) {
+            try (Stream<EventSummaryDTO> events = tempUser.getId() == user.getId()
+                    ? eventRepository.streamEventSummariesByUserId(user.getId(), true)
+                    : eventRepository.streamPublicEventSummariesByUserId(tempUser.getId(), user.getId())) {
+
+                Iterator<EventSummaryDTO> iterator = events.iterator();
+                while (iterator.hasNext()) {
+                    EventSummaryDTO event = iterator.next();
+                    if (sentIds.add(event.getId())) {
+                        sink.accept(event);
+                    }
+                }
             }
         }
 
-        List<Event> finalList = new ArrayList<>();
+        return sentIds.size();
+    }
+
+    /**
+     * @param user         - my user information.
+     * @param sharedEmails - the emails of the users whose calendars I want to see.
+     * @return the users of the emails which shared their calendar with me, and myself.
+     * @throws IllegalArgumentException if one of the emails does not belong to any user.
+     */
+    public List<User> getValidSharedUsers(User user, String[] sharedEmails) {
+
+        List<User> validUsers = new ArrayList<>();
 
-        for (User tempUser : validUsers) {
-            if (tempUser.getId() == user.getId()) {
-                finalList.addAll(getEventsByUserIdShowOnly(user.getId()));
-            } else {
-                finalList.addAll(getEventsByUserId(tempUser.getId()).stream().filter(event -> event.isPublic())
-                        .collect(Collectors.toList()));
+        for (String email : sharedEmails) {
+            User tempUser = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new IllegalArgumentException("User " + email + " does not exist!"));
+            if (user.getUsersWhoSharedTheirCalendarWithMe().contains(tempUser) || tempUser.equals(user)) {
+                validUsers.add(tempUser);
             }
         }
 
-        return finalList.stream().distinct().collect(Collectors.toList());
+        return validUsers;
     }
 }
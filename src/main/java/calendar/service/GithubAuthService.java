@@ -1,7 +1,6 @@
 package calendar.service;
 
 import calendar.controller.request.UserRequest;
-import calendar.controller.response.GitToken;
 import calendar.controller.response.GitUser;
 import calendar.entities.DTO.LoginDataDTO;
 import calendar.entities.User;
@@ -10,16 +9,10 @@ import calendar.repository.UserRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.env.Environment;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
 
-import java.util.HashMap;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class GithubAuthService {
@@ -30,23 +23,23 @@ public class GithubAuthService {
     private AuthService authService;
 
     @Autowired
-    private Environment env;
-
-    static HashMap<Integer, String> usersTokensMap = new HashMap<>();
-
-    private static final Logger logger = LogManager.getLogger(AuthService.class.getName());
-
+    private GithubClient githubClient;
 
+    private static final Logger logger = LogManager.getLogger(GithubAuthService.class.getName());
 
     /**
-     * User logs in into our system with his GitHub.
+     * User logs in into our system with his GitHub, the calls to GitHub run on the pool of the GithubClient.
      * @param code -  A code given by the GitHub API to proceed with the login process.
-     * @return LoginData: user id and token.
+     * @return LoginData: user id and token, empty if GitHub did not give us the user, null if the email belongs
+     * to a local user. Completes with RejectedExecutionException when GitHub is unavailable.
      */
-    public Optional<LoginDataDTO> loginGithub(String code) throws IllegalArgumentException {
+    public CompletableFuture<Optional<LoginDataDTO>> loginGithub(String code) {
         logger.info("in loginGithub()");
 
-        GitUser githubUser = getGithubUser(code);
+        return githubClient.getUser(code).thenApply(this::loginGithubUser);
+    }
+
+    private Optional<LoginDataDTO> loginGithubUser(GitUser githubUser) {
         logger.info("user: " + githubUser);
 
         if (githubUser != null && githubUser.getEmail() != null && !githubUser.getEmail().equals("")) {
@@ -54,14 +47,11 @@ public class GithubAuthService {
 
             if (!userFromDB.isPresent()) {
                 User userCreated = null;
-                String name;
 
-                if (!githubUser.getName().equals("") && githubUser.getName() != null) {
-                    name = githubUser.getName();
+                if (githubUser.getName() != null && !githubUser.getName().equals("")) {
                     userCreated = authService.createUser(new UserRequest(githubUser.getEmail(), githubUser.getName(), ""), ProviderType.GITHUB);
                     logger.info(userCreated);
                 } else {
-                    name = githubUser.getLogin();
                     userCreated = authService.createUser(new UserRequest(githubUser.getEmail(), githubUser.getLogin(), ""), ProviderType.GITHUB);
                     logger.info(userCreated);
                 }
@@ -75,90 +65,4 @@ public class GithubAuthService {
         }
         return Optional.empty();
     }
-
-    /**
-     * Get the details of the user from GitHub API (the second request)
-     * @param code
-     * @return the relevant details of User
-     */
-    private GitUser getGithubUser(String code) {
-        ResponseEntity<GitToken> gitTokenResponse = getGithubToken(code);
-
-        if (gitTokenResponse != null) {
-            String token = gitTokenResponse.getBody().getAccess_token();
-            logger.info("token: " + token);
-
-            String linkGetUser = "https://api.github.com/user";
-            ResponseEntity<GitUser> gitUserResponseEntity = reqGitGetUser(linkGetUser, token);
-
-            if (gitUserResponseEntity != null) {
-                return gitUserResponseEntity.getBody();
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Get bearer token for user from GitHub API (the first request)
-     * @param code
-     * @return
-     */
-    private ResponseEntity<GitToken> getGithubToken(String code) {
-
-        String baseLink = "https://github.com/login/oauth/access_token?";
-        String clientId = env.getProperty("spring.security.oauth2.client.registration.github.client-id");
-        String clientSecret = env.getProperty("spring.security.oauth2.client.registration.github.client-secret");
-        String linkGetToken = baseLink + "client_id=" + clientId + "&client_secret=" + clientSecret + "&code=" + code;
-
-        logger.debug(linkGetToken);
-
-        return reqGitGetToken(linkGetToken);
-    }
-
-    /**
-     * Generate request for get token request (the first request)
-     * @param link
-     * @return token
-     */
-    private ResponseEntity<GitToken> reqGitGetToken(String link) {
-        logger.info("in reqGitGetToken()");
-        logger.debug(link);
-
-        RestTemplate restTemplate = new RestTemplate();
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Accept", "application/json");
-        HttpEntity<String> entity = new HttpEntity<>(null, headers);
-
-        try {
-            return restTemplate.exchange(link, HttpMethod.POST, entity, GitToken.class);
-        } catch (Exception e) {
-            logger.error("git get token  exception" + e);
-            return null;
-        }
-    }
-
-    /**
-     * Generate request for get User request (the second request)
-     * @param link
-     * @param bearerToken
-     * @return
-     */
-    private ResponseEntity<GitUser> reqGitGetUser(String link, String bearerToken) {
-        logger.info("in reqGitGetUser()");
-        logger.info(link);
-        logger.info(bearerToken);
-
-        RestTemplate restTemplate = new RestTemplate();
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + bearerToken);
-        HttpEntity<String> entity = new HttpEntity<>(null, headers);
-
-        try {
-            return restTemplate.exchange(link, HttpMethod.GET, entity, GitUser.class);
-        } catch (Exception e) {
-            logger.error("git get token  exception" + e);
-            return null;
-        }
-    }
-
-}
\ No newline at end of file
+}
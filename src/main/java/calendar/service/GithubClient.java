@@ -0,0 +1,163 @@
+package calendar.service;
+
+import calendar.controller.response.GitToken;
+import calendar.controller.response.GitUser;
+import calendar.utils.CircuitBreaker;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the two OAuth calls of a GitHub login (code -> access token -> user) one after the other on a bounded pool
+ * with the shared githubRestTemplate, so the request thread is free while GitHub answers.
+ * <p>
+ * GitHub being down (connection errors, timeouts, 5xx) opens a circuit breaker, and while it is open logins fail
+ * at once with RejectedExecutionException instead of waiting for timeouts. A wrong code (4xx) is not an outage.
+ * The urls are configurable (github.oauth.token-url, github.api.user-url) to point the flow at a stub server.
+ */
+@Service
+public class GithubClient {
+
+    private final RestTemplate restTemplate;
+
+    private final String tokenUrl;
+
+    private final String userUrl;
+
+    private final String clientId;
+
+    private final String clientSecret;
+
+    private final long timeout;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final ThreadPoolExecutor executor;
+
+    private static final Logger logger = LogManager.getLogger(GithubClient.class.getName());
+
+    @Autowired
+    public GithubClient(RestTemplate githubRestTemplate,
+                        @Value("${github.oauth.token-url:https://github.com/login/oauth/access_token}") String tokenUrl,
+                        @Value("${github.api.user-url:https://api.github.com/user}") String userUrl,
+                        @Value("${spring.security.oauth2.client.registration.github.client-id:}") String clientId,
+                        @Value("${spring.security.oauth2.client.registration.github.client-secret:}") String clientSecret,
+                        @Value("${github.http.threads:8}") int threads,
+                        @Value("${github.http.queue-capacity:100}") int queueCapacity,
+                        @Value("${github.login.timeout:10000}") long timeout,
+                        @Value("${github.breaker.failure-threshold:5}") int failureThreshold,
+                        @Value("${github.breaker.open-duration:30000}") long openDuration) {
+
+        this.restTemplate = githubRestTemplate;
+        this.tokenUrl = tokenUrl;
+        this.userUrl = userUrl;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.timeout = timeout;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "github-http-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Exchanges an OAuth code for the details of the GitHub user.
+     *
+     * @param code - A code given by the GitHub API to proceed with the login process.
+     * @return the user, null if GitHub did not accept the code. Completes with RejectedExecutionException
+     * when GitHub is unavailable or the pool is full, and with TimeoutException after github.login.timeout.
+     */
+    public CompletableFuture<GitUser> getUser(String code) {
+
+        if (!circuitBreaker.allowRequest()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("GitHub is unavailable"));
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(guarded(() -> requestToken(code)), executor)
+                    .thenApplyAsync(token -> token == null ? null : guarded(() -> requestUser(token)).get(), executor)
+                    .orTimeout(timeout, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            circuitBreaker.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private String requestToken(String code) {
+        logger.info("in requestToken()");
+
+        String link = UriComponentsBuilder.fromHttpUrl(tokenUrl)
+                .queryParam("client_id", clientId)
+                .queryParam("client_secret", clientSecret)
+                .queryParam("code", code)
+                .toUriString();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Accept", "application/json");
+
+        GitToken gitToken = restTemplate.exchange(link, HttpMethod.POST, new HttpEntity<>(null, headers), GitToken.class).getBody();
+
+        return gitToken == null ? null : gitToken.getAccess_token();
+    }
+
+    private GitUser requestUser(String bearerToken) {
+        logger.info("in requestUser()");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + bearerToken);
+
+        return restTemplate.exchange(userUrl, HttpMethod.GET, new HttpEntity<>(null, headers), GitUser.class).getBody();
+    }
+
+    /**
+     * Reports the outcome of a call to the circuit breaker. A call GitHub refused (4xx) counts as an answer
+     * and returns null, anything else that fails counts against GitHub.
+     */
+    private <T> Supplier<T> guarded(Supplier<T> call) {
+        return () -> {
+            try {
+                T result = call.get();
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (HttpClientErrorException e) {
+                circuitBreaker.onSuccess();
+                logger.error("GitHub refused the request - " + e.getStatusCode());
+                return null;
+            } catch (RestClientException e) {
+                circuitBreaker.onFailure();
+                logger.error("GitHub request failed - " + e);
+                throw new RejectedExecutionException("GitHub is unavailable", e);
+            }
+        };
+    }
+}
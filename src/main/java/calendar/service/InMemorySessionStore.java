@@ -0,0 +1,156 @@
+package calendar.service;
+
+import calendar.utils.Utils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the sessions in the memory of this node, indexed by token for the lookup of every authenticated request
+ * and by user for logging out of all the devices. Sessions are lost on restart and are not shared with other
+ * nodes, use it for a single node (auth.session.store=memory).
+ */
+@Service
+@ConditionalOnProperty(name = "auth.session.store", havingValue = "memory")
+public class InMemorySessionStore implements SessionStore {
+
+    private final ConcurrentHashMap<String, Session> sessionsByToken = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Integer, Set<String>> tokensByUser = new ConcurrentHashMap<>();
+
+    private final long ttl;
+
+    private final Clock clock;
+
+    private static final Logger logger = LogManager.getLogger(InMemorySessionStore.class.getName());
+
+    @Autowired
+    public InMemorySessionStore(@Value("${auth.session.ttl:86400000}") long ttl) {
+        this(ttl, Clock.systemUTC());
+    }
+
+    InMemorySessionStore(long ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    @Override
+    public String create(int userId) {
+
+        String token = Utils.generateUniqueToken();
+
+        // both indexes change under the lock of the user, so a concurrent revokeAll never misses the new session.
+        tokensByUser.compute(userId, (id, tokens) -> {
+            if (tokens == null) {
+                tokens = ConcurrentHashMap.newKeySet();
+            }
+            tokens.add(token);
+            sessionsByToken.put(token, new Session(userId, clock.millis()));
+            return tokens;
+        });
+
+        return token;
+    }
+
+    @Override
+    public Optional<Integer> getUserId(String token) {
+
+        Session session = sessionsByToken.get(token);
+
+        if (session == null) {
+            return Optional.empty();
+        }
+
+        long now = clock.millis();
+
+        if (session.isExpired(now, ttl)) {
+            revoke(token);
+            return Optional.empty();
+        }
+
+        session.lastAccess = now;
+
+        return Optional.of(session.userId);
+    }
+
+    @Override
+    public boolean revoke(String token) {
+
+        Session session = sessionsByToken.remove(token);
+
+        if (session == null) {
+            return false;
+        }
+
+        tokensByUser.computeIfPresent(session.userId, (id, tokens) -> {
+            tokens.remove(token);
+            return tokens.isEmpty() ? null : tokens;
+        });
+
+        return true;
+    }
+
+    @Override
+    public int revokeAll(int userId) {
+
+        int[] removed = {0};
+
+        tokensByUser.computeIfPresent(userId, (id, tokens) -> {
+            for (String token : tokens) {
+                sessionsByToken.remove(token);
+            }
+            removed[0] = tokens.size();
+            return null;
+        });
+
+        return removed[0];
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${auth.session.sweep-interval:60000}")
+    public void sweep() {
+
+        long now = clock.millis();
+        int removed = 0;
+
+        for (String token : sessionsByToken.keySet()) {
+            Session session = sessionsByToken.get(token);
+            if (session != null && session.isExpired(now, ttl) && revoke(token)) {
+                removed++;
+            }
+        }
+
+        if (removed > 0) {
+            logger.info("removed " + removed + " expired sessions, " + sessionsByToken.size() + " are active");
+        }
+    }
+
+    public int size() {
+        return sessionsByToken.size();
+    }
+
+    private static class Session {
+
+        private final int userId;
+
+        private volatile long lastAccess;
+
+        private Session(int userId, long lastAccess) {
+            this.userId = userId;
+            this.lastAccess = lastAccess;
+        }
+
+        private boolean isExpired(long now, long ttl) {
+            return now - lastAccess > ttl;
+        }
+    }
+}
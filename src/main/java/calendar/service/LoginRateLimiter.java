@@ -0,0 +1,119 @@
+package calendar.service;
+
+import calendar.entities.DTO.LoginLimiterStatsDTO;
+import calendar.utils.TokenBucketSketch;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control in front of the login endpoints: every attempt takes a token from the bucket of its client IP,
+ * and email logins also from the bucket of the email, before anything reaches the database or BCrypt.
+ * The buckets live in fixed size sketches (auth.login.limiter.slots per row), so a flood of distinct emails or
+ * addresses cannot grow the memory of the server.
+ */
+@Service
+public class LoginRateLimiter {
+
+    public enum Decision {
+        ALLOWED, EMAIL_LIMITED, IP_LIMITED
+    }
+
+    private final TokenBucketSketch emailBuckets;
+
+    private final TokenBucketSketch ipBuckets;
+
+    private final int retryAfterSeconds;
+
+    // only behind a proxy we trust, otherwise anyone could pick his own address.
+    @Value("${auth.login.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
+    private final LongAdder allowed = new LongAdder();
+
+    private final LongAdder rejectedByEmail = new LongAdder();
+
+    private final LongAdder rejectedByIp = new LongAdder();
+
+    private static final Logger logger = LogManager.getLogger(LoginRateLimiter.class.getName());
+
+    @Autowired
+    public LoginRateLimiter(@Value("${auth.login.email.capacity:10}") int emailCapacity,
+                            @Value("${auth.login.email.refill-per-minute:10}") int emailRefillPerMinute,
+                            @Value("${auth.login.ip.capacity:50}") int ipCapacity,
+                            @Value("${auth.login.ip.refill-per-minute:50}") int ipRefillPerMinute,
+                            @Value("${auth.login.limiter.slots:65536}") int slots,
+                            @Value("${auth.login.limiter.depth:2}") int depth) {
+
+        this.emailBuckets = new TokenBucketSketch(emailCapacity, emailRefillPerMinute, slots, depth);
+        this.ipBuckets = new TokenBucketSketch(ipCapacity, ipRefillPerMinute, slots, depth);
+        this.retryAfterSeconds = (int) Math.ceil(60.0 / Math.min(emailRefillPerMinute, ipRefillPerMinute));
+    }
+
+    /**
+     * Decides whether a login attempt may go on.
+     *
+     * @param email    - The email the client tries to log in with, null for GitHub logins.
+     * @param clientIp - The address of the client.
+     * @return ALLOWED, or the limit the attempt ran into.
+     */
+    public Decision admit(String email, String clientIp) {
+
+        if (!ipBuckets.tryAcquire(clientIp)) {
+            rejectedByIp.increment();
+            logger.debug("login attempt from " + clientIp + " rejected, too many attempts from this address");
+            return Decision.IP_LIMITED;
+        }
+
+        if (email != null && !emailBuckets.tryAcquire(email.trim().toLowerCase(Locale.ROOT))) {
+            rejectedByEmail.increment();
+            logger.debug("login attempt for " + email + " rejected, too many attempts for this email");
+            return Decision.EMAIL_LIMITED;
+        }
+
+        allowed.increment();
+        return Decision.ALLOWED;
+    }
+
+    /**
+     * @param request - The login request.
+     * @return the address of the client, the first X-Forwarded-For entry when auth.login.trust-forwarded-for is set.
+     */
+    public String getClientIp(HttpServletRequest request) {
+
+        if (trustForwardedFor) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+
+            if (forwardedFor != null && !forwardedFor.isEmpty()) {
+                return forwardedFor.split(",")[0].trim();
+            }
+        }
+
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * @return the amount of seconds until a rejected client gets at least one attempt back.
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public LoginLimiterStatsDTO getStats() {
+        return new LoginLimiterStatsDTO(allowed.sum(), rejectedByEmail.sum(), rejectedByIp.sum());
+    }
+
+    /**
+     * Forgets every bucket, tests only.
+     */
+    public void clear() {
+        emailBuckets.clear();
+        ipBuckets.clear();
+    }
+}
@@ -0,0 +1,200 @@
+package calendar.service;
+
+import at.favre.lib.crypto.bcrypt.BCrypt;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashes and verifies passwords with BCrypt on a dedicated bounded pool, so a burst of logins can only use
+ * auth.password.threads cores (all of them by default) and never pins the request threads. When the pool cannot start a task within
+ * auth.password.timeout milliseconds (or its queue is full) the caller gets a RejectedExecutionException at once,
+ * which the controllers answer with 503.
+ * <p>
+ * The cost is auth.password.cost, or, when auth.password.target-ms is set, the highest cost whose hash takes
+ * at most that long on this machine (calibrated at startup).
+ */
+@Service
+public class PasswordHasher {
+
+    private static final int MIN_COST = 4;
+
+    private static final int MAX_COST = 16;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeout;
+
+    private final int cost;
+
+    private static final Logger logger = LogManager.getLogger(PasswordHasher.class.getName());
+
+    @Autowired
+    public PasswordHasher(@Value("${auth.password.threads:0}") int threads,
+                          @Value("${auth.password.queue-capacity:64}") int queueCapacity,
+                          @Value("${auth.password.timeout:2000}") long timeout,
+                          @Value("${auth.password.cost:12}") int cost,
+                          @Value("${auth.password.target-ms:0}") long targetMs) {
+
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        this.timeout = timeout;
+        this.cost = targetMs > 0 ? calibrate(targetMs) : cost;
+
+        logger.info("hashing passwords with BCrypt cost " + this.cost);
+    }
+
+    /**
+     * Hashes a password with the configured cost.
+     *
+     * @param password - The password we wish to secure.
+     * @return the hashed password, an empty password (GitHub users) stays empty.
+     * @throws RejectedExecutionException if the hashing pool is overloaded.
+     */
+    public String hash(String password) {
+
+        if (password == null || password.isEmpty()) {
+            return password;
+        }
+
+        return run(() -> BCrypt.withDefaults().hashToString(cost, password.toCharArray()));
+    }
+
+    /**
+     * Checks a password against the hash we hold in the database.
+     *
+     * @param password - The password the user inserted.
+     * @param hash     - The hash we hold in the database.
+     * @return true if they match.
+     * @throws RejectedExecutionException if the hashing pool is overloaded.
+     */
+    public boolean verify(String password, String hash) {
+        return run(() -> BCrypt.verifyer().verify(password.toCharArray(), hash.toCharArray()).verified);
+    }
+
+    /**
+     * @param hash - A hash we hold in the database.
+     * @return true if the hash was made with a different cost than the configured one.
+     */
+    public boolean needsRehash(String hash) {
+
+        int hashCost = getCost(hash);
+
+        return hashCost > 0 && hashCost != cost;
+    }
+
+    /**
+     * Re-hashes a password with the configured cost in the background, and hands the new hash to the saver.
+     * Skipped if the pool is busy, the password will be re-hashed on a later login.
+     *
+     * @param password - The password the user logged in with.
+     * @param saver    - Stores the new hash.
+     */
+    public void rehashAsync(String password, Consumer<String> saver) {
+        try {
+            executor.execute(() -> saver.accept(BCrypt.withDefaults().hashToString(cost, password.toCharArray())));
+        } catch (RejectedExecutionException e) {
+            logger.info("password hasher is busy, skipping rehash");
+        }
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Finds the highest cost (between 4 and 16) whose hash takes at most targetMs on this machine.
+     * Every step of the cost doubles the time, so it stops at the first cost that is too slow.
+     *
+     * @param targetMs - The time we allow one hash to take.
+     * @return the calibrated cost.
+     */
+    public static int calibrate(long targetMs) {
+
+        char[] sample = "calibration-password".toCharArray();
+        int calibrated = MIN_COST;
+
+        for (int candidate = MIN_COST; candidate <= MAX_COST; candidate++) {
+            long start = System.nanoTime();
+            BCrypt.withDefaults().hash(candidate, sample);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            if (elapsedMs > targetMs) {
+                break;
+            }
+
+            calibrated = candidate;
+        }
+
+        return calibrated;
+    }
+
+    /**
+     * Reads the cost of a BCrypt hash ($2a$12$...).
+     *
+     * @param hash - The hash.
+     * @return the cost, or -1 if this is not a BCrypt hash.
+     */
+    public static int getCost(String hash) {
+
+        if (hash == null) {
+            return -1;
+        }
+
+        String[] parts = hash.split("\\$");
+
+        if (parts.length < 4) {
+            return -1;
+        }
+
+        try {
+            return Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    <T> T run(Callable<T> task) {
+
+        Future<T> future = executor.submit(task);
+
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RejectedExecutionException("Password hashing did not finish within " + timeout + "ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,80 @@
+package calendar.service;
+
+import calendar.entities.Principal;
+import calendar.entities.User;
+import calendar.repository.UserRepository;
+import calendar.utils.TtlCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the principals of the users who are making requests on this node, so the TokenFilter does not load the user
+ * (with his settings and shared calendars) on every request. A principal is trusted for cache-ttl milliseconds;
+ * updates of the user on this node invalidate it at once, the other nodes notice within cache-ttl.
+ */
+@Service
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+
+    private final TtlCache<Integer, Principal> cache;
+
+    // a load that started before an invalidation must not put the old user back.
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${auth.principal.cache-ttl:60000}") long cacheTtl,
+                          @Value("${auth.principal.cache-size:10000}") int cacheSize) {
+        this(userRepository, cacheTtl, cacheSize, Clock.systemUTC());
+    }
+
+    PrincipalCache(UserRepository userRepository, long cacheTtl, int cacheSize, Clock clock) {
+        this.userRepository = userRepository;
+        this.cache = new TtlCache<>(cacheTtl, cacheSize, clock);
+    }
+
+    /**
+     * @param userId - The id of the logged-in user.
+     * @return the principal of the user, empty if the user does not exist.
+     */
+    public Optional<Principal> get(int userId) {
+
+        Principal cached = cache.get(userId);
+
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long invalidationsBefore = invalidations.get();
+        User user = userRepository.findById(userId);
+
+        if (user == null) {
+            cache.remove(userId);
+            return Optional.empty();
+        }
+
+        Principal principal = new Principal(user);
+
+        if (invalidations.get() == invalidationsBefore) {
+            cache.put(userId, principal);
+        }
+
+        return Optional.of(principal);
+    }
+
+    /**
+     * Forgets the principal of a user, called whenever the user changes.
+     *
+     * @param userId - The id of the user.
+     */
+    public void invalidate(int userId) {
+        invalidations.incrementAndGet();
+        cache.remove(userId);
+    }
+}
@@ -0,0 +1,108 @@
+package calendar.service;
+
+import calendar.entities.RoleGrant;
+import calendar.repository.EventRepository;
+import calendar.utils.TtlCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the role of a user in an event for the RoleFilter, including the users who have no role in an event.
+ * An entry is trusted for cache-ttl milliseconds; the EventService invalidates it when the role changes on this node
+ * (again after the transaction commits, so a request that read the old role meanwhile does not keep it),
+ * the other nodes notice within cache-ttl.
+ */
+@Service
+public class RoleGrantCache {
+
+    private final EventRepository eventRepository;
+
+    // empty if the user is not part of the event.
+    private final TtlCache<Long, Optional<RoleGrant>> cache;
+
+    // a load that started before an invalidation must not put the old role back.
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public RoleGrantCache(EventRepository eventRepository,
+                          @Value("${auth.role.cache-ttl:60000}") long cacheTtl,
+                          @Value("${auth.role.cache-size:10000}") int cacheSize) {
+        this(eventRepository, cacheTtl, cacheSize, Clock.systemUTC());
+    }
+
+    RoleGrantCache(EventRepository eventRepository, long cacheTtl, int cacheSize, Clock clock) {
+        this.eventRepository = eventRepository;
+        this.cache = new TtlCache<>(cacheTtl, cacheSize, clock);
+    }
+
+    /**
+     * @param userId  - The id of the user.
+     * @param eventId - The id of the event.
+     * @return the role type and status of the user in the event, empty if he is not part of it.
+     */
+    public Optional<RoleGrant> get(int userId, int eventId) {
+
+        long key = key(userId, eventId);
+        Optional<RoleGrant> cached = cache.get(key);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        long invalidationsBefore = invalidations.get();
+        Optional<RoleGrant> roleGrant = eventRepository.findRoleGrant(userId, eventId);
+
+        if (invalidations.get() == invalidationsBefore) {
+            cache.put(key, roleGrant);
+        }
+
+        return roleGrant;
+    }
+
+    /**
+     * Forgets the role of a user in an event, called whenever it changes.
+     *
+     * @param userId  - The id of the user.
+     * @param eventId - The id of the event.
+     */
+    public void invalidate(int userId, int eventId) {
+        long key = key(userId, eventId);
+        invalidate(() -> cache.remove(key));
+    }
+
+    /**
+     * Forgets the roles of all the users in an event, called when the event is deleted.
+     *
+     * @param eventId - The id of the event.
+     */
+    public void invalidateEvent(int eventId) {
+        invalidate(() -> cache.removeIf((key, roleGrant) -> (int) (long) key == eventId));
+    }
+
+    private void invalidate(Runnable removal) {
+
+        invalidations.incrementAndGet();
+        removal.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidations.incrementAndGet();
+                    removal.run();
+                }
+            });
+        }
+    }
+
+    private static long key(int userId, int eventId) {
+        return ((long) userId << 32) | (eventId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,48 @@
+package calendar.service;
+
+import java.util.Optional;
+
+/**
+ * The sessions of the logged-in users. A user can have many sessions at once, and a session expires after
+ * auth.session.ttl milliseconds without requests (sliding expiry). The implementation is chosen with
+ * auth.session.store: database (default, shared by all the nodes and kept across restarts) or memory.
+ */
+public interface SessionStore {
+
+    /**
+     * Opens a new session for a user, his other sessions stay valid.
+     *
+     * @param userId - The id of the user who logged in.
+     * @return the token of the new session.
+     */
+    String create(int userId);
+
+    /**
+     * Finds the user of a session and extends the session.
+     *
+     * @param token - The token of the session.
+     * @return the id of the user, empty if the token is unknown or expired.
+     */
+    Optional<Integer> getUserId(String token);
+
+    /**
+     * Ends one session (logout).
+     *
+     * @param token - The token of the session.
+     * @return true if the session existed.
+     */
+    boolean revoke(String token);
+
+    /**
+     * Ends all the sessions of a user (logout from all devices).
+     *
+     * @param userId - The id of the user.
+     * @return the amount of sessions that were ended.
+     */
+    int revokeAll(int userId);
+
+    /**
+     * Removes the sessions which expired.
+     */
+    void sweep();
+}
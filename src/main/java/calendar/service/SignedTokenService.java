@@ -0,0 +1,351 @@
+package calendar.service;
+
+import calendar.entities.TokenRevocation;
+import calendar.entities.User;
+import calendar.entities.enums.City;
+import calendar.repository.TokenRevocationRepository;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies signed access tokens (JWT, HS256) which carry the user id, city and expiry as claims,
+ * so any node can authenticate a request without a session store.
+ * <p>
+ * Keys are configured in auth.token.keys as "kid:base64-secret,kid:base64-secret": the first key signs new tokens,
+ * the others only verify tokens signed before a rotation. Without keys a random one is generated at startup,
+ * which is only good for a single node (its tokens die with it).
+ * <p>
+ * Logout revokes the id (jti) of one token, logout from all devices revokes every token of the user issued before now
+ * (iat is kept in milliseconds, so a login right after it is not revoked).
+ * A revocation is kept only until the tokens it covers would have expired anyway, so the filter stays small:
+ * a 64 bit fingerprint of the jti per revoked token and one timestamp per user.
+ * <p>
+ * Revocations are written to the token_revocation table and take effect at once on the node that received the logout.
+ * Every node reloads the new ones every auth.token.revocation-sync ms, so a revoked token may still pass
+ * on another node for up to that long.
+ */
+@Service
+public class SignedTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final long ttlSeconds;
+
+    private final String signingKeyId;
+
+    private final Map<String, SecretKeySpec> keys;
+
+    // one Mac per key and thread, Mac objects are not thread safe and slow to create.
+    private final ThreadLocal<Map<String, Mac>> macs = ThreadLocal.withInitial(HashMap::new);
+
+    // a revocation committed by another node up to this long before our last sync is still picked up (1 min).
+    private static final long SYNC_OVERLAP = 1000 * 60;
+
+    // jti fingerprint -> expiry of the revoked token (epoch seconds).
+    private final ConcurrentHashMap<Long, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    // user id -> tokens issued before this epoch milli are revoked.
+    private final ConcurrentHashMap<Integer, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    private final Clock clock;
+
+    @Autowired
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    // start of the last sync, null until the revocations were loaded once.
+    private volatile Instant lastSync;
+
+    private static final Logger logger = LogManager.getLogger(SignedTokenService.class.getName());
+
+    @Autowired
+    public SignedTokenService(@Value("${auth.token.keys:}") String keys,
+                              @Value("${auth.token.ttl:86400000}") long ttl) {
+        this(keys, ttl, Clock.systemUTC());
+    }
+
+    SignedTokenService(String keys, long ttl, Clock clock) {
+        this.ttlSeconds = ttl / 1000;
+        this.clock = clock;
+        this.keys = new LinkedHashMap<>();
+
+        for (String entry : keys.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+
+            String[] keyIdAndSecret = entry.trim().split(":", 2);
+
+            if (keyIdAndSecret.length != 2) {
+                throw new IllegalArgumentException("auth.token.keys entries must look like kid:base64-secret");
+            }
+
+            this.keys.put(keyIdAndSecret[0], new SecretKeySpec(Base64.getDecoder().decode(keyIdAndSecret[1]), ALGORITHM));
+        }
+
+        if (this.keys.isEmpty()) {
+            logger.warn("auth.token.keys is not set, signing tokens with a random key of this node");
+
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            this.keys.put("local", new SecretKeySpec(secret, ALGORITHM));
+        }
+
+        this.signingKeyId = this.keys.keySet().iterator().next();
+    }
+
+    /**
+     * Issues a signed token for a user who logged in.
+     *
+     * @param user - The user who logged in.
+     * @return the token.
+     */
+    public String issue(User user) {
+
+        long nowMillis = clock.millis();
+        long now = nowMillis / 1000;
+
+        JsonObject header = new JsonObject();
+        header.addProperty("alg", "HS256");
+        header.addProperty("typ", "JWT");
+        header.addProperty("kid", signingKeyId);
+
+        JsonObject payload = new JsonObject();
+        payload.addProperty("sub", String.valueOf(user.getId()));
+        if (user.getCity() != null) {
+            payload.addProperty("city", user.getCity().name());
+        }
+        payload.addProperty("iat", BigDecimal.valueOf(nowMillis, 3));
+        payload.addProperty("exp", now + ttlSeconds);
+        payload.addProperty("jti", UUID.randomUUID().toString());
+
+        String signingInput = encode(header.toString()) + "." + encode(payload.toString());
+
+        return signingInput + "." + ENCODER.encodeToString(sign(signingKeyId, signingInput));
+    }
+
+    /**
+     * Verifies the signature, expiry and revocation of a token, only in memory.
+     *
+     * @param token - The token of the request.
+     * @return the claims of the token, empty if the token is not valid.
+     */
+    public Optional<Claims> verify(String token) {
+
+        try {
+            String[] parts = token.split("\\.");
+
+            if (parts.length != 3) {
+                return Optional.empty();
+            }
+
+            JsonObject header = JsonParser.parseString(decode(parts[0])).getAsJsonObject();
+            String keyId = header.has("kid") ? header.get("kid").getAsString() : null;
+
+            if (keyId == null || !keys.containsKey(keyId) || !"HS256".equals(header.get("alg").getAsString())) {
+                return Optional.empty();
+            }
+
+            byte[] expected = sign(keyId, parts[0] + "." + parts[1]);
+
+            if (!MessageDigest.isEqual(expected, DECODER.decode(parts[2]))) {
+                return Optional.empty();
+            }
+
+            JsonObject payload = JsonParser.parseString(decode(parts[1])).getAsJsonObject();
+            Claims claims = new Claims(Integer.parseInt(payload.get("sub").getAsString()),
+                    payload.has("city") ? City.valueOf(payload.get("city").getAsString()) : null,
+                    payload.get("iat").getAsBigDecimal().movePointRight(3).longValue(), payload.get("exp").getAsLong(), payload.get("jti").getAsString());
+
+            if (claims.getExpiresAt() <= clock.instant().getEpochSecond() || isRevoked(claims)) {
+                return Optional.empty();
+            }
+
+            return Optional.of(claims);
+        } catch (RuntimeException e) {
+            logger.debug("invalid signed token - " + e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param token - A token of any kind.
+     * @return true if the token looks like a signed token (three dot separated parts).
+     */
+    public static boolean isSignedToken(String token) {
+        return token != null && token.chars().filter(c -> c == '.').count() == 2;
+    }
+
+    /**
+     * Revokes one token (logout).
+     *
+     * @param token - The token we wish to revoke.
+     * @return true if the token was valid.
+     */
+    public boolean revoke(String token) {
+
+        Optional<Claims> claims = verify(token);
+
+        claims.ifPresent(value -> apply(tokenRevocationRepository.save(TokenRevocation.ofToken(
+                fingerprint(value.getTokenId()), clock.instant(), Instant.ofEpochSecond(value.getExpiresAt())))));
+
+        return claims.isPresent();
+    }
+
+    /**
+     * Revokes every token of a user issued before now (logout from all devices).
+     *
+     * @param userId - The id of the user.
+     */
+    public void revokeAll(int userId) {
+
+        Instant now = clock.instant();
+
+        apply(tokenRevocationRepository.save(TokenRevocation.ofUser(userId, now, now.plusSeconds(ttlSeconds))));
+    }
+
+    /**
+     * Loads the revocations other nodes wrote since the last sync, all the live ones on the first run.
+     */
+    @Scheduled(fixedDelayString = "${auth.token.revocation-sync:5000}")
+    public void syncRevocations() {
+
+        Instant now = clock.instant();
+        Instant since = lastSync == null ? Instant.EPOCH : lastSync.minusMillis(SYNC_OVERLAP);
+
+        tokenRevocationRepository.findRevokedSince(since, now).forEach(this::apply);
+
+        lastSync = now;
+    }
+
+    /**
+     * Forgets revocations of tokens which expired anyway.
+     */
+    @Scheduled(fixedDelayString = "${auth.session.sweep-interval:60000}")
+    public void sweep() {
+
+        long nowMillis = clock.millis();
+        long now = nowMillis / 1000;
+
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUsers.values().removeIf(revokedAt -> revokedAt + ttlSeconds * 1000 <= nowMillis);
+
+        tokenRevocationRepository.deleteExpired(Instant.ofEpochMilli(nowMillis));
+    }
+
+    private void apply(TokenRevocation revocation) {
+
+        if (revocation.getTokenFingerprint() != null) {
+            revokedTokens.put(revocation.getTokenFingerprint(), revocation.getExpiresAt().getEpochSecond());
+        } else {
+            revokedUsers.merge(revocation.getUserId(), revocation.getRevokedAt().toEpochMilli(), Math::max);
+        }
+    }
+
+    private boolean isRevoked(Claims claims) {
+
+        if (revokedTokens.containsKey(fingerprint(claims.getTokenId()))) {
+            return true;
+        }
+
+        Long revokedAt = revokedUsers.get(claims.getUserId());
+
+        return revokedAt != null && claims.getIssuedAt() < revokedAt;
+    }
+
+    // the jti is a random UUID, folding its two halves keeps the random bits in 64.
+    private static long fingerprint(String tokenId) {
+
+        UUID uuid = UUID.fromString(tokenId);
+
+        return uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+    }
+
+    private byte[] sign(String keyId, String signingInput) {
+
+        Mac mac = macs.get().computeIfAbsent(keyId, id -> {
+            try {
+                Mac newMac = Mac.getInstance(ALGORITHM);
+                newMac.init(keys.get(id));
+                return newMac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot create " + ALGORITHM + " for key " + id, e);
+            }
+        });
+
+        return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String encode(String json) {
+        return ENCODER.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String part) {
+        return new String(DECODER.decode(part), StandardCharsets.UTF_8);
+    }
+
+    public static class Claims {
+
+        private final int userId;
+
+        private final City city;
+
+        private final long issuedAt;
+
+        private final long expiresAt;
+
+        private final String tokenId;
+
+        public Claims(int userId, City city, long issuedAt, long expiresAt, String tokenId) {
+            this.userId = userId;
+            this.city = city;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+            this.tokenId = tokenId;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public City getCity() {
+            return city;
+        }
+
+        /**
+         * @return the issue time in epoch millis.
+         */
+        public long getIssuedAt() {
+            return issuedAt;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public String getTokenId() {
+            return tokenId;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import calendar.entities.DTO.UserDTO;
 import calendar.entities.NotificationSettings;
 import calendar.entities.User;
 import calendar.entities.enums.City;
+import calendar.eventNotifications.ReminderScheduler;
+import calendar.eventNotifications.entity.NotificationRecipient;
 import calendar.repository.UserRepository;
 import calendar.utils.Utils;
 import org.apache.logging.log4j.LogManager;
@@ -13,6 +15,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,6 +30,15 @@ public class UserService {
     @Autowired
     private final UserRepository userRepository;
 
+    @Autowired
+    private ReminderScheduler reminderScheduler;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    // keeps the "in" list of one query under the limits of the database.
+    private static final int RECIPIENTS_BATCH_SIZE = 1000;
+
     private static final Logger logger = LogManager.getLogger(UserService.class.getName());
 
     public UserService(UserRepository userRepository) {
@@ -67,6 +81,16 @@ public class UserService {
         return Optional.of(new UserDTO(user.get()));
     }
 
+    /**
+     * Get UserDTO by email without loading his notification settings or the users who shared with him.
+     *
+     * @param email - The email of the user we want to retrieve.
+     * @return the User without notification settings if exists.
+     */
+    public Optional<UserDTO> getSummaryDTOByEmail(String email) {
+        return userRepository.findUserDTOByEmail(email);
+    }
+
     /**
      * Get User by email.
      *
@@ -109,6 +133,26 @@ public class UserService {
         return user.get().getId();
     }
 
+    /**
+     * Loads the emails and notification settings of the recipients of a notification,
+     * with one query per 1000 recipients. Ids of users who do not exist are skipped.
+     *
+     * @param userIds - The ids of the users we wish to notify.
+     * @return the recipients that exist.
+     */
+    public List<NotificationRecipient> getNotificationRecipients(Collection<Integer> userIds) {
+
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(userIds));
+        List<NotificationRecipient> recipients = new ArrayList<>(distinctIds.size());
+
+        for (int from = 0; from < distinctIds.size(); from += RECIPIENTS_BATCH_SIZE) {
+            List<Integer> batch = distinctIds.subList(from, Math.min(from + RECIPIENTS_BATCH_SIZE, distinctIds.size()));
+            recipients.addAll(userRepository.findNotificationRecipients(batch));
+        }
+
+        return recipients;
+    }
+
     /**
      * Updates the notification settings of a user
      *
@@ -129,6 +173,9 @@ public class UserService {
         user.setNotificationSettings(notificationSettingsUser);
 
         User savedUser = userRepository.save(user);
+        principalCache.invalidate(userId);
+
+        reminderScheduler.scheduleUser(userId);
 
         return new UserDTO(savedUser);
     }
@@ -163,6 +210,7 @@ public class UserService {
         }
 
         userRepository.save(user);
+        principalCache.invalidate(userId);
         return user;
     }
 
@@ -206,6 +254,21 @@ public class UserService {
         return user.getUsersWhoSharedTheirCalendarWithMe();
     }
 
+    /**
+     * Gets the users who shared their calendar with me, without their notification settings.
+     *
+     * @param userId - The id of the user we wish to retrieve the list of shared calendars.
+     * @return the users who shared their calendar with the user, without notification settings.
+     */
+    public List<UserDTO> getUserDTOsWhoSharedWithMe(int userId) {
+
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("The user does not exist!");
+        }
+
+        return userRepository.findUserDTOsWhoSharedWith(userId);
+    }
+
     /**
      * Share my calendar with a different user using his id, I will insert myself into his list of
      * users who shared their calendar with him.
@@ -0,0 +1,97 @@
+package calendar.utils;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stops calling a remote service that keeps failing. After failureThreshold failures in a row the circuit opens
+ * and calls are refused without trying, after openDuration one trial call is let through (half open):
+ * if it succeeds the circuit closes again, if it fails it stays open for another openDuration.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long openDuration;
+
+    private final Clock clock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    // 0 while closed, otherwise the time the circuit opened.
+    private final AtomicLong openedAt = new AtomicLong();
+
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+
+    /**
+     * @param failureThreshold - The amount of failures in a row that opens the circuit.
+     * @param openDuration     - The time in milliseconds the circuit stays open before a trial call.
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration) {
+        this(failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    public CircuitBreaker(int failureThreshold, long openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if a call may be made now, every allowed call must be followed by onSuccess or onFailure.
+     */
+    public boolean allowRequest() {
+
+        long opened = openedAt.get();
+
+        if (opened == 0) {
+            return true;
+        }
+
+        if (clock.millis() - opened < openDuration) {
+            return false;
+        }
+
+        // half open: a single trial call at a time.
+        return trialInFlight.compareAndSet(false, true);
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        openedAt.set(0);
+        trialInFlight.set(false);
+    }
+
+    /**
+     * Gives back an allowed call that was never made.
+     */
+    public void release() {
+        trialInFlight.set(false);
+    }
+
+    public void onFailure() {
+
+        if (trialInFlight.get() || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt.set(clock.millis());
+        }
+
+        trialInFlight.set(false);
+    }
+
+    public State getState() {
+
+        long opened = openedAt.get();
+
+        if (opened == 0) {
+            return State.CLOSED;
+        }
+
+        return clock.millis() - opened < openDuration ? State.OPEN : State.HALF_OPEN;
+    }
+}
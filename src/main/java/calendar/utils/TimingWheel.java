@@ -0,0 +1,175 @@
+package calendar.utils;
+
+import java.util.*;
+
+/**
+ * A hierarchical timing wheel which holds keys with a deadline and hands them back once their deadline passed.
+ * Level 0 has wheelSize buckets of tickMs each, every next level has buckets as wide as the whole previous level.
+ * Keys which are too far for the top level wait in an overflow set.
+ * Scheduling and cancelling cost O(1) and advancing costs O(ticks passed + keys that are due),
+ * regardless of how many keys are waiting in the wheel.
+ *
+ * @param <K> - The type of the keys, must implement equals and hashCode.
+ */
+public class TimingWheel<K> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long[] levelTicks;
+    private final List<List<Set<K>>> levels;
+    private final Set<K> overflow = new HashSet<>();
+    private final Map<K, Long> deadlines = new HashMap<>();
+    private final Map<K, Set<K>> locations = new HashMap<>();
+
+    // Every deadline before currentTime was already handed back.
+    private long currentTime;
+
+    public TimingWheel(long tickMs, int wheelSize, int levelsCount, long startTimeMs) {
+        if (tickMs <= 0 || wheelSize <= 1 || levelsCount <= 0) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions!");
+        }
+
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levelTicks = new long[levelsCount];
+        this.levels = new ArrayList<>();
+
+        long levelTick = tickMs;
+        for (int i = 0; i < levelsCount; i++) {
+            levelTicks[i] = levelTick;
+            List<Set<K>> buckets = new ArrayList<>();
+            for (int j = 0; j < wheelSize; j++) {
+                buckets.add(new LinkedHashSet<>());
+            }
+            levels.add(buckets);
+            levelTick *= wheelSize;
+        }
+
+        this.currentTime = startTimeMs - (startTimeMs % tickMs);
+    }
+
+    /**
+     * Schedules a key, replacing its previous deadline if it was already scheduled.
+     *
+     * @param key        - The key we wish to schedule.
+     * @param deadlineMs - The time in epoch millis in which the key is due.
+     * @return false if the deadline already passed (the key is not scheduled), true otherwise.
+     */
+    public synchronized boolean schedule(K key, long deadlineMs) {
+        cancel(key);
+
+        if (deadlineMs < currentTime) {
+            return false;
+        }
+
+        deadlines.put(key, deadlineMs);
+        place(key, deadlineMs);
+        return true;
+    }
+
+    /**
+     * Removes a key from the wheel.
+     *
+     * @param key - The key we wish to cancel.
+     * @return true if the key was scheduled.
+     */
+    public synchronized boolean cancel(K key) {
+        Set<K> bucket = locations.remove(key);
+
+        if (bucket == null) {
+            return false;
+        }
+
+        bucket.remove(key);
+        deadlines.remove(key);
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to a given time.
+     *
+     * @param nowMs - The current time in epoch millis.
+     * @return all the keys with a deadline before the last full tick, in the order of their deadlines' ticks.
+     */
+    public synchronized List<K> advance(long nowMs) {
+        List<K> dueKeys = new ArrayList<>();
+
+        while (currentTime + tickMs <= nowMs) {
+            Set<K> bucket = levels.get(0).get(bucketIndex(0, currentTime));
+
+            for (K key : bucket) {
+                locations.remove(key);
+                deadlines.remove(key);
+                dueKeys.add(key);
+            }
+            bucket.clear();
+
+            currentTime += tickMs;
+
+            for (int level = levelTicks.length - 1; level > 0; level--) {
+                if (currentTime % levelTicks[level] == 0) {
+                    cascade(levels.get(level).get(bucketIndex(level, currentTime)));
+                }
+            }
+
+            if (currentTime % (levelTicks[levelTicks.length - 1] * wheelSize) == 0) {
+                cascade(overflow);
+            }
+        }
+
+        return dueKeys;
+    }
+
+    /**
+     * @return the amount of keys waiting in the wheel.
+     */
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    public synchronized boolean contains(K key) {
+        return deadlines.containsKey(key);
+    }
+
+    /**
+     * Removes all the keys from the wheel.
+     */
+    public synchronized void clear() {
+        for (Set<K> bucket : new ArrayList<>(locations.values())) {
+            bucket.clear();
+        }
+        locations.clear();
+        deadlines.clear();
+    }
+
+    private void cascade(Set<K> bucket) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+
+        List<K> keys = new ArrayList<>(bucket);
+        bucket.clear();
+
+        for (K key : keys) {
+            place(key, deadlines.get(key));
+        }
+    }
+
+    private void place(K key, long deadlineMs) {
+        for (int level = 0; level < levelTicks.length; level++) {
+            if (deadlineMs / levelTicks[level] - currentTime / levelTicks[level] < wheelSize) {
+                Set<K> bucket = levels.get(level).get(bucketIndex(level, deadlineMs));
+                bucket.add(key);
+                locations.put(key, bucket);
+                return;
+            }
+        }
+
+        overflow.add(key);
+        locations.put(key, overflow);
+    }
+
+    private int bucketIndex(int level, long timeMs) {
+        return (int) ((timeMs / levelTicks[level]) % wheelSize);
+    }
+}
@@ -0,0 +1,213 @@
+package calendar.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token buckets for an unbounded set of keys (emails, IP addresses) in a fixed amount of memory.
+ * Like a count-min sketch, every key maps to one bucket in each of a few rows; keys that collide share a bucket,
+ * and a key is only limited when all of its buckets are empty, so a collision in one row cannot lock anyone out.
+ * Every row hashes the UTF-8 bytes of the key with murmur3 and its own random seed, so keys cannot be crafted
+ * to collide (for example keys with the same String.hashCode) in every row.
+ * <p>
+ * A bucket is a single long (the time it was last refilled and the amount of tokens spent, in thousandths),
+ * updated with compare-and-set, so acquiring never locks.
+ */
+public class TokenBucketSketch {
+
+    private static final int TOKEN = 1000;
+
+    private static final int SPENT_BITS = 22;
+
+    private static final long SPENT_MASK = (1L << SPENT_BITS) - 1;
+
+    private static final int MAX_DEPTH = 4;
+
+    private static final long C1 = 0x87C37B91114253D5L;
+
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    // the murmur3 seed of every row, drawn when the sketch is created.
+    private final long[] seeds;
+
+    private final AtomicLongArray[] rows;
+
+    private final int mask;
+
+    private final long capacity;
+
+    private final double refillPerMs;
+
+    private final Clock clock;
+
+    private final long epoch;
+
+    /**
+     * @param capacity        - The amount of attempts a key can make at once, up to 4000.
+     * @param refillPerMinute - The amount of attempts a key gets back every minute.
+     * @param slots           - The amount of buckets in every row, rounded up to a power of 2.
+     * @param depth           - The amount of rows, between 1 and 4.
+     */
+    public TokenBucketSketch(int capacity, int refillPerMinute, int slots, int depth) {
+        this(capacity, refillPerMinute, slots, depth, Clock.systemUTC());
+    }
+
+    public TokenBucketSketch(int capacity, int refillPerMinute, int slots, int depth, Clock clock) {
+
+        if (capacity < 1 || (long) capacity * TOKEN > SPENT_MASK) {
+            throw new IllegalArgumentException("The capacity must be between 1 and " + SPENT_MASK / TOKEN);
+        }
+        if (refillPerMinute < 1) {
+            throw new IllegalArgumentException("The refill must be at least 1 per minute");
+        }
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("The depth must be between 1 and " + MAX_DEPTH);
+        }
+
+        int size = slots <= 1 ? 1 : Integer.highestOneBit(slots - 1) << 1;
+
+        this.rows = new AtomicLongArray[depth];
+        this.seeds = new long[depth];
+        for (int row = 0; row < depth; row++) {
+            rows[row] = new AtomicLongArray(size);
+            seeds[row] = random.nextLong();
+        }
+
+        this.mask = size - 1;
+        this.capacity = (long) capacity * TOKEN;
+        this.refillPerMs = refillPerMinute * (double) TOKEN / 60_000;
+        this.clock = clock;
+        // bucket times are kept relative to this, so a bucket that was never used (0) counts as long refilled.
+        this.epoch = clock.millis() - 1 - (long) Math.ceil(this.capacity / refillPerMs);
+    }
+
+    /**
+     * Takes one token from the buckets of a key.
+     *
+     * @param key - The key of the caller, an email or an IP address.
+     * @return true if the key had a token left, false if it should be rejected.
+     */
+    public boolean tryAcquire(String key) {
+
+        long now = clock.millis() - epoch;
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        boolean acquired = false;
+
+        for (int row = 0; row < rows.length; row++) {
+            acquired |= tryAcquire(rows[row], (int) murmur3(bytes, seeds[row]) & mask, now);
+        }
+
+        return acquired;
+    }
+
+    /**
+     * Clears every bucket, tests only.
+     */
+    public void clear() {
+        for (AtomicLongArray row : rows) {
+            for (int i = 0; i < row.length(); i++) {
+                row.set(i, 0);
+            }
+        }
+    }
+
+    private boolean tryAcquire(AtomicLongArray row, int index, long now) {
+
+        while (true) {
+            long bucket = row.get(index);
+            long lastRefill = bucket >>> SPENT_BITS;
+            long spent = bucket & SPENT_MASK;
+
+            long elapsed = Math.max(0, now - lastRefill);
+            spent = Math.max(0, spent - (long) (elapsed * refillPerMs));
+
+            // a rejected attempt leaves the bucket as it is, so its refill keeps adding up.
+            if (spent + TOKEN > capacity) {
+                return false;
+            }
+
+            if (row.compareAndSet(index, bucket, (now << SPENT_BITS) | (spent + TOKEN))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * The first 64 bits of MurmurHash3 x64 128.
+     *
+     * @param data - The bytes to hash.
+     * @param seed - The seed of the row.
+     * @return the hash of the bytes.
+     */
+    static long murmur3(byte[] data, long seed) {
+
+        long h1 = seed;
+        long h2 = seed;
+        int blocks = data.length / 16;
+
+        for (int i = 0; i < blocks; i++) {
+            long k1 = getLong(data, i * 16);
+            long k2 = getLong(data, i * 16 + 8);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52DCE729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495AB5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        int tail = blocks * 16;
+
+        for (int i = data.length - tail - 1; i >= 8; i--) {
+            k2 ^= (data[tail + i] & 0xFFL) << ((i - 8) * 8);
+        }
+        for (int i = Math.min(data.length - tail, 8) - 1; i >= 0; i--) {
+            k1 ^= (data[tail + i] & 0xFFL) << (i * 8);
+        }
+
+        h1 ^= mixK1(k1);
+        h2 ^= mixK2(k2);
+
+        h1 ^= data.length;
+        h2 ^= data.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+
+        return h1 + h2;
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long getLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,131 @@
+package calendar.utils;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+
+/**
+ * A bounded map whose entries are trusted for ttl milliseconds after they were put.
+ * Reads do not lock. When the map is full, the expired entries are removed, and if that is not enough the oldest
+ * tenth of the entries is evicted, so reaching the capacity never empties the whole cache at once.
+ *
+ * @param <K> - The type of the keys.
+ * @param <V> - The type of the values, null is not allowed (wrap an absent value in an Optional).
+ */
+public class TtlCache<K, V> {
+
+    // the share of the entries evicted when the cache is full of fresh entries.
+    private static final int EVICTED_PERCENT = 10;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final long ttl;
+
+    private final int maxSize;
+
+    private final Clock clock;
+
+    public TtlCache(long ttl, int maxSize, Clock clock) {
+        if (ttl <= 0 || maxSize <= 0) {
+            throw new IllegalArgumentException("Invalid cache ttl or size!");
+        }
+
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * @param key - The key of the entry.
+     * @return the value of the key, or null if it is missing or expired.
+     */
+    public V get(K key) {
+
+        Entry<V> entry = entries.get(key);
+
+        if (entry == null || clock.millis() - entry.cachedAt >= ttl) {
+            return null;
+        }
+
+        return entry.value;
+    }
+
+    /**
+     * Puts a value which is trusted for ttl milliseconds from now, making room for it if the cache is full.
+     *
+     * @param key   - The key of the entry.
+     * @param value - The value of the entry.
+     */
+    public void put(K key, V value) {
+
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            makeRoom();
+        }
+
+        entries.put(key, new Entry<>(value, clock.millis()));
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * @param filter - Returns true for the entries to remove.
+     */
+    public void removeIf(BiPredicate<K, V> filter) {
+        entries.entrySet().removeIf(entry -> filter.test(entry.getKey(), entry.getValue().value));
+    }
+
+    /**
+     * Removes the entries whose ttl passed.
+     */
+    public void evictExpired() {
+        long now = clock.millis();
+        entries.values().removeIf(entry -> now - entry.cachedAt >= ttl);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private synchronized void makeRoom() {
+
+        if (entries.size() < maxSize) {
+            return;
+        }
+
+        evictExpired();
+
+        if (entries.size() < maxSize) {
+            return;
+        }
+
+        long[] cachedAts = entries.values().stream().mapToLong(entry -> entry.cachedAt).toArray();
+
+        if (cachedAts.length == 0) {
+            return;
+        }
+
+        Arrays.sort(cachedAts);
+        long oldest = cachedAts[Math.max(0, cachedAts.length * EVICTED_PERCENT / 100 - 1)];
+
+        entries.values().removeIf(entry -> entry.cachedAt <= oldest);
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final long cachedAt;
+
+        private Entry(V value, long cachedAt) {
+            this.value = value;
+            this.cachedAt = cachedAt;
+        }
+    }
+}
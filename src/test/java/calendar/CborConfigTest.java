@@ -0,0 +1,139 @@
+package calendar;
+
+import calendar.entities.Event;
+import calendar.service.EventService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class CborConfigTest {
+
+    private static final MediaType APPLICATION_CBOR = MediaType.parseMediaType("application/cbor");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SimpAnnotationMethodMessageHandler messageHandler;
+
+    @Autowired
+    @Qualifier("brokerChannel")
+    private SubscribableChannel brokerChannel;
+
+    @MockBean
+    private EventService eventService;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    @BeforeEach
+    void setup() {
+        Event event = Event.getNewEvent(true, ZonedDateTime.parse("2022-01-01T09:00:00+02:00[Asia/Jerusalem]"),
+                1.5f, "location1", "title1", "description1", new ArrayList<>());
+        event.setId(1);
+        when(eventService.getEventById(1)).thenReturn(event);
+    }
+
+    @Test
+    void Accept_Cbor_Gets_The_Same_Document_As_Json() throws Exception {
+        MvcResult json = getEvent(MediaType.APPLICATION_JSON);
+        MvcResult cbor = getEvent(APPLICATION_CBOR);
+
+        assertTrue(APPLICATION_CBOR.isCompatibleWith(MediaType.parseMediaType(cbor.getResponse().getContentType())));
+
+        JsonNode jsonDocument = jsonMapper.readTree(json.getResponse().getContentAsByteArray());
+        JsonNode cborDocument = cborMapper.readTree(cbor.getResponse().getContentAsByteArray());
+
+        // CBOR keeps the float duration as a float, read back from JSON it is a double.
+        assertEquals(jsonDocument, jsonMapper.readTree(jsonMapper.writeValueAsBytes(cborDocument)));
+        assertEquals("title1", cborDocument.get("data").get("title").asText());
+    }
+
+    @Test
+    void Json_Stays_The_Default() throws Exception {
+        assertJson(getEvent(null));
+        assertJson(getEvent(MediaType.ALL));
+    }
+
+    @Test
+    void Stomp_Frame_In_Cbor_Reaches_The_Message_Mapping() throws Exception {
+        BlockingQueue<Message<?>> sent = new LinkedBlockingQueue<>();
+        MessageHandler capture = sent::add;
+        brokerChannel.subscribe(capture);
+
+        try {
+            Map<String, Object> notification = new HashMap<>();
+            notification.put("title", "title1");
+            notification.put("message", "sent in CBOR");
+
+            StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SEND);
+            headers.setDestination("/app/application");
+            headers.setContentType(WebSocketConfig.APPLICATION_CBOR);
+            headers.setSessionId("session1");
+            headers.setSessionAttributes(new HashMap<>());
+
+            messageHandler.handleMessage(MessageBuilder.createMessage(cborMapper.writeValueAsBytes(notification),
+                    headers.getMessageHeaders()));
+
+            Message<?> broadcast = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(broadcast);
+            assertEquals("/notifications", StompHeaderAccessor.wrap(broadcast).getDestination());
+
+            JsonNode payload = jsonMapper.readTree(new String((byte[]) broadcast.getPayload(), StandardCharsets.UTF_8));
+            assertEquals("sent in CBOR", payload.get("message").asText());
+            assertEquals("title1", payload.get("title").asText());
+        } finally {
+            brokerChannel.unsubscribe(capture);
+        }
+    }
+
+    private MvcResult getEvent(MediaType accept) throws Exception {
+        return accept == null
+                ? mockMvc.perform(get("/event/getEventById").param("id", "1")).andExpect(status().isOk()).andReturn()
+                : mockMvc.perform(get("/event/getEventById").param("id", "1").accept(accept))
+                .andExpect(status().isOk()).andReturn();
+    }
+
+    private void assertJson(MvcResult result) throws Exception {
+        assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(
+                MediaType.parseMediaType(result.getResponse().getContentType())));
+        assertEquals(1, jsonMapper.readTree(result.getResponse().getContentAsByteArray()).get("data").get("id").asInt());
+    }
+}
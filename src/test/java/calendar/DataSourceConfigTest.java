@@ -0,0 +1,39 @@
+package calendar;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataSourceConfigTest {
+
+    @Test
+    void MySql_Pool_Uses_Cursor_Fetch() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:mysql://localhost:3306/calendar");
+
+        DataSourceConfig.enableCursorFetch(dataSource);
+
+        assertEquals("true", dataSource.getDataSourceProperties().getProperty(DataSourceConfig.CURSOR_FETCH));
+    }
+
+    @Test
+    void Cursor_Fetch_Set_In_The_Url_Is_Kept() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:mysql://localhost:3306/calendar?useCursorFetch=false");
+
+        DataSourceConfig.enableCursorFetch(dataSource);
+
+        assertNull(dataSource.getDataSourceProperties().getProperty(DataSourceConfig.CURSOR_FETCH));
+    }
+
+    @Test
+    void Other_Databases_Are_Left_Alone() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:calendar");
+
+        DataSourceConfig.enableCursorFetch(dataSource);
+
+        assertTrue(dataSource.getDataSourceProperties().isEmpty());
+    }
+}
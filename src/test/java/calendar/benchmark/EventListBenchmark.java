@@ -0,0 +1,132 @@
+package calendar.benchmark;
+
+import calendar.controller.response.BaseResponse;
+import calendar.entities.DTO.EventDTO;
+import calendar.entities.DTO.EventSummaryDTO;
+import calendar.entities.DTO.ParticipantDTO;
+import calendar.entities.DTO.UserDTO;
+import calendar.entities.Event;
+import calendar.entities.NotificationSettings;
+import calendar.entities.Role;
+import calendar.entities.User;
+import calendar.entities.enums.ProviderType;
+import calendar.entities.enums.RoleType;
+import calendar.entities.enums.StatusType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A month view (200 events of 50 guests each) as the list endpoints return it: converting the loaded events to
+ * EventDTOs and writing them as JSON, against writing the summaries the projection queries return, and the
+ * normalized format (the summaries with their guest lists, and every user once in the users of the response).
+ * The JSON sizes are printed on setup. Not a test, run the main method from the test classpath after mvn test-compile,
+ * or "org.openjdk.jmh.Main EventListBenchmark -prof gc" for the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventListBenchmark {
+
+    @Param({"200"})
+    private int events;
+
+    @Param({"50"})
+    private int guests;
+
+    private ObjectMapper objectMapper;
+
+    private List<Event> monthEvents;
+
+    private List<EventSummaryDTO> monthSummaries;
+
+    private List<EventSummaryDTO> normalizedSummaries;
+
+    private List<UserDTO> normalizedUsers;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        List<User> users = new ArrayList<>();
+        for (int userId = 1; userId <= guests; userId++) {
+            User user = new User("User" + userId, "user" + userId + "@test.com", "password", ProviderType.LOCAL);
+            user.setId(userId);
+            user.setNotificationSettings(new NotificationSettings(user));
+            users.add(user);
+        }
+
+        normalizedUsers = new ArrayList<>();
+        for (User user : users) {
+            normalizedUsers.add(new UserDTO(user.getId(), user.getName(), user.getEmail(), user.getProvider(), user.getCity()));
+        }
+
+        monthEvents = new ArrayList<>();
+        monthSummaries = new ArrayList<>();
+        normalizedSummaries = new ArrayList<>();
+        ZonedDateTime start = ZonedDateTime.parse("2022-01-01T09:00:00Z");
+
+        for (int eventId = 1; eventId <= events; eventId++) {
+            Event event = Event.getNewEvent(false, start.plusHours(eventId * 3L), 1.5f, "Meeting room " + eventId,
+                    "Event " + eventId, "The description of event " + eventId, new ArrayList<>());
+            event.setId(eventId);
+            event.getRoles().add(new Role(users.get(0), StatusType.APPROVED, RoleType.ORGANIZER));
+            for (int guest = 1; guest < guests; guest++) {
+                event.getRoles().add(new Role(users.get(guest), StatusType.TENTATIVE, RoleType.GUEST));
+            }
+            monthEvents.add(event);
+
+            monthSummaries.add(summary(event));
+
+            EventSummaryDTO normalizedSummary = summary(event);
+            List<ParticipantDTO> participants = new ArrayList<>();
+            for (Role role : event.getRoles()) {
+                participants.add(new ParticipantDTO(eventId, role.getUser().getId(), role.getRoleType(), role.getStatusType()));
+            }
+            normalizedSummary.setParticipants(participants);
+            normalizedSummaries.add(normalizedSummary);
+        }
+
+        System.out.println("\nevent DTOs: " + eventDTOs().length + " bytes, event summaries: "
+                + eventSummaries().length + " bytes, normalized: " + normalized().length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] eventDTOs() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(EventDTO.convertEventsToEventsDTO(monthEvents));
+    }
+
+    @Benchmark
+    public byte[] eventSummaries() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(monthSummaries);
+    }
+
+    @Benchmark
+    public byte[] normalized() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(BaseResponse.success(normalizedSummaries, normalizedUsers));
+    }
+
+    private EventSummaryDTO summary(Event event) {
+        return new EventSummaryDTO(event.getId(), event.getTitle(), event.getTime().toInstant(),
+                event.getTime().plusMinutes(90).toInstant(), event.getLocation(), false,
+                RoleType.ORGANIZER, StatusType.APPROVED, guests);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EventListBenchmark.class.getSimpleName()).build()).run();
+    }
+}
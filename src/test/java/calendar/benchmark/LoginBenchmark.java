@@ -0,0 +1,73 @@
+package calendar.benchmark;
+
+import at.favre.lib.crypto.bcrypt.BCrypt;
+import calendar.service.PasswordHasher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password checks with 32 concurrent logins: BCrypt on the request threads (what login did before) against
+ * PasswordHasher, which runs them on a pool as big as the machine and turns the overflow away.
+ * The passwordHasher score counts rejected calls too, compare its verified counter with the inline score.
+ * Not a test, run the main method from the test classpath after mvn test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(32)
+public class LoginBenchmark {
+
+    private static final int COST = 10;
+
+    private static final String PASSWORD = "leon1234";
+
+    private PasswordHasher passwordHasher;
+
+    private String hash;
+
+    @Setup
+    public void setup() {
+        passwordHasher = new PasswordHasher(0, 16, 500, COST, 0);
+        hash = BCrypt.withDefaults().hashToString(COST, PASSWORD.toCharArray());
+    }
+
+    @TearDown
+    public void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcome {
+        public long verified;
+        public long rejected;
+    }
+
+    @Benchmark
+    public boolean inline() {
+        return BCrypt.verifyer().verify(PASSWORD.toCharArray(), hash.toCharArray()).verified;
+    }
+
+    @Benchmark
+    public void passwordHasher(Outcome outcome, Blackhole blackhole) {
+        try {
+            blackhole.consume(passwordHasher.verify(PASSWORD, hash));
+            outcome.verified++;
+        } catch (RejectedExecutionException e) {
+            outcome.rejected++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LoginBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package calendar.benchmark;
+
+import calendar.controller.EventController;
+import calendar.entities.Principal;
+import calendar.entities.RoleGrant;
+import calendar.entities.User;
+import calendar.entities.enums.ProviderType;
+import calendar.entities.enums.RoleType;
+import calendar.entities.enums.StatusType;
+import calendar.filters.RolePermissionRegistry;
+import calendar.filters.RouteSecurityInterceptor;
+import calendar.service.AuthService;
+import calendar.service.PrincipalCache;
+import calendar.service.RoleGrantCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The route checks of an admin request (/event/inviteGuest): the policy lookup of the RouteSecurityInterceptor
+ * against scanning the url lists the servlet filters used to be registered with, and the whole interceptor for scale
+ * (the token, principal and role lookups are stubbed, so only the interceptor itself is measured).
+ * Not a test, run the main method from the test classpath after mvn test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteSecurityBenchmark {
+
+    private static final String URL = "/event/inviteGuest";
+
+    private static final String[] TOKEN_URLS = {"/user/update", "/user/delete", "/user/getNotificationSettings",
+            "/user/getUsersWhoSharedWithMe", "/user/updateCity", "/user/share",
+            "/event/removeGuest", "/event/inviteGuest", "/event/switchRole", "/event/saveEvent",
+            "/event/updateEvent", "/event/GetAllShared", "/event/deleteEvent",
+            "/event/getEventsByUserId", "/event/updateEvent/isPublic", "/event/updateEvent/location",
+            "/event/updateEvent/title", "/event/updateEvent/description", "/event/updateEvent/time",
+            "/event/updateEvent/duration", "/event/updateEvent/event", "/event/updateEvent/date",
+            "/event/switchStatus", "/event/leaveEvent", "/event/getEventsByUserIdShowOnly",
+            "/event/getEventsByUserIdInRange", "/event/getEventsByUserIdShowOnlyInRange", "/auth/logoutAll"};
+
+    private static final String[] ROLE_URLS = {"/event/removeGuest", "/event/inviteGuest", "/event/updateEvent/isPublic",
+            "/event/updateEvent/location", "/event/updateEvent/time", "/event/updateEvent/duration",
+            "/event/updateEvent/date", "/event/updateEvent/description", "/event/updateEvent/title",
+            "/event/updateEvent/event", "/event/deleteEvent", "/event/switchRole", "/event/leaveEvent"};
+
+    private static final String[] ADMIN_URLS = {"/event/removeGuest", "/event/inviteGuest", "/event/updateEvent/event",
+            "/event/leaveEvent"};
+
+    private RouteSecurityInterceptor interceptor;
+
+    private HandlerMethod handler;
+
+    @Setup
+    public void setup() throws Exception {
+        User user = new User("Leon", "Leon@test.com", "leon1234", ProviderType.LOCAL);
+        user.setId(7);
+
+        AuthService authService = mock(AuthService.class);
+        PrincipalCache principalCache = mock(PrincipalCache.class);
+        RoleGrantCache roleGrantCache = mock(RoleGrantCache.class);
+        when(authService.getUserIdByToken("testToken")).thenReturn(Optional.of(7));
+        when(principalCache.get(7)).thenReturn(Optional.of(new Principal(user)));
+        when(roleGrantCache.get(7, 3)).thenReturn(Optional.of(new RoleGrant(RoleType.ADMIN, StatusType.APPROVED)));
+
+        interceptor = new RouteSecurityInterceptor();
+        ReflectionTestUtils.setField(interceptor, "authService", authService);
+        ReflectionTestUtils.setField(interceptor, "principalCache", principalCache);
+        ReflectionTestUtils.setField(interceptor, "roleGrantCache", roleGrantCache);
+        ReflectionTestUtils.setField(interceptor, "rolePermissionRegistry", new RolePermissionRegistry(""));
+
+        handler = new HandlerMethod(new EventController(), EventController.class.getMethod("inviteGuest", String.class, int.class));
+        ReflectionTestUtils.invokeMethod(interceptor, "compile", Collections.singletonList(handler));
+    }
+
+    @Benchmark
+    public boolean routePolicy() {
+        return interceptor.getPolicy(handler).isAllowed(RoleType.ADMIN);
+    }
+
+    @Benchmark
+    public boolean urlLists() {
+        String url = request().getRequestURI();
+        return Arrays.asList(TOKEN_URLS).contains(url) && Arrays.asList(ROLE_URLS).contains(url)
+                && Arrays.asList(ADMIN_URLS).contains(url);
+    }
+
+    @Benchmark
+    public boolean interceptor() throws Exception {
+        return interceptor.preHandle(request(), new MockHttpServletResponse(), handler);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", URL);
+        request.addHeader("token", "testToken");
+        request.setParameter("eventId", "3");
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RouteSecurityBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,69 @@
+package calendar.benchmark;
+
+import calendar.service.InMemorySessionStore;
+import calendar.utils.Utils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getUserIdByToken at 100k logged-in sessions: the token index of InMemorySessionStore against the
+ * reverse scan over the user id -> token map it replaced.
+ * Not a test, run the main method from the test classpath after mvn test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionStoreBenchmark {
+
+    @Param({"100000"})
+    private int sessions;
+
+    private InMemorySessionStore sessionStore;
+
+    private HashMap<Integer, String> usersTokensMap;
+
+    private String[] tokens;
+
+    @Setup
+    public void setup() {
+        sessionStore = new InMemorySessionStore(TimeUnit.DAYS.toMillis(1));
+        usersTokensMap = new HashMap<>();
+        tokens = new String[sessions];
+
+        for (int userId = 0; userId < sessions; userId++) {
+            tokens[userId] = sessionStore.create(userId);
+            usersTokensMap.put(userId, Utils.generateUniqueToken());
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Integer> sessionStore() {
+        return sessionStore.getUserId(tokens[ThreadLocalRandom.current().nextInt(sessions)]);
+    }
+
+    @Benchmark
+    public Optional<Integer> reverseScan() {
+        String token = usersTokensMap.get(ThreadLocalRandom.current().nextInt(sessions));
+
+        return usersTokensMap.entrySet().stream()
+                .filter(entry -> token.equals(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .findFirst();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SessionStoreBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,127 @@
+package calendar.benchmark;
+
+import calendar.controller.response.BaseResponse;
+import calendar.entities.DTO.EventDTO;
+import calendar.entities.DTO.EventSummaryDTO;
+import calendar.entities.Event;
+import calendar.entities.NotificationSettings;
+import calendar.entities.Role;
+import calendar.entities.User;
+import calendar.entities.enums.ProviderType;
+import calendar.entities.enums.RoleType;
+import calendar.entities.enums.StatusType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A month view (200 events of 50 guests each) written and read as JSON and as CBOR, configured like the converters
+ * of the application: the summaries the list endpoints send, and the full EventDTOs (zoned times, enums and nested
+ * role and user DTOs), read back as trees since the clients are not Java. The sizes are printed on setup.
+ * Not a test, run the main method from the test classpath after mvn test-compile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    @Param({"200"})
+    private int events;
+
+    @Param({"50"})
+    private int guests;
+
+    private ObjectMapper objectMapper;
+
+    private BaseResponse<List<EventSummaryDTO>> summaries;
+
+    private BaseResponse<List<EventDTO>> eventDTOs;
+
+    private byte[] encodedSummaries;
+
+    private byte[] encodedEventDTOs;
+
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = new ObjectMapper("cbor".equals(format) ? new CBORFactory() : null)
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        List<User> users = new ArrayList<>();
+        for (int userId = 1; userId <= guests; userId++) {
+            User user = new User("User" + userId, "user" + userId + "@test.com", "password", ProviderType.LOCAL);
+            user.setId(userId);
+            user.setNotificationSettings(new NotificationSettings(user));
+            users.add(user);
+        }
+
+        List<EventSummaryDTO> monthSummaries = new ArrayList<>();
+        List<EventDTO> monthEventDTOs = new ArrayList<>();
+        ZonedDateTime start = ZonedDateTime.parse("2022-01-01T09:00:00+02:00[Asia/Jerusalem]");
+
+        for (int eventId = 1; eventId <= events; eventId++) {
+            Event event = Event.getNewEvent(false, start.plusHours(eventId * 3L), 1.5f, "Meeting room " + eventId,
+                    "Event " + eventId, "The description of event " + eventId, new ArrayList<>());
+            event.setId(eventId);
+            event.getRoles().add(new Role(users.get(0), StatusType.APPROVED, RoleType.ORGANIZER));
+            for (int guest = 1; guest < guests; guest++) {
+                event.getRoles().add(new Role(users.get(guest), StatusType.TENTATIVE, RoleType.GUEST));
+            }
+
+            monthSummaries.add(new EventSummaryDTO(eventId, event.getTitle(), event.getTime().toInstant(),
+                    event.getTime().plusMinutes(90).toInstant(), event.getLocation(), false,
+                    RoleType.ORGANIZER, StatusType.APPROVED, guests));
+            monthEventDTOs.add(new EventDTO(event));
+        }
+
+        summaries = BaseResponse.success(monthSummaries);
+        eventDTOs = BaseResponse.success(monthEventDTOs);
+        encodedSummaries = encodeSummaries();
+        encodedEventDTOs = encodeEventDTOs();
+
+        System.out.println("\n" + format + " summaries: " + encodedSummaries.length + " bytes, event DTOs: "
+                + encodedEventDTOs.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] encodeSummaries() throws IOException {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+
+    @Benchmark
+    public JsonNode decodeSummaries() throws IOException {
+        return objectMapper.readTree(encodedSummaries);
+    }
+
+    @Benchmark
+    public byte[] encodeEventDTOs() throws IOException {
+        return objectMapper.writeValueAsBytes(eventDTOs);
+    }
+
+    @Benchmark
+    public JsonNode decodeEventDTOs() throws IOException {
+        return objectMapper.readTree(encodedEventDTOs);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WireFormatBenchmark.class.getSimpleName()).build()).run();
+    }
+}
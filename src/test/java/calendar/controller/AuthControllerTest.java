@@ -11,6 +11,7 @@ import calendar.entities.enums.City;
 import calendar.entities.enums.ProviderType;
 import calendar.service.AuthService;
 import calendar.service.GithubAuthService;
+import calendar.service.LoginRateLimiter;
 import com.mysql.cj.log.Log;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,12 +20,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.sql.SQLDataException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -36,6 +41,10 @@ class AuthControllerTest {
     AuthService authService;
     @MockBean
     GithubAuthService githubAuthService;
+    @Autowired
+    LoginRateLimiter loginRateLimiter;
+
+    MockHttpServletRequest request;
 
     static User user;
 
@@ -59,12 +68,15 @@ class AuthControllerTest {
 
         //Code for testing Github.
         code = "GitHubCode";
+
+        request = new MockHttpServletRequest();
+        loginRateLimiter.clear();
     }
 
 
     @Test
     void register_Successfully() {
-        when(authService.createUser(userRequest, ProviderType.LOCAL)).thenReturn(user);
+        when(authService.register(userRequest)).thenReturn(user);
 
         ResponseEntity<BaseResponse<UserDTO>> response = authController.register(userRequest);
 
@@ -74,7 +86,7 @@ class AuthControllerTest {
 
     @Test
     void Try_To_register_When_User_Already_Exists() {
-        when(authService.createUser(userRequest, ProviderType.LOCAL)).thenThrow(IllegalArgumentException.class);
+        when(authService.register(userRequest)).thenThrow(IllegalArgumentException.class);
 
         ResponseEntity<BaseResponse<UserDTO>> response = authController.register(userRequest);
 
@@ -112,7 +124,7 @@ class AuthControllerTest {
     void login_Successfully() {
         when(authService.login(userRequest)).thenReturn(Optional.ofNullable(loginDataDTO));
 
-        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.login(userRequest);
+        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.login(userRequest, request);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(1, response.getBody().getData().getUserId());
@@ -123,7 +135,7 @@ class AuthControllerTest {
         when(authService.login(userRequest)).thenReturn(Optional.ofNullable(null));
         userRequest.setEmail("invalidEmail");
 
-        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.login(userRequest);
+        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.login(userRequest, request);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
@@ -133,16 +145,16 @@ class AuthControllerTest {
         when(authService.login(userRequest)).thenReturn(Optional.ofNullable(null));
         userRequest.setPassword("invalidEmail");
 
-        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.login(userRequest);
+        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.login(userRequest, request);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
     @Test
     void Log_In_With_Git_Hub_Successfully() throws SQLDataException {
-        when(githubAuthService.loginGithub(code)).thenReturn(Optional.ofNullable(loginDataDTO));
+        when(githubAuthService.loginGithub(code)).thenReturn(CompletableFuture.completedFuture(Optional.ofNullable(loginDataDTO)));
 
-        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.loginGithub(code);
+        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.loginGithub(code, request).join();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(1, response.getBody().getData().getUserId());
@@ -150,19 +162,59 @@ class AuthControllerTest {
 
     @Test
     void Try_To_Log_In_With_Git_Hub_User_Does_Not_Exist() throws SQLDataException {
-        when(githubAuthService.loginGithub(code)).thenReturn(Optional.empty());
+        when(githubAuthService.loginGithub(code)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
-        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.loginGithub(code);
+        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.loginGithub(code, request).join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
     @Test
     void Try_To_Log_In_With_Git_Hub_Failed() throws SQLDataException {
-        when(githubAuthService.loginGithub(code)).thenReturn(null);
+        when(githubAuthService.loginGithub(code)).thenReturn(CompletableFuture.completedFuture(null));
 
-        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.loginGithub(code);
+        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.loginGithub(code, request).join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void Log_In_With_Git_Hub_While_Git_Hub_Is_Unavailable() {
+        when(githubAuthService.loginGithub(code)).thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("GitHub is unavailable")));
+
+        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.loginGithub(code, request).join();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
+    @Test
+    void Too_Many_Logins_For_One_Email_Are_Rejected_Before_Checking_The_Password() {
+        when(authService.login(userRequest)).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 10; i++) {
+            request.setRemoteAddr("10.0.0." + i);
+            assertEquals(HttpStatus.BAD_REQUEST, authController.login(userRequest, request).getStatusCode());
+        }
+
+        request.setRemoteAddr("10.0.0.100");
+        ResponseEntity<BaseResponse<LoginDataDTO>> response = authController.login(userRequest, request);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertNotNull(response.getHeaders().getFirst("Retry-After"));
+        verify(authService, times(10)).login(any());
+    }
+
+    @Test
+    void Too_Many_Logins_From_One_Address_Are_Rejected() throws SQLDataException {
+        when(githubAuthService.loginGithub(code)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        long rejectedBefore = loginRateLimiter.getStats().getRejectedByIp();
+
+        for (int i = 0; i < 50; i++) {
+            authController.loginGithub(code, request).join();
+        }
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, authController.loginGithub(code, request).join().getStatusCode());
+        assertEquals(rejectedBefore + 1, loginRateLimiter.getStats().getRejectedByIp());
+        verify(githubAuthService, times(50)).loginGithub(code);
+    }
+}
@@ -4,11 +4,14 @@ import calendar.controller.request.EventRequest;
 import calendar.controller.response.BaseResponse;
 import calendar.entities.*;
 import calendar.entities.DTO.EventDTO;
+import calendar.entities.DTO.EventSummaryDTO;
 import calendar.entities.DTO.RoleDTO;
 import calendar.entities.DTO.UserDTO;
 import calendar.entities.enums.*;
 import calendar.eventNotifications.NotificationPublisher;
 import calendar.service.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ser.Serializers;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,7 +21,9 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.sql.SQLDataException;
 import java.time.LocalDate;
@@ -27,9 +32,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -52,6 +60,7 @@ class EventControllerTest {
     static Event eventNoShow;
     static Event updatedEvent;
     static List<Event> events;
+    static List<EventSummaryDTO> eventSummaries;
 
     static EventRequest eventRequest;
 
@@ -110,6 +119,9 @@ class EventControllerTest {
 
         events = new ArrayList<>();
         events.add(event);
+        eventSummaries = new ArrayList<>();
+        eventSummaries.add(new EventSummaryDTO(1, "title1", event.getStartUtc(), event.getEndUtc(), "location1", true,
+                RoleType.GUEST, StatusType.APPROVED, 1));
 
         eventRequest = new EventRequest();
         eventRequest.setTitle("UpdatedEvent");
@@ -348,15 +360,6 @@ class EventControllerTest {
         assertEquals(response.getBody().getData(), "Event Deleted Successfully");
     }
 
-    @Test
-    void Try_To_Delete_Event_User_Does_Not_Exist() {
-        when(userService.getById(1)).thenReturn(null);
-
-        ResponseEntity<BaseResponse<String>> response = eventController.deleteEvent(1, 1);
-
-        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
-    }
-
     @Test
     void Try_To_Delete_Event_Event_Does_Not_Exist() throws SQLDataException {
         when(userService.getById(1)).thenReturn(null);
@@ -371,17 +374,29 @@ class EventControllerTest {
     void Get_Event_By_Id_Successfully() throws SQLDataException {
         when(eventService.getEventById(1)).thenReturn(event);
 
-        ResponseEntity<BaseResponse<EventDTO>> response = eventController.getEventById(1);
+        ResponseEntity<BaseResponse<EventDTO>> response = eventController.getEventById(1, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(response.getBody().getData().getId(), 2);
     }
 
+    @Test
+    void Get_Event_By_Id_Without_Roles_Does_Not_Load_Them() {
+        when(eventService.getEventDTOById(1)).thenReturn(new EventDTO(1, true, event.getTime(), 3.0f,
+                "location1", "title1", "description1"));
+
+        ResponseEntity<BaseResponse<EventDTO>> response = eventController.getEventById(1, "title,time,duration");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("title1", response.getBody().getData().getTitle());
+        verify(eventService, never()).getEventById(1);
+    }
+
     @Test
     void Try_To_Get_Event_By_Id_That_Does_Not_Exist() throws SQLDataException {
         when(eventService.getEventById(1)).thenReturn(null);
 
-        ResponseEntity<BaseResponse<EventDTO>> response = eventController.getEventById(1);
+        ResponseEntity<BaseResponse<EventDTO>> response = eventController.getEventById(1, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
@@ -427,53 +442,98 @@ class EventControllerTest {
     @Test
     void Get_Events_By_User_Id() {
         when(userService.getById(1)).thenReturn(user);
-        when(eventService.getEventsByUserId(1)).thenReturn(events);
+        when(eventService.getEventsByUserId(1)).thenReturn(eventSummaries);
 
-        ResponseEntity<BaseResponse<List<EventDTO>>> response = eventController.getEventsByUserId(1);
+        ResponseEntity<BaseResponse<List<EventSummaryDTO>>> response = eventController.getEventsByUserId(1, false, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(response.getBody().getData().size(), 1);
     }
 
     @Test
-    void Try_To_Get_Events_By_User_Id_That_Does_Not_Exist() {
-        when(userService.getById(1)).thenReturn(null);
+    void Get_Events_By_User_Id_Normalized() {
+        List<UserDTO> users = Collections.singletonList(new UserDTO(user));
+        when(eventService.getEventsByUserId(1)).thenReturn(eventSummaries);
+        when(eventService.addParticipants(eventSummaries)).thenReturn(users);
 
-        ResponseEntity<BaseResponse<List<EventDTO>>> response = eventController.getEventsByUserId(1);
+        ResponseEntity<BaseResponse<List<EventSummaryDTO>>> response = eventController.getEventsByUserId(1, true, null);
 
-        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(users, response.getBody().getUsers());
+    }
+
+    @Test
+    void Get_Events_By_User_Id_Normalized_Without_Participants_Field() {
+        when(eventService.getEventsByUserId(1)).thenReturn(eventSummaries);
+
+        ResponseEntity<BaseResponse<List<EventSummaryDTO>>> response = eventController.getEventsByUserId(1, true, "title,start");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getBody().getUsers());
+        verify(eventService, never()).addParticipants(any());
     }
 
     @Test
     void Try_To_Get_Events_By_User_Has_None() {
-        List<Event> emptyList = new ArrayList<>();
+        List<EventSummaryDTO> emptyList = new ArrayList<>();
         when(userService.getById(1)).thenReturn(user);
         when(eventService.getEventsByUserId(1)).thenReturn(emptyList);
 
-        ResponseEntity<BaseResponse<List<EventDTO>>> response = eventController.getEventsByUserId(1);
+        ResponseEntity<BaseResponse<List<EventSummaryDTO>>> response = eventController.getEventsByUserId(1, false, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(response.getBody().getData().size(), 0);
     }
 
     @Test
-    void Leave_Event_Successfully() {
-        when(userService.getById(1)).thenReturn(user);
-        when(eventService.leaveEvent(user.getId(), event.getId())).thenReturn(role);
+    void Stream_Events_By_User_Id_As_Json() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<EventSummaryDTO> sink = invocation.getArgument(1);
+            eventSummaries.forEach(sink);
+            return eventSummaries.size();
+        }).when(eventService).streamEventsByUserId(eq(1), any());
 
-        ResponseEntity<BaseResponse<RoleDTO>> response = eventController.leaveEvent(user.getId(), event.getId());
+        ResponseEntity<StreamingResponseBody> response = eventController.streamEventsByUserId(1, "json");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.getBody().writeTo(body);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(response.getBody().getData().getUser().getId(), user.getId());
+        assertTrue(body.toString("UTF-8").startsWith("{\"success\":true,\"message\":null,\"data\":[{\"id\":1,"));
     }
 
     @Test
-    void Try_To_Leave_Event_User_Does_Not_Exist() {
-        when(userService.getById(1)).thenReturn(null);
+    void Failed_Stream_Is_Not_Completed_Into_Valid_Json() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<EventSummaryDTO> sink = invocation.getArgument(1);
+            eventSummaries.forEach(sink);
+            throw new IllegalStateException("The cursor was closed");
+        }).when(eventService).streamEventsByUserId(eq(1), any());
 
-        ResponseEntity<BaseResponse<RoleDTO>> response = eventController.leaveEvent(user.getId(), event.getId());
+        ResponseEntity<StreamingResponseBody> response = eventController.streamEventsByUserId(1, "json");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        assertThrows(IllegalStateException.class, () -> response.getBody().writeTo(body));
+        assertTrue(body.toString("UTF-8").startsWith("{\"success\":true,\"message\":null,\"data\":[{\"id\":1,"));
+        assertThrows(JsonProcessingException.class, () -> new ObjectMapper().readTree(body.toByteArray()));
+    }
+
+    @Test
+    void Try_To_Stream_Events_In_Unknown_Format() {
+        ResponseEntity<StreamingResponseBody> response = eventController.streamEventsByUserId(1, "xml");
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(eventService);
+    }
+
+    @Test
+    void Leave_Event_Successfully() {
+        when(userService.getById(1)).thenReturn(user);
+        when(eventService.leaveEvent(user.getId(), event.getId())).thenReturn(role);
+
+        ResponseEntity<BaseResponse<RoleDTO>> response = eventController.leaveEvent(user.getId(), event.getId());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(response.getBody().getData().getUser().getId(), user.getId());
     }
 
     @Test
@@ -489,29 +549,20 @@ class EventControllerTest {
     @Test
     void Get_Events_By_User_Id_Only_Show() {
         when(userService.getById(user.getId())).thenReturn(user);
-        when(eventService.getEventsByUserIdShowOnly(user.getId())).thenReturn(events);
+        when(eventService.getEventsByUserIdShowOnly(user.getId())).thenReturn(eventSummaries);
 
-        ResponseEntity<BaseResponse<List<EventDTO>>> response = eventController.getEventsByUserIdShowOnly(user.getId());
+        ResponseEntity<BaseResponse<List<EventSummaryDTO>>> response = eventController.getEventsByUserIdShowOnly(user.getId(), false, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(response.getBody().getData().size(), 1);
     }
 
-    @Test
-    void Try_To_Get_Events_Only_Show_By_User_Id_That_Does_Not_Exist() {
-        when(userService.getById(1)).thenReturn(null);
-
-        ResponseEntity<BaseResponse<List<EventDTO>>> response = eventController.getEventsByUserIdShowOnly(1);
-
-        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
-    }
-
     @Test
     void Try_To_Get_Events_Only_Show_By_User_Has_None_That_He_Wants_To_Not_Show() {
         when(userService.getById(user.getId())).thenReturn(user);
         when(eventService.getEventsByUserIdShowOnly(user.getId())).thenReturn(Collections.emptyList());
 
-        ResponseEntity<BaseResponse<List<EventDTO>>> response = eventController.getEventsByUserIdShowOnly(user.getId());
+        ResponseEntity<BaseResponse<List<EventSummaryDTO>>> response = eventController.getEventsByUserIdShowOnly(user.getId(), false, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(response.getBody().getData().size(), 0);
@@ -520,11 +571,11 @@ class EventControllerTest {
     @Test
     void Try_To_Get_Events_Only_Show_By_User_Has_None_That_He_Wants_To_Show() {
         when(userService.getById(1)).thenReturn(user);
-        when(eventService.getEventsByUserId(1)).thenReturn(events);
+        when(eventService.getEventsByUserId(1)).thenReturn(eventSummaries);
 
         events.get(0).getRoles().get(0).setShownInMyCalendar(false);
 
-        ResponseEntity<BaseResponse<List<EventDTO>>> response = eventController.getEventsByUserIdShowOnly(1);
+        ResponseEntity<BaseResponse<List<EventSummaryDTO>>> response = eventController.getEventsByUserIdShowOnly(1, false, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(response.getBody().getData().size(), 0);
@@ -533,9 +584,9 @@ class EventControllerTest {
     @Test
     void Get_All_Shared_Successfully() {
         when(userService.getById(user.getId())).thenReturn(user);
-        when(eventService.GetAllShared(user,sharedUsers)).thenReturn(events);
+        when(eventService.GetAllShared(user,sharedUsers)).thenReturn(eventSummaries);
 
-        ResponseEntity<BaseResponse<List<EventDTO>>> response = eventController.GetAllShared(user.getId(), sharedUsers);
+        ResponseEntity<BaseResponse<List<EventSummaryDTO>>> response = eventController.GetAllShared(user.getId(), sharedUsers, false, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(response.getBody().getData().size(), 1);
@@ -545,9 +596,49 @@ class EventControllerTest {
     void Try_To_Get_All_Shared_User_Does_Not_Exist() {
         when(userService.getById(user.getId())).thenReturn(null);
 
-        ResponseEntity<BaseResponse<List<EventDTO>>> response = eventController.GetAllShared(user.getId(), sharedUsers);
+        ResponseEntity<BaseResponse<List<EventSummaryDTO>>> response = eventController.GetAllShared(user.getId(), sharedUsers, false, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void Stream_All_Shared_As_Ndjson() throws Exception {
+        when(userService.getById(user.getId())).thenReturn(user);
+        when(eventService.getValidSharedUsers(user, sharedUsers)).thenReturn(List.of(user));
+        doAnswer(invocation -> {
+            Consumer<EventSummaryDTO> sink = invocation.getArgument(2);
+            eventSummaries.forEach(sink);
+            eventSummaries.forEach(sink);
+            return 2;
+        }).when(eventService).streamAllShared(eq(user), eq(List.of(user)), any());
+
+        ResponseEntity<StreamingResponseBody> response = eventController.streamAllShared(user.getId(), sharedUsers, "ndjson");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.getBody().writeTo(body);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, body.toString("UTF-8").split("\n").length);
+    }
+
+    @Test
+    void Try_To_Stream_All_Shared_User_Does_Not_Exist() {
+        when(userService.getById(user.getId())).thenReturn(null);
+
+        ResponseEntity<StreamingResponseBody> response = eventController.streamAllShared(user.getId(), sharedUsers, "json");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void Try_To_Stream_All_Shared_With_Unknown_Email() {
+        when(userService.getById(user.getId())).thenReturn(user);
+        when(eventService.getValidSharedUsers(user, sharedUsers))
+                .thenThrow(new IllegalArgumentException("User nobody@test.com does not exist!"));
+
+        ResponseEntity<StreamingResponseBody> response = eventController.streamAllShared(user.getId(), sharedUsers, "json");
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(eventService, never()).streamAllShared(any(), any(), any());
     }
 
     @Test
@@ -555,7 +646,7 @@ class EventControllerTest {
         when(userService.getById(user.getId())).thenReturn(user);
 
         String[] emptyArray = new String[0];
-        ResponseEntity<BaseResponse<List<EventDTO>>> response = eventController.GetAllShared(user.getId(), emptyArray);
+        ResponseEntity<BaseResponse<List<EventSummaryDTO>>> response = eventController.GetAllShared(user.getId(), emptyArray, false, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(response.getBody().getData().size(), 0);
@@ -4,6 +4,7 @@ import calendar.controller.response.BaseResponse;
 import calendar.entities.DTO.NotificationSettingsDTO;
 import calendar.entities.DTO.UserDTO;
 import calendar.entities.NotificationSettings;
+import calendar.entities.Principal;
 import calendar.entities.User;
 import calendar.entities.enums.City;
 import calendar.entities.enums.ProviderType;
@@ -23,7 +24,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -66,17 +67,29 @@ class UserControllerTest {
     void Get_User_By_Email_Successfully() {
         when(userService.getDTOByEmail(user.getEmail())).thenReturn(Optional.ofNullable(userDTO));
 
-        ResponseEntity<BaseResponse<UserDTO>> response = userController.getUserByEmail(user.getEmail());
+        ResponseEntity<BaseResponse<UserDTO>> response = userController.getUserByEmail(user.getEmail(), null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(user.getId(), response.getBody().getData().getId());
     }
 
+    @Test
+    void Get_User_By_Email_Without_Notification_Settings_Does_Not_Load_Them() {
+        when(userService.getSummaryDTOByEmail(user.getEmail())).thenReturn(Optional.of(
+                new UserDTO(user.getId(), user.getName(), user.getEmail(), user.getProvider(), user.getCity())));
+
+        ResponseEntity<BaseResponse<UserDTO>> response = userController.getUserByEmail(user.getEmail(), "name,city");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getBody().getData().getNotificationSettings());
+        verify(userService, never()).getDTOByEmail(user.getEmail());
+    }
+
     @Test
     void Try_To_Get_User_By_Email_That_Does_Not_Exist() {
         when(userService.getDTOByEmail(user.getEmail())).thenReturn(Optional.ofNullable(null));
 
-        ResponseEntity<BaseResponse<UserDTO>> response = userController.getUserByEmail(user.getEmail());
+        ResponseEntity<BaseResponse<UserDTO>> response = userController.getUserByEmail(user.getEmail(), null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
@@ -121,27 +134,24 @@ class UserControllerTest {
 
     @Test
     void Get_User_Notifications_Successfully() {
-        when(userService.getNotificationSettings(user.getId())).thenReturn(user.getNotificationSettings());
-
-        ResponseEntity<BaseResponse<NotificationSettingsDTO>> response = userController.getNotificationSettings(user.getId());
+        ResponseEntity<BaseResponse<NotificationSettingsDTO>> response = userController.getNotificationSettings(new Principal(user));
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(user.getNotificationSettings().getId(), response.getBody().getData().getId());
     }
 
     @Test
-    void Try_To_Get_User_Notifications_User_Does_NOt_Exist() {
-        when(userService.getNotificationSettings(123)).thenReturn(null);
-
-        ResponseEntity<BaseResponse<NotificationSettingsDTO>> response = userController.getNotificationSettings(123);
+    void Get_User_Notifications_Does_Not_Load_The_User() {
+        userController.getNotificationSettings(new Principal(user));
 
-        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(userService);
     }
+
     @Test
     void Try_To_Get_User_Notifications_User_Has_No_Notification_Settings() {
-        when(userService.getNotificationSettings(user.getId())).thenReturn(null);
+        user.setNotificationSettings(null);
 
-        ResponseEntity<BaseResponse<NotificationSettingsDTO>> response = userController.getNotificationSettings(user.getId());
+        ResponseEntity<BaseResponse<NotificationSettingsDTO>> response = userController.getNotificationSettings(new Principal(user));
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
@@ -151,7 +161,7 @@ class UserControllerTest {
         when(userService.getById(user.getId())).thenReturn(user);
         when(userService.getUsersWhoSharedWithMe(user.getId())).thenReturn(usersWhosharedWithMe);
 
-        ResponseEntity<BaseResponse<List<UserDTO>>> response = userController.getUsersWhoSharedWithMe(user.getId());
+        ResponseEntity<BaseResponse<List<UserDTO>>> response = userController.getUsersWhoSharedWithMe(user.getId(), null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(1, response.getBody().getData().size());
@@ -159,9 +169,9 @@ class UserControllerTest {
 
     @Test
     void Try_To_Get_Users_Who_Shared_With_Me_But_User_Does_Not_Exist(){
-        when(userService.getById(user.getId())).thenReturn(null);
+        when(userService.getUsersWhoSharedWithMe(user.getId())).thenThrow(new IllegalArgumentException("The user does not exist!"));
 
-        ResponseEntity<BaseResponse<List<UserDTO>>> response = userController.getUsersWhoSharedWithMe(user.getId());
+        ResponseEntity<BaseResponse<List<UserDTO>>> response = userController.getUsersWhoSharedWithMe(user.getId(), null);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
@@ -170,7 +180,7 @@ class UserControllerTest {
     void Try_To_Get_Users_Who_Shared_With_Me_But_No_One_Shared_With_Me(){
         when(userService.getById(updatedUser.getId())).thenReturn(updatedUser);
 
-        ResponseEntity<BaseResponse<List<UserDTO>>> response = userController.getUsersWhoSharedWithMe(updatedUser.getId());
+        ResponseEntity<BaseResponse<List<UserDTO>>> response = userController.getUsersWhoSharedWithMe(updatedUser.getId(), null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(0, response.getBody().getData().size());
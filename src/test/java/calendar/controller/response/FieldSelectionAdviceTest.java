@@ -0,0 +1,76 @@
+package calendar.controller.response;
+
+import calendar.controller.request.FieldSelection;
+import calendar.entities.DTO.EventPageDTO;
+import calendar.entities.DTO.EventSummaryDTO;
+import calendar.entities.enums.RoleType;
+import calendar.entities.enums.StatusType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldSelectionAdviceTest {
+
+    private FieldSelectionAdvice advice;
+
+    private List<EventSummaryDTO> events;
+
+    @BeforeEach
+    void setup() {
+        advice = new FieldSelectionAdvice(new ObjectMapper().registerModule(new JavaTimeModule()));
+
+        Instant start = Instant.parse("2026-01-01T10:00:00Z");
+        events = Arrays.asList(
+                new EventSummaryDTO(1, "title1", start, start.plusSeconds(3600), "location1", true,
+                        RoleType.ORGANIZER, StatusType.APPROVED, 3),
+                new EventSummaryDTO(2, "title2", start, start.plusSeconds(7200), "location2", false,
+                        RoleType.GUEST, StatusType.TENTATIVE, 5));
+    }
+
+    @Test
+    void Keeps_Only_The_Selected_Fields_And_The_Id() {
+        JsonNode response = advice.select(BaseResponse.success(events), "", FieldSelection.parse("title, start"));
+
+        JsonNode first = response.get("data").get(0);
+        assertEquals(3, first.size());
+        assertEquals(1, first.get("id").asInt());
+        assertEquals("title1", first.get("title").asText());
+        assertTrue(first.has("start"));
+        assertTrue(response.get("success").asBoolean());
+    }
+
+    @Test
+    void Selects_The_Events_Of_A_Page() {
+        JsonNode response = advice.select(BaseResponse.success(new EventPageDTO(events, "cursor")), "events",
+                FieldSelection.parse("title"));
+
+        assertEquals("cursor", response.get("data").get("nextCursor").asText());
+        assertEquals(2, response.get("data").get("events").get(1).size());
+    }
+
+    @Test
+    void Unknown_Fields_Are_Ignored() {
+        JsonNode response = advice.select(BaseResponse.success(Collections.singletonList(events.get(0))), "",
+                FieldSelection.parse("title,notAField"));
+
+        assertEquals(2, response.get("data").get(0).size());
+    }
+
+    @Test
+    void Missing_Fields_Select_Everything() {
+        FieldSelection selection = FieldSelection.parse(" ");
+
+        assertTrue(selection.isAll());
+        assertTrue(selection.includes("participants"));
+        assertFalse(FieldSelection.parse("title").includes("participants"));
+    }
+}
@@ -0,0 +1,95 @@
+package calendar.eventNotifications;
+
+import calendar.entities.enums.DeliveryChannel;
+import calendar.entities.enums.NotificationGetType;
+import calendar.entities.enums.NotificationType;
+import calendar.eventNotifications.entity.Notification;
+import calendar.eventNotifications.entity.NotificationRecipient;
+import calendar.eventNotifications.outbox.NotificationOutbox;
+import calendar.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class NotificationListenerTest {
+
+    private NotificationListener notificationListener;
+
+    private NotificationOutbox notificationOutbox;
+
+    @BeforeEach
+    void setup() {
+        UserService userService = mock(UserService.class);
+        notificationOutbox = mock(NotificationOutbox.class);
+
+        notificationListener = new NotificationListener();
+        notificationListener.userService = userService;
+        notificationListener.notificationOutbox = notificationOutbox;
+
+        when(userService.getNotificationRecipients(anyCollection())).thenReturn(List.of(
+                recipient(1, "popup@test.com", NotificationGetType.POPUP),
+                recipient(2, "email@test.com", NotificationGetType.EMAIL),
+                recipient(3, "none@test.com", NotificationGetType.NONE)));
+    }
+
+    @Test
+    void Event_Wide_Notification_Is_Broadcast_Once_On_The_Topic_Of_The_Event() {
+        Notification notification = newNotification(NotificationType.EVENT_CHANGED);
+        notification.setEventId(5);
+
+        notificationListener.onApplicationEvent(notification);
+
+        List<NotificationOutbox.Target> targets = enqueuedTargets();
+        List<NotificationOutbox.Target> broadcasts = targets.stream()
+                .filter(target -> target.getChannel() == DeliveryChannel.BROADCAST).collect(Collectors.toList());
+
+        assertEquals(1, broadcasts.size());
+        assertEquals("/events/5", broadcasts.get(0).getDestination());
+        assertFalse(destinations(targets).contains("/update/popup@test.com"));
+        assertTrue(destinations(targets).contains("/notifications/popup@test.com"));
+        assertTrue(destinations(targets).contains("email@test.com"));
+    }
+
+    @Test
+    void Personal_Notification_Goes_To_The_Destinations_Of_Each_User() {
+        Notification notification = newNotification(NotificationType.INVITE_GUEST);
+        notification.setEventId(5);
+
+        notificationListener.onApplicationEvent(notification);
+
+        List<NotificationOutbox.Target> targets = enqueuedTargets();
+
+        assertTrue(targets.stream().noneMatch(target -> target.getChannel() == DeliveryChannel.BROADCAST));
+        assertEquals(List.of("/update/popup@test.com", "/notifications/popup@test.com",
+                "/update/email@test.com", "email@test.com", "/update/none@test.com"), destinations(targets));
+    }
+
+    private List<NotificationOutbox.Target> enqueuedTargets() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NotificationOutbox.Target>> targets = ArgumentCaptor.forClass(List.class);
+        verify(notificationOutbox).enqueueAll(any(Notification.class), targets.capture());
+        return targets.getValue();
+    }
+
+    private static List<String> destinations(List<NotificationOutbox.Target> targets) {
+        return targets.stream().map(NotificationOutbox.Target::getDestination).collect(Collectors.toList());
+    }
+
+    private static Notification newNotification(NotificationType notificationType) {
+        return new Notification("message", "title", new ArrayList<>(List.of(1, 2, 3)), notificationType);
+    }
+
+    private static NotificationRecipient recipient(int userId, String email, NotificationGetType getType) {
+        return new NotificationRecipient(userId, email, getType, getType, getType, getType, getType, getType, getType,
+                userId);
+    }
+}
@@ -24,7 +24,8 @@ import java.time.ZonedDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -83,28 +84,28 @@ class NotificationPublisherTest {
     void publishInviteGuestNotification() {
         when(eventService.getEventById(event.getId())).thenReturn(event);
 
-        assertDoesNotThrow(() -> notificationPublisher.publishInviteGuestNotification(event.getId(),email));
+        assertDoesNotThrow(() -> notificationPublisher.publishInviteGuestNotification(event.getId(),user.getId()));
     }
 
     @Test
     void publishInviteGuestNotification_Event_Does_Not_Exist() {
         when(eventService.getEventById(event.getId())).thenReturn(null);
 
-        assertThrows(IllegalArgumentException.class,() -> notificationPublisher.publishInviteGuestNotification(event.getId(),email));
+        assertThrows(IllegalArgumentException.class,() -> notificationPublisher.publishInviteGuestNotification(event.getId(),user.getId()));
     }
 
     @Test
     void publishRemoveUserFromEventNotification() {
         when(eventService.getEventById(event.getId())).thenReturn(event);
 
-        assertDoesNotThrow(() -> notificationPublisher.publishRemoveUserFromEventNotification(event.getId(),email));
+        assertDoesNotThrow(() -> notificationPublisher.publishRemoveUserFromEventNotification(event.getId(),user.getId()));
     }
 
     @Test
     void publishRemoveUserFromEventNotification_Event_Does_Not_Exist() {
         when(eventService.getEventById(event.getId())).thenReturn(null);
 
-        assertThrows(IllegalArgumentException.class,() -> notificationPublisher.publishRemoveUserFromEventNotification(event.getId(),email));
+        assertThrows(IllegalArgumentException.class,() -> notificationPublisher.publishRemoveUserFromEventNotification(event.getId(),user.getId()));
     }
 
 
@@ -149,7 +150,6 @@ class NotificationPublisherTest {
     void publishUserRoleChangedNotification() {
         when(eventService.getEventById(event.getId())).thenReturn(event);
         when(eventService.getSpecificRole(user.getId(), event.getId())).thenReturn(role);
-        when(userService.getById(user.getId())).thenReturn(user);
 
         assertDoesNotThrow(() -> notificationPublisher.publishUserRoleChangedNotification(event.getId(),user.getId()));
     }
@@ -172,17 +172,17 @@ class NotificationPublisherTest {
     }
 
     @Test
-    void publishUserRoleChangedNotification_User_Does_Not_Exist() {
+    void publishUserRoleChangedNotification_Does_Not_Load_The_User() {
         when(eventService.getEventById(event.getId())).thenReturn(event);
         when(eventService.getSpecificRole(user.getId(), event.getId())).thenReturn(role);
-        when(userService.getById(user.getId())).thenReturn(null);
 
-        assertThrows(NullPointerException.class,() -> notificationPublisher.publishUserRoleChangedNotification(
+        assertDoesNotThrow(() -> notificationPublisher.publishUserRoleChangedNotification(
                 event.getId(),user.getId()));
+        verify(userService, never()).getById(anyInt());
     }
 
     @Test
     void publishRegistrationNotification() {
-        assertDoesNotThrow(() -> notificationPublisher.publishRegistrationNotification(email));
+        assertDoesNotThrow(() -> notificationPublisher.publishRegistrationNotification(user.getId()));
     }
 }
\ No newline at end of file
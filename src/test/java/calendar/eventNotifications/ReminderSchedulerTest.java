@@ -0,0 +1,170 @@
+package calendar.eventNotifications;
+
+import calendar.entities.Event;
+import calendar.entities.NotificationSettings;
+import calendar.entities.ReminderDue;
+import calendar.entities.Role;
+import calendar.entities.User;
+import calendar.entities.enums.NotificationGetType;
+import calendar.entities.enums.NotificationRange;
+import calendar.entities.enums.RoleType;
+import calendar.entities.enums.StatusType;
+import calendar.repository.EventRepository;
+import calendar.repository.ReminderDueRepository;
+import calendar.stub.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class ReminderSchedulerTest {
+
+    private static final long SWEEP_INTERVAL = 24 * 60 * 60 * 1000;
+    private static final long HOUR = 60 * 60 * 1000;
+
+    private MutableClock clock;
+    private ReminderDueRepository reminderDueRepository;
+    private ReminderScheduler reminderScheduler;
+    private Event event;
+    private Role role;
+    private NotificationSettings notificationSettings;
+
+    @BeforeEach
+    void setup() {
+        User user = new User();
+        user.setId(1);
+        notificationSettings = new NotificationSettings(user);
+        user.setNotificationSettings(notificationSettings);
+
+        role = new Role(user, StatusType.APPROVED, RoleType.GUEST);
+
+        event = Event.getNewEvent(true, ZonedDateTime.now().plusDays(2), 1.0f, "location", "title", "description", null);
+        event.setId(1);
+        event.AddRole(role);
+
+        clock = new MutableClock();
+        reminderDueRepository = mock(ReminderDueRepository.class);
+        when(reminderDueRepository.findByEventId(anyInt())).thenReturn(Collections.emptyList());
+        reminderScheduler = new ReminderScheduler(SWEEP_INTERVAL, clock);
+        ReflectionTestUtils.setField(reminderScheduler, "eventRepository", mock(EventRepository.class));
+        ReflectionTestUtils.setField(reminderScheduler, "reminderDueRepository", reminderDueRepository);
+    }
+
+    @Test
+    void Reminder_Time_Is_Before_The_Event_By_The_Range() {
+        notificationSettings.setNotificationRange(NotificationRange.ONE_HOUR);
+
+        assertEquals(event.getTime().toInstant().minus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS),
+                ReminderScheduler.getReminderTime(event, role));
+    }
+
+    @Test
+    void No_Reminder_When_User_Does_Not_Want_Upcoming_Events() {
+        notificationSettings.setUpcoming_event(NotificationGetType.NONE);
+
+        assertNull(ReminderScheduler.getReminderTime(event, role));
+    }
+
+    @Test
+    void No_Reminder_When_User_Left_The_Event() {
+        role.setShownInMyCalendar(false);
+
+        assertNull(ReminderScheduler.getReminderTime(event, role));
+    }
+
+    @Test
+    void First_Poll_Sweeps_The_Table_Once() {
+        assertTrue(reminderScheduler.pollDue());
+        assertFalse(reminderScheduler.pollDue());
+
+        clock.advance(SWEEP_INTERVAL);
+
+        assertTrue(reminderScheduler.pollDue());
+    }
+
+    @Test
+    void Scheduled_Reminder_Is_Due_From_The_Wheel_At_Its_Time() {
+        reminderScheduler.pollDue();
+        reminderScheduler.scheduleEvent(eventInHours(2));
+
+        verify(reminderDueRepository).save(any(ReminderDue.class));
+
+        clock.advance(HOUR - 1000);
+        assertFalse(reminderScheduler.pollDue());
+
+        clock.advance(2000);
+        assertTrue(reminderScheduler.pollDue());
+        assertFalse(reminderScheduler.pollDue());
+    }
+
+    @Test
+    void Cancelled_Reminder_Leaves_The_Wheel() {
+        reminderScheduler.pollDue();
+        reminderScheduler.scheduleEvent(eventInHours(2));
+        reminderScheduler.cancel(1, 1);
+
+        clock.advance(2 * HOUR);
+
+        assertFalse(reminderScheduler.pollDue());
+        verify(reminderDueRepository).deleteByEventIdAndUserId(1, 1);
+    }
+
+    @Test
+    void Sent_Reminder_Is_Not_Put_Back_In_The_Wheel() {
+        Event upcomingEvent = eventInHours(2);
+        ReminderDue sentReminder = new ReminderDue(1, 1, ReminderScheduler.getReminderTime(upcomingEvent, role));
+        sentReminder.setSentAt(clock.instant());
+        when(reminderDueRepository.findByEventId(1)).thenReturn(Collections.singletonList(sentReminder));
+        reminderScheduler.pollDue();
+
+        reminderScheduler.scheduleEvent(upcomingEvent);
+        clock.advance(2 * HOUR);
+
+        assertFalse(reminderScheduler.pollDue());
+        verify(reminderDueRepository, never()).save(any(ReminderDue.class));
+    }
+
+    @Test
+    void Reminder_Whose_Time_Passed_Triggers_A_Sweep() {
+        reminderScheduler.pollDue();
+
+        // the reminder is an hour before an event which starts in 30 minutes.
+        reminderScheduler.scheduleEvent(eventInHours(0.5));
+
+        assertTrue(reminderScheduler.pollDue());
+    }
+
+    @Test
+    void Claimed_Reminders_Are_Sent_And_Leave_The_Wheel() {
+        Event upcomingEvent = eventInHours(2);
+        ReminderDue reminderDue = new ReminderDue(1, 1, ReminderScheduler.getReminderTime(upcomingEvent, role));
+        when(reminderDueRepository.claimDueReminders(any(Instant.class), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(reminderDue));
+        reminderScheduler.pollDue();
+        reminderScheduler.scheduleEvent(upcomingEvent);
+
+        int dispatched = reminderScheduler.dispatchDueReminders(reminder -> assertSame(reminderDue, reminder));
+        clock.advance(2 * HOUR);
+
+        assertEquals(1, dispatched);
+        assertEquals(clock.instant().minus(2, ChronoUnit.HOURS), reminderDue.getSentAt());
+        assertFalse(reminderScheduler.pollDue());
+    }
+
+    private Event eventInHours(double hours) {
+        notificationSettings.setNotificationRange(NotificationRange.ONE_HOUR);
+        event.setTime(ZonedDateTime.ofInstant(clock.instant(), ZoneOffset.UTC).plusMinutes((long) (hours * 60)));
+        return event;
+    }
+}
@@ -0,0 +1,149 @@
+package calendar.eventNotifications.delivery;
+
+import calendar.entities.DTO.DeliveryLaneStatsDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeliveryLaneTest {
+
+    private DeliveryLane lane;
+
+    @AfterEach
+    void tearDown() {
+        lane.shutdown(1000);
+    }
+
+    @Test
+    void Tasks_Run_Off_The_Publishing_Thread() throws InterruptedException {
+        lane = new DeliveryLane("test", 1, 10, DeliveryLane.RejectionPolicy.ABORT);
+        Thread publisher = Thread.currentThread();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread[] worker = new Thread[1];
+
+        lane.submit(() -> {
+            worker[0] = Thread.currentThread();
+            done.countDown();
+        });
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertNotEquals(publisher, worker[0]);
+    }
+
+    @Test
+    void Failed_Task_Is_Counted_And_Not_Thrown() throws InterruptedException {
+        lane = new DeliveryLane("test", 1, 10, DeliveryLane.RejectionPolicy.ABORT);
+
+        assertDoesNotThrow(() -> lane.submit(() -> {
+            throw new IllegalStateException("mail server is down");
+        }));
+        lane.shutdown(1000);
+
+        DeliveryLaneStatsDTO stats = lane.getStats();
+        assertEquals(1, stats.getFailed());
+        assertEquals(1, stats.getCompleted());
+    }
+
+    @Test
+    void Full_Queue_Applies_The_Rejection_Policy() throws InterruptedException {
+        lane = new DeliveryLane("test", 1, 1, DeliveryLane.RejectionPolicy.DISCARD);
+        CountDownLatch release = new CountDownLatch(1);
+
+        lane.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        lane.submit(() -> { });
+        lane.submit(() -> { });
+        release.countDown();
+        lane.shutdown(1000);
+
+        assertEquals(1, lane.getStats().getRejected());
+    }
+
+    @Test
+    void Dropped_Tasks_Fail_Their_Future() throws Exception {
+        lane = new DeliveryLane("test", 1, 1, DeliveryLane.RejectionPolicy.DISCARD_OLDEST);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> running = lane.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<Void> oldest = lane.submit(() -> { });
+        CompletableFuture<Void> newest = lane.submit(() -> { });
+
+        ExecutionException discarded = assertThrows(ExecutionException.class, () -> oldest.get(1, TimeUnit.SECONDS));
+        assertTrue(discarded.getCause() instanceof RejectedExecutionException);
+
+        release.countDown();
+        assertDoesNotThrow(() -> running.get(1, TimeUnit.SECONDS));
+        assertDoesNotThrow(() -> newest.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void Rejected_Task_Fails_Its_Future() {
+        lane = new DeliveryLane("test", 1, 1, DeliveryLane.RejectionPolicy.DISCARD);
+        CountDownLatch release = new CountDownLatch(1);
+
+        lane.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        lane.submit(() -> { });
+        CompletableFuture<Void> rejected = lane.submit(() -> { });
+
+        assertTrue(rejected.isCompletedExceptionally());
+        release.countDown();
+    }
+
+    @Test
+    void Remaining_Capacity_Counts_The_Idle_Workers_And_The_Free_Queue() throws Exception {
+        lane = new DeliveryLane("test", 2, 3, DeliveryLane.RejectionPolicy.ABORT);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertEquals(5, lane.getRemainingCapacity());
+
+        lane.submit(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        assertEquals(4, lane.getRemainingCapacity());
+        release.countDown();
+    }
+
+    @Test
+    void Failed_Task_Fails_Its_Future() {
+        lane = new DeliveryLane("test", 1, 10, DeliveryLane.RejectionPolicy.ABORT);
+
+        CompletableFuture<Void> result = lane.submit(() -> {
+            throw new IllegalStateException("mail server is down");
+        });
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+    }
+}
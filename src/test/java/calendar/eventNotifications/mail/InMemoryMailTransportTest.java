@@ -0,0 +1,37 @@
+package calendar.eventNotifications.mail;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryMailTransportTest {
+
+    @Test
+    void Send_Keeps_The_Email() {
+        InMemoryMailTransport transport = new InMemoryMailTransport(10);
+
+        transport.send("user@gmail.com", "subject", "message");
+
+        List<InMemoryMailTransport.SentMail> sentMails = transport.getSentMails();
+        assertEquals(1, sentMails.size());
+        assertEquals("user@gmail.com", sentMails.get(0).getEmailAddress());
+        assertEquals("subject", sentMails.get(0).getSubject());
+        assertEquals("message", sentMails.get(0).getMessage());
+    }
+
+    @Test
+    void Send_Over_Capacity_Keeps_Only_The_Last_Emails() {
+        InMemoryMailTransport transport = new InMemoryMailTransport(2);
+
+        for (int i = 0; i < 5; i++) {
+            transport.send("user" + i + "@gmail.com", "subject", "message");
+        }
+
+        List<InMemoryMailTransport.SentMail> sentMails = transport.getSentMails();
+        assertEquals(5, transport.getSentCount());
+        assertEquals(2, sentMails.size());
+        assertEquals("user4@gmail.com", sentMails.get(1).getEmailAddress());
+    }
+}
@@ -0,0 +1,194 @@
+package calendar.eventNotifications.outbox;
+
+import calendar.entities.OutboxMessage;
+import calendar.entities.enums.DeliveryChannel;
+import calendar.entities.enums.NotificationType;
+import calendar.entities.enums.OutboxStatus;
+import calendar.eventNotifications.entity.Notification;
+import calendar.eventNotifications.outbox.NotificationOutbox.Target;
+import calendar.stub.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationOutboxTest {
+
+    private static final Duration BASE = Duration.ofSeconds(2);
+    private static final Duration MAX = Duration.ofMinutes(10);
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long LEASE = 60_000;
+    private static final List<DeliveryChannel> CHANNELS = List.of(DeliveryChannel.EMAIL);
+
+    private MutableClock clock;
+
+    private OutboxMessageTable table;
+
+    private NotificationOutbox outbox;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock();
+        table = new OutboxMessageTable();
+        outbox = new NotificationOutbox(MAX_ATTEMPTS, BASE.toMillis(), MAX.toMillis(), LEASE, clock);
+        ReflectionTestUtils.setField(outbox, "outboxMessageRepository", table.repository);
+    }
+
+    @Test
+    void Backoff_Doubles_With_Every_Attempt() {
+        assertBetween(1600, 2000, NotificationOutbox.getBackoff(1, BASE, MAX));
+        assertBetween(3200, 4000, NotificationOutbox.getBackoff(2, BASE, MAX));
+        assertBetween(6400, 8000, NotificationOutbox.getBackoff(3, BASE, MAX));
+    }
+
+    @Test
+    void Backoff_Is_Capped() {
+        assertBetween(480_000, 600_000, NotificationOutbox.getBackoff(12, BASE, MAX));
+        assertBetween(480_000, 600_000, NotificationOutbox.getBackoff(Integer.MAX_VALUE, BASE, MAX));
+    }
+
+    @Test
+    void Enqueue_Skips_Targets_Already_In_The_Outbox() {
+        Notification notification = newNotification();
+
+        outbox.enqueueAll(notification, List.of(Target.email("a@test.com"), Target.email("a@test.com")));
+        outbox.enqueueAll(notification, List.of(Target.email("a@test.com"), Target.popup("b@test.com", "/update/b@test.com")));
+
+        List<String> keys = table.rows().stream().map(OutboxMessage::getIdempotencyKey).collect(Collectors.toList());
+        assertEquals(List.of(notification.getKey() + ":EMAIL:a@test.com",
+                notification.getKey() + ":POPUP:/update/b@test.com"), keys);
+    }
+
+    @Test
+    void Claim_Fail_Retry_And_Dead_Letter() {
+        OutboxMessage message = enqueueOne();
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            assertEquals(List.of(message), outbox.claim(CHANNELS, 10));
+            assertEquals(OutboxStatus.IN_FLIGHT, message.getStatus());
+            assertEquals(attempt, message.getAttempts());
+
+            outbox.markFailed(message.getId(), message.getAttempts(), new RuntimeException("provider down"));
+
+            if (attempt < MAX_ATTEMPTS) {
+                assertEquals(OutboxStatus.PENDING, message.getStatus());
+                assertTrue(outbox.claim(CHANNELS, 10).isEmpty(), "retried before its backoff");
+                clock.advance(NotificationOutbox.getBackoff(attempt, BASE, MAX).toMillis() * 2);
+            }
+        }
+
+        assertEquals(OutboxStatus.DEAD, message.getStatus());
+        assertTrue(message.getLastError().contains("provider down"));
+
+        clock.advance(MAX.toMillis());
+        assertTrue(outbox.claim(CHANNELS, 10).isEmpty());
+    }
+
+    @Test
+    void Retry_That_Is_Sent_Is_Not_Claimed_Again() {
+        OutboxMessage message = enqueueOne();
+
+        outbox.claim(CHANNELS, 10);
+        outbox.markFailed(message.getId(), message.getAttempts(), new RuntimeException("provider down"));
+        clock.advance(BASE.toMillis());
+        outbox.claim(CHANNELS, 10);
+        outbox.markSent(message.getId());
+
+        assertEquals(OutboxStatus.SENT, message.getStatus());
+        assertEquals(2, message.getAttempts());
+        assertNull(message.getLastError());
+
+        clock.advance(LEASE * 2);
+        assertTrue(outbox.claim(CHANNELS, 10).isEmpty());
+    }
+
+    @Test
+    void Expired_Lease_Is_Claimed_Again() {
+        OutboxMessage message = enqueueOne();
+
+        outbox.claim(CHANNELS, 10);
+
+        clock.advance(LEASE - 1);
+        assertTrue(outbox.claim(CHANNELS, 10).isEmpty(), "claimed while the lease is held");
+
+        clock.advance(1);
+        assertEquals(List.of(message), outbox.claim(CHANNELS, 10));
+        assertEquals(OutboxStatus.IN_FLIGHT, message.getStatus());
+        assertEquals(2, message.getAttempts());
+        assertEquals(clock.instant().plusMillis(LEASE), message.getNextAttemptAt());
+    }
+
+    @Test
+    void Lease_That_Expires_On_The_Last_Attempt_Is_Dead_Lettered() {
+        OutboxMessage message = enqueueOne();
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            assertEquals(List.of(message), outbox.claim(CHANNELS, 10));
+            clock.advance(LEASE);
+        }
+
+        assertTrue(outbox.claim(CHANNELS, 10).isEmpty());
+        assertEquals(OutboxStatus.DEAD, message.getStatus());
+        assertEquals(MAX_ATTEMPTS, message.getAttempts());
+    }
+
+    @Test
+    void Lease_Is_Renewed_When_The_Delivery_Starts() {
+        OutboxMessage message = enqueueOne();
+
+        outbox.claim(CHANNELS, 10);
+        clock.advance(LEASE - 1);
+
+        assertTrue(outbox.renewLease(message.getId(), 1));
+        clock.advance(LEASE - 1);
+        assertTrue(outbox.claim(CHANNELS, 10).isEmpty(), "claimed while the renewed lease is held");
+    }
+
+    @Test
+    void Claim_Lost_While_Waiting_Is_Not_Renewed_Or_Failed() {
+        OutboxMessage message = enqueueOne();
+
+        outbox.claim(CHANNELS, 10);
+        clock.advance(LEASE);
+        outbox.claim(CHANNELS, 10);
+
+        assertFalse(outbox.renewLease(message.getId(), 1));
+        outbox.markFailed(message.getId(), 1, new RuntimeException("stale delivery"));
+        assertEquals(OutboxStatus.IN_FLIGHT, message.getStatus());
+        assertNull(message.getLastError());
+
+        assertTrue(outbox.renewLease(message.getId(), 2));
+    }
+
+    @Test
+    void Claim_Only_Takes_The_Given_Channels() {
+        enqueueOne();
+
+        assertTrue(outbox.claim(List.of(DeliveryChannel.POPUP, DeliveryChannel.BROADCAST), 10).isEmpty());
+        assertEquals(1, outbox.claim(CHANNELS, 10).size());
+    }
+
+    private OutboxMessage enqueueOne() {
+        outbox.enqueueAll(newNotification(), List.of(Target.email("a@test.com")));
+
+        OutboxMessage message = table.rows().iterator().next();
+        assertEquals(DeliveryChannel.EMAIL, message.getChannel());
+        assertEquals(OutboxStatus.PENDING, message.getStatus());
+        return message;
+    }
+
+    static Notification newNotification() {
+        return new Notification("message", "title", new ArrayList<>(), NotificationType.EVENT_CHANGED);
+    }
+
+    private static void assertBetween(long minMs, long maxMs, Duration backoff) {
+        assertTrue(backoff.toMillis() >= minMs && backoff.toMillis() <= maxMs, backoff.toString());
+    }
+}
@@ -0,0 +1,85 @@
+package calendar.eventNotifications.outbox;
+
+import calendar.entities.OutboxMessage;
+import calendar.entities.enums.DeliveryChannel;
+import calendar.entities.enums.OutboxStatus;
+import calendar.repository.OutboxMessageRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The notification_outbox table in memory, behind a mocked OutboxMessageRepository which answers the queries
+ * the outbox uses the way the database does.
+ */
+class OutboxMessageTable {
+
+    private final Map<Long, OutboxMessage> rows = new LinkedHashMap<>();
+
+    private long nextId = 1;
+
+    final OutboxMessageRepository repository = mock(OutboxMessageRepository.class);
+
+    @SuppressWarnings("unchecked")
+    OutboxMessageTable() {
+        when(repository.findById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(rows.get((Long) invocation.getArgument(0))));
+
+        when(repository.findExistingKeys(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            return rows.values().stream().map(OutboxMessage::getIdempotencyKey).filter(keys::contains)
+                    .collect(Collectors.toList());
+        });
+
+        when(repository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<OutboxMessage> saved = new ArrayList<>();
+            for (OutboxMessage message : (Iterable<OutboxMessage>) invocation.getArgument(0)) {
+                insert(message);
+                saved.add(message);
+            }
+            return saved;
+        });
+
+        when(repository.claimReady(anyCollection(), anyCollection(), any(Instant.class), any(Pageable.class))).thenAnswer(invocation -> {
+            Collection<OutboxStatus> statuses = invocation.getArgument(0);
+            Collection<DeliveryChannel> channels = invocation.getArgument(1);
+            Instant now = invocation.getArgument(2);
+            Pageable pageable = invocation.getArgument(3);
+
+            return rows.values().stream()
+                    .filter(message -> statuses.contains(message.getStatus()) && channels.contains(message.getChannel())
+                            && !message.getNextAttemptAt().isAfter(now))
+                    .sorted(Comparator.comparing(OutboxMessage::getNextAttemptAt))
+                    .limit(pageable.getPageSize())
+                    .collect(Collectors.toCollection(ArrayList::new));
+        });
+
+        when(repository.renewLease(anyLong(), anyInt(), any(OutboxStatus.class), any(Instant.class))).thenAnswer(invocation -> {
+            OutboxMessage message = rows.get((Long) invocation.getArgument(0));
+
+            if (message == null || message.getAttempts() != (int) invocation.getArgument(1)
+                    || message.getStatus() != invocation.getArgument(2)) {
+                return 0;
+            }
+
+            message.setNextAttemptAt(invocation.getArgument(3));
+            return 1;
+        });
+    }
+
+    OutboxMessage insert(OutboxMessage message) {
+        ReflectionTestUtils.setField(message, "id", nextId++);
+        rows.put(message.getId(), message);
+        return message;
+    }
+
+    Collection<OutboxMessage> rows() {
+        return rows.values();
+    }
+}
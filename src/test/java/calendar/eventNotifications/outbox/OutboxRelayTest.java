@@ -0,0 +1,174 @@
+package calendar.eventNotifications.outbox;
+
+import calendar.entities.OutboxMessage;
+import calendar.entities.enums.DeliveryChannel;
+import calendar.entities.enums.OutboxStatus;
+import calendar.eventNotifications.delivery.DeliveryLane;
+import calendar.eventNotifications.delivery.NotificationDelivery;
+import calendar.eventNotifications.mail.MailTransport;
+import calendar.eventNotifications.outbox.NotificationOutbox.Target;
+import calendar.stub.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private static final int MAX_ATTEMPTS = 2;
+    private static final long LEASE = 60_000;
+
+    private MutableClock clock;
+
+    private OutboxMessageTable table;
+
+    private NotificationOutbox outbox;
+
+    private NotificationDelivery notificationDelivery;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock();
+        table = new OutboxMessageTable();
+        outbox = new NotificationOutbox(MAX_ATTEMPTS, 2000, 600_000, LEASE, clock);
+        ReflectionTestUtils.setField(outbox, "outboxMessageRepository", table.repository);
+
+        notificationDelivery = mock(NotificationDelivery.class);
+        when(notificationDelivery.getRemainingCapacity(any(DeliveryChannel.class))).thenReturn(100);
+        relay = newRelay(notificationDelivery);
+    }
+
+    @Test
+    void Delivered_Message_Is_Marked_Sent() {
+        when(notificationDelivery.sendPopup(anyString(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        outbox.enqueueAll(NotificationOutboxTest.newNotification(), List.of(Target.popup("a@test.com", "/update/a@test.com")));
+
+        assertEquals(1, relay.relayBatch());
+
+        OutboxMessage message = table.rows().iterator().next();
+        assertEquals(OutboxStatus.SENT, message.getStatus());
+        verify(notificationDelivery).sendPopup(eq("/update/a@test.com"), any(), any());
+        assertEquals(0, relay.relayBatch());
+    }
+
+    @Test
+    void Failed_Delivery_Is_Retried_Then_Dead_Lettered() {
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("smtp down"));
+        when(notificationDelivery.sendEmail(anyString(), anyString(), anyString(), any())).thenReturn(failed);
+        outbox.enqueueAll(NotificationOutboxTest.newNotification(), List.of(Target.email("a@test.com")));
+        OutboxMessage message = table.rows().iterator().next();
+
+        assertEquals(1, relay.relayBatch());
+        assertEquals(OutboxStatus.PENDING, message.getStatus());
+        assertEquals(0, relay.relayBatch());
+
+        clock.advance(600_000);
+        assertEquals(1, relay.relayBatch());
+        assertEquals(OutboxStatus.DEAD, message.getStatus());
+
+        clock.advance(600_000);
+        assertEquals(0, relay.relayBatch());
+        verify(notificationDelivery, times(MAX_ATTEMPTS)).sendEmail(eq("a@test.com"), eq("title"), eq("message"), any());
+    }
+
+    @Test
+    void Message_Refused_By_The_Lane_Waits_For_Its_Backoff() {
+        when(notificationDelivery.sendEmail(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new RejectedExecutionException("lane is full"));
+        outbox.enqueueAll(NotificationOutboxTest.newNotification(), List.of(Target.email("a@test.com")));
+
+        assertEquals(1, relay.relayBatch());
+
+        OutboxMessage message = table.rows().iterator().next();
+        assertEquals(OutboxStatus.PENDING, message.getStatus());
+        assertTrue(message.getLastError().contains("lane is full"));
+        assertTrue(message.getNextAttemptAt().isAfter(clock.instant()));
+    }
+
+    @Test
+    void Relay_Claims_No_More_Than_The_Lane_Has_Room_For() {
+        when(notificationDelivery.getRemainingCapacity(DeliveryChannel.EMAIL)).thenReturn(1);
+        when(notificationDelivery.sendEmail(anyString(), anyString(), anyString(), any())).thenReturn(new CompletableFuture<>());
+        outbox.enqueueAll(NotificationOutboxTest.newNotification(),
+                List.of(Target.email("a@test.com"), Target.email("b@test.com"), Target.email("c@test.com")));
+
+        assertEquals(1, relay.relayBatch());
+        assertEquals(2, table.rows().stream().filter(message -> message.getStatus() == OutboxStatus.PENDING).count());
+
+        when(notificationDelivery.getRemainingCapacity(DeliveryChannel.EMAIL)).thenReturn(0);
+        assertEquals(0, relay.relayBatch());
+        verify(notificationDelivery, times(1)).sendEmail(anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void Message_That_Waited_Past_Its_Lease_Is_Delivered_Once() throws Exception {
+        MailTransport mailTransport = mock(MailTransport.class);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(mailTransport).send(eq("a@test.com"), anyString(), anyString());
+
+        NotificationDelivery delivery = new NotificationDelivery(1, 10, DeliveryLane.RejectionPolicy.ABORT,
+                1, 10, DeliveryLane.RejectionPolicy.ABORT);
+        ReflectionTestUtils.setField(delivery, "mailTransport", mailTransport);
+        relay = newRelay(delivery);
+
+        outbox.enqueueAll(NotificationOutboxTest.newNotification(), List.of(Target.email("a@test.com")));
+        outbox.enqueueAll(NotificationOutboxTest.newNotification(), List.of(Target.email("b@test.com")));
+        OutboxMessage waiting = table.rows().stream().filter(message -> message.getDestination().equals("b@test.com"))
+                .findFirst().orElseThrow(IllegalStateException::new);
+
+        // a blocks the only worker, b waits in the queue until its lease expires and is claimed again.
+        assertEquals(2, relay.relayBatch());
+        verify(mailTransport, timeout(1000)).send(eq("a@test.com"), anyString(), anyString());
+        clock.advance(LEASE);
+        relay.relayBatch();
+        assertEquals(2, waiting.getAttempts());
+
+        release.countDown();
+        delivery.shutdown();
+
+        verify(mailTransport, times(1)).send(eq("b@test.com"), anyString(), anyString());
+        assertEquals(OutboxStatus.SENT, waiting.getStatus());
+    }
+
+    @Test
+    void Relay_Runs_On_Its_Own_Thread() throws Exception {
+        String[] relayThread = new String[1];
+        CountDownLatch sent = new CountDownLatch(1);
+        when(notificationDelivery.sendEmail(anyString(), anyString(), anyString(), any())).thenAnswer(invocation -> {
+            relayThread[0] = Thread.currentThread().getName();
+            sent.countDown();
+            return CompletableFuture.completedFuture(null);
+        });
+        outbox.enqueueAll(NotificationOutboxTest.newNotification(), List.of(Target.email("a@test.com")));
+
+        relay.start();
+        try {
+            assertTrue(sent.await(5, TimeUnit.SECONDS));
+        } finally {
+            relay.shutdown();
+        }
+
+        assertEquals("outbox-relay", relayThread[0]);
+    }
+
+    private OutboxRelay newRelay(NotificationDelivery delivery) {
+        OutboxRelay outboxRelay = new OutboxRelay(10);
+        ReflectionTestUtils.setField(outboxRelay, "notificationOutbox", outbox);
+        ReflectionTestUtils.setField(outboxRelay, "notificationDelivery", delivery);
+        return outboxRelay;
+    }
+}
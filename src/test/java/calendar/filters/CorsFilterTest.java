@@ -0,0 +1,93 @@
+package calendar.filters;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorsFilterTest {
+
+    private CorsFilter corsFilter;
+
+    private MockHttpServletResponse response;
+    private MockFilterChain filterChain;
+
+    @BeforeEach
+    void setup() {
+        corsFilter = new CorsFilter(Arrays.asList("http://localhost:9000", " https://*.calendar.com"), "*", 600_000);
+
+        response = new MockHttpServletResponse();
+        filterChain = new MockFilterChain();
+    }
+
+    @Test
+    void Preflight_Of_Allowed_Origin_Is_Answered_With_Max_Age() throws Exception {
+        corsFilter.doFilter(preflight("http://localhost:9000"), response, filterChain);
+
+        assertEquals(202, response.getStatus());
+        assertEquals("http://localhost:9000", response.getHeader("Access-Control-Allow-Origin"));
+        assertEquals(CorsFilter.ALLOWED_METHODS, response.getHeader("Access-Control-Allow-Methods"));
+        assertEquals("600", response.getHeader("Access-Control-Max-Age"));
+        assertNull(filterChain.getRequest());
+    }
+
+    @Test
+    void Preflight_Of_Other_Origin_Is_Forbidden() throws Exception {
+        corsFilter.doFilter(preflight("http://evil.com"), response, filterChain);
+
+        assertEquals(403, response.getStatus());
+        assertNull(response.getHeader("Access-Control-Allow-Origin"));
+        assertNull(filterChain.getRequest());
+    }
+
+    @Test
+    void Request_Of_Allowed_Origin_Gets_Headers_And_Goes_On() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/event/getEventById");
+        request.addHeader("Origin", "http://localhost:9000");
+
+        corsFilter.doFilter(request, response, filterChain);
+
+        assertEquals("http://localhost:9000", response.getHeader("Access-Control-Allow-Origin"));
+        assertEquals("true", response.getHeader("Access-Control-Allow-Credentials"));
+        assertEquals("Origin", response.getHeader("Vary"));
+        assertNull(response.getHeader("Access-Control-Max-Age"));
+        assertNotNull(filterChain.getRequest());
+    }
+
+    @Test
+    void Request_Without_Origin_Goes_On_Untouched() throws Exception {
+        corsFilter.doFilter(new MockHttpServletRequest("OPTIONS", "/event/inviteGuest"), response, filterChain);
+
+        assertTrue(response.getHeaderNames().isEmpty());
+        assertNotNull(filterChain.getRequest());
+    }
+
+    @Test
+    void Wildcard_Matches_Subdomains_Only() {
+        assertTrue(corsFilter.isAllowed("https://app.calendar.com"));
+        assertTrue(corsFilter.isAllowed("https://eu.app.calendar.com"));
+        assertFalse(corsFilter.isAllowed("https://calendar.com"));
+        assertFalse(corsFilter.isAllowed("http://app.calendar.com"));
+        assertFalse(corsFilter.isAllowed("https://evil.com/.calendar.com"));
+        assertFalse(corsFilter.isAllowed("https://app.calendar.com.evil.com"));
+    }
+
+    @Test
+    void Wildcard_Must_Be_A_Subdomain() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new CorsFilter(Collections.singletonList("https://app.*.com"), "*", 0));
+    }
+
+    private static MockHttpServletRequest preflight(String origin) {
+        MockHttpServletRequest request = new MockHttpServletRequest("OPTIONS", "/event/inviteGuest");
+        request.addHeader("Origin", origin);
+        request.addHeader("Access-Control-Request-Method", "POST");
+        return request;
+    }
+}
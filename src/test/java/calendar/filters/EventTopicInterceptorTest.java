@@ -0,0 +1,111 @@
+package calendar.filters;
+
+import calendar.entities.RoleGrant;
+import calendar.entities.enums.RoleType;
+import calendar.entities.enums.StatusType;
+import calendar.service.AuthService;
+import calendar.service.RoleGrantCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class EventTopicInterceptorTest {
+
+    private static final String SESSION = "session1";
+
+    private RoleGrantCache roleGrantCache;
+    private EventTopicInterceptor interceptor;
+    private MessageChannel channel;
+
+    @BeforeEach
+    void setup() {
+        AuthService authService = mock(AuthService.class);
+        roleGrantCache = mock(RoleGrantCache.class);
+        channel = mock(MessageChannel.class);
+        interceptor = new EventTopicInterceptor(authService, roleGrantCache);
+
+        when(authService.getUserIdByToken(anyString())).thenReturn(Optional.empty());
+        when(authService.getUserIdByToken("testToken")).thenReturn(Optional.of(7));
+        when(roleGrantCache.get(anyInt(), anyInt())).thenReturn(Optional.empty());
+        when(roleGrantCache.get(7, 3)).thenReturn(Optional.of(new RoleGrant(RoleType.GUEST, StatusType.APPROVED)));
+    }
+
+    @Test
+    void Participant_May_Subscribe_To_The_Topic_Of_The_Event() {
+        connect("testToken");
+
+        Message<?> subscribe = subscribe("/events/3");
+
+        assertSame(subscribe, interceptor.preSend(subscribe, channel));
+    }
+
+    @Test
+    void User_Who_Is_Not_Part_Of_The_Event_May_Not_Subscribe() {
+        connect("testToken");
+
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(subscribe("/events/4"), channel));
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(subscribe("/events/x"), channel));
+    }
+
+    @Test
+    void Session_Without_A_Valid_Token_May_Not_Subscribe_To_Events() {
+        connect("wrongToken");
+
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(subscribe("/events/3"), channel));
+        verify(roleGrantCache, never()).get(anyInt(), anyInt());
+    }
+
+    @Test
+    void Disconnected_Session_Is_Forgotten() {
+        connect("testToken");
+        interceptor.preSend(frame(StompHeaderAccessor.create(StompCommand.DISCONNECT)), channel);
+
+        assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(subscribe("/events/3"), channel));
+    }
+
+    @Test
+    void Pattern_Subscriptions_Are_Rejected() {
+        connect("testToken");
+
+        for (String pattern : new String[]{"/**", "/*/3", "/events/*", "/ev?nts/3", "/{topic}/3", "/update/*"}) {
+            assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(subscribe(pattern), channel), pattern);
+        }
+    }
+
+    @Test
+    void Other_Destinations_Are_Not_Checked() {
+        Message<?> subscribe = subscribe("/update/Leon@test.com");
+
+        assertSame(subscribe, interceptor.preSend(subscribe, channel));
+    }
+
+    private void connect(String token) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setNativeHeader("token", token);
+        interceptor.preSend(frame(accessor), channel);
+    }
+
+    private static Message<?> subscribe(String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        accessor.setSubscriptionId("sub1");
+        return frame(accessor);
+    }
+
+    private static Message<?> frame(StompHeaderAccessor accessor) {
+        accessor.setSessionId(SESSION);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,118 @@
+package calendar.filters;
+
+import calendar.entities.enums.RoleType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RolePermissionRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    private RolePermissionRegistry registry;
+
+    @AfterEach
+    void shutdown() {
+        if (registry != null) {
+            registry.shutdown();
+        }
+    }
+
+    @Test
+    void No_Override_Without_A_File() throws IOException {
+        registry = new RolePermissionRegistry("");
+
+        assertSame(RolePermissions.NONE, registry.get());
+        assertNull(registry.get().getEventRoles(handler("inviteGuest")));
+        assertFalse(registry.reload());
+    }
+
+    @Test
+    void Override_File_Lists_Roles_Per_Handler() throws IOException {
+        Path file = write("TestController.inviteGuest = GUEST, ADMIN\n");
+
+        registry = new RolePermissionRegistry(file.toString());
+
+        assertEquals(EnumSet.of(RoleType.GUEST, RoleType.ADMIN), registry.get().getEventRoles(handler("inviteGuest")));
+        assertNull(registry.get().getEventRoles(handler("deleteEvent")));
+    }
+
+    @Test
+    void Reload_Swaps_In_The_Changed_File() throws IOException {
+        Path file = write("TestController.inviteGuest=ADMIN\n");
+        registry = new RolePermissionRegistry(file.toString());
+        RolePermissions before = registry.get();
+
+        write("TestController.inviteGuest=ADMIN\nTestController.deleteEvent=ADMIN\n");
+
+        assertTrue(registry.reload());
+        assertEquals(EnumSet.of(RoleType.ADMIN), registry.get().getEventRoles(handler("deleteEvent")));
+        assertNull(before.getEventRoles(handler("deleteEvent")));
+    }
+
+    @Test
+    void Broken_File_Keeps_The_Current_Permissions() throws IOException {
+        Path file = write("TestController.inviteGuest=ADMIN\n");
+        registry = new RolePermissionRegistry(file.toString());
+
+        write("TestController.inviteGuest=ADMIN\nTestController.deleteEvent=OWNER\n");
+        assertFalse(registry.reload());
+
+        write("TestController.inviteGuest=\n");
+        assertFalse(registry.reload());
+
+        assertEquals(EnumSet.of(RoleType.ADMIN), registry.get().getEventRoles(handler("inviteGuest")));
+        assertNull(registry.get().getEventRoles(handler("deleteEvent")));
+    }
+
+    @Test
+    void Watcher_Reloads_The_Changed_File() throws Exception {
+        Path file = write("TestController.inviteGuest=ADMIN\n");
+        registry = new RolePermissionRegistry(file.toString());
+
+        write("TestController.inviteGuest=GUEST\n");
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!EnumSet.of(RoleType.GUEST).equals(registry.get().getEventRoles(handler("inviteGuest")))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(EnumSet.of(RoleType.GUEST), registry.get().getEventRoles(handler("inviteGuest")));
+    }
+
+    // replaces the file at once, so the watcher never reads it half written.
+    private Path write(String content) throws IOException {
+        Path temp = Files.write(directory.resolve("rolePermissions.tmp"), content.getBytes(StandardCharsets.UTF_8));
+        return Files.move(temp, directory.resolve("rolePermissions.properties"), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Method handler(String name) {
+        try {
+            return TestController.class.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static class TestController {
+
+        public void inviteGuest() {
+        }
+
+        public void deleteEvent() {
+        }
+    }
+}
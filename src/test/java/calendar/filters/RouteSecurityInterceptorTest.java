@@ -0,0 +1,210 @@
+package calendar.filters;
+
+import calendar.controller.AuthController;
+import calendar.controller.EventController;
+import calendar.controller.NotificationDeliveryController;
+import calendar.entities.Principal;
+import calendar.entities.RoleGrant;
+import calendar.entities.User;
+import calendar.entities.enums.ProviderType;
+import calendar.entities.enums.RoleType;
+import calendar.entities.enums.StatusType;
+import calendar.service.AuthService;
+import calendar.service.PrincipalCache;
+import calendar.service.RoleGrantCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RouteSecurityInterceptorTest {
+
+    private AuthService authService;
+    private PrincipalCache principalCache;
+    private RoleGrantCache roleGrantCache;
+    private RolePermissionRegistry rolePermissionRegistry;
+    private RouteSecurityInterceptor interceptor;
+
+    private MockHttpServletResponse response;
+
+    private HandlerMethod publicHandler;
+    private HandlerMethod authenticatedHandler;
+    private HandlerMethod adminHandler;
+
+    @BeforeEach
+    void setup() throws Exception {
+        authService = mock(AuthService.class);
+        principalCache = mock(PrincipalCache.class);
+        roleGrantCache = mock(RoleGrantCache.class);
+        rolePermissionRegistry = mock(RolePermissionRegistry.class);
+        when(rolePermissionRegistry.get()).thenReturn(RolePermissions.NONE);
+        interceptor = new RouteSecurityInterceptor(authService, principalCache, roleGrantCache, rolePermissionRegistry);
+
+        TestController controller = new TestController();
+        publicHandler = new HandlerMethod(controller, TestController.class.getMethod("publicRoute"));
+        authenticatedHandler = new HandlerMethod(controller, TestController.class.getMethod("authenticatedRoute"));
+        adminHandler = new HandlerMethod(controller, TestController.class.getMethod("adminRoute"));
+        interceptor.compile(Arrays.asList(publicHandler, authenticatedHandler, adminHandler));
+
+        response = new MockHttpServletResponse();
+
+        User user = new User("Leon", "Leon@test.com", "leon1234", ProviderType.LOCAL);
+        user.setId(7);
+        when(authService.getUserIdByToken("testToken")).thenReturn(Optional.of(7));
+        when(principalCache.get(7)).thenReturn(Optional.of(new Principal(user)));
+        when(roleGrantCache.get(7, 3)).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void Public_Route_Needs_No_Token() throws Exception {
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), response, publicHandler));
+        verifyNoInteractions(authService);
+    }
+
+    @Test
+    void Attaches_The_Principal_Of_The_Token() throws Exception {
+        MockHttpServletRequest request = request("testToken");
+
+        assertTrue(interceptor.preHandle(request, response, authenticatedHandler));
+        assertEquals(7, request.getAttribute("userId"));
+        assertEquals("Leon@test.com", ((Principal) request.getAttribute("principal")).getEmail());
+        verifyNoInteractions(roleGrantCache);
+    }
+
+    @Test
+    void Missing_Token_Is_Unauthorized() throws Exception {
+        assertFalse(interceptor.preHandle(request(null), response, authenticatedHandler));
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void Token_Of_A_User_That_Does_Not_Exist_Is_Unauthorized() throws Exception {
+        when(principalCache.get(7)).thenReturn(Optional.empty());
+
+        assertFalse(interceptor.preHandle(request("testToken"), response, authenticatedHandler));
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void Allowed_Role_Is_Attached() throws Exception {
+        when(roleGrantCache.get(7, 3)).thenReturn(Optional.of(new RoleGrant(RoleType.ADMIN, StatusType.APPROVED)));
+        MockHttpServletRequest request = request("testToken");
+
+        assertTrue(interceptor.preHandle(request, response, adminHandler));
+        assertEquals(RoleType.ADMIN, request.getAttribute("roleType"));
+        assertEquals(StatusType.APPROVED, request.getAttribute("statusType"));
+    }
+
+    @Test
+    void Other_Role_Is_Unauthorized() throws Exception {
+        when(roleGrantCache.get(7, 3)).thenReturn(Optional.of(new RoleGrant(RoleType.GUEST, StatusType.APPROVED)));
+
+        assertFalse(interceptor.preHandle(request("testToken"), response, adminHandler));
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void User_Without_Role_Is_Unauthorized() throws Exception {
+        assertFalse(interceptor.preHandle(request("testToken"), response, adminHandler));
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void Invalid_Event_Id_Is_Unauthorized() throws Exception {
+        MockHttpServletRequest request = request("testToken");
+        request.setParameter("eventId", "abc");
+
+        assertFalse(interceptor.preHandle(request, response, adminHandler));
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void Override_Replaces_The_Event_Roles_Of_A_Handler() throws Exception {
+        when(roleGrantCache.get(7, 3)).thenReturn(Optional.of(new RoleGrant(RoleType.GUEST, StatusType.APPROVED)));
+        when(rolePermissionRegistry.get()).thenReturn(override("TestController.adminRoute=GUEST\n"));
+
+        assertTrue(interceptor.preHandle(request("testToken"), response, adminHandler));
+        assertEquals(EnumSet.of(RoleType.GUEST), interceptor.getPolicy(adminHandler).getEventRoles());
+        assertTrue(interceptor.getPolicy(authenticatedHandler).isAuthenticated());
+        assertFalse(interceptor.getPolicy(authenticatedHandler).isEventRoleChecked());
+    }
+
+    @Test
+    void Reloaded_Override_Applies_To_The_Next_Request() throws Exception {
+        when(roleGrantCache.get(7, 3)).thenReturn(Optional.of(new RoleGrant(RoleType.ADMIN, StatusType.APPROVED)));
+        assertTrue(interceptor.preHandle(request("testToken"), response, adminHandler));
+
+        when(rolePermissionRegistry.get()).thenReturn(override("TestController.adminRoute=ORGANIZER\n"));
+        assertFalse(interceptor.preHandle(request("testToken"), response, adminHandler));
+        assertEquals(401, response.getStatus());
+
+        when(rolePermissionRegistry.get()).thenReturn(RolePermissions.NONE);
+        assertTrue(interceptor.preHandle(request("testToken"), new MockHttpServletResponse(), adminHandler));
+    }
+
+    @Test
+    void Override_Can_Check_The_Role_Of_A_Public_Handler() throws Exception {
+        when(rolePermissionRegistry.get()).thenReturn(override("TestController.publicRoute=ORGANIZER\n"));
+
+        assertFalse(interceptor.preHandle(request(null), response, publicHandler));
+        assertEquals(401, response.getStatus());
+    }
+
+    @Test
+    void Event_Roles_Match_The_Old_Role_Permissions() throws Exception {
+        assertEquals(EnumSet.of(RoleType.ORGANIZER), policyOf("deleteEvent", int.class, int.class));
+        assertEquals(EnumSet.of(RoleType.ORGANIZER, RoleType.ADMIN), policyOf("inviteGuest", String.class, int.class));
+        assertEquals(EnumSet.of(RoleType.ADMIN, RoleType.GUEST), policyOf("leaveEvent", int.class, int.class));
+    }
+
+    @Test
+    void Operational_Counters_Need_A_Logged_In_User() throws Exception {
+        assertTrue(RoutePolicy.of(NotificationDeliveryController.class.getMethod("getDeliveryMetrics")).isAuthenticated());
+        assertTrue(RoutePolicy.of(NotificationDeliveryController.class.getMethod("getOutboxMetrics")).isAuthenticated());
+        assertTrue(RoutePolicy.of(AuthController.class.getMethod("getLimiterStats")).isAuthenticated());
+    }
+
+    private static Object policyOf(String name, Class<?>... parameterTypes) throws Exception {
+        return RoutePolicy.of(EventController.class.getMethod(name, parameterTypes)).getEventRoles();
+    }
+
+    private static RolePermissions override(String content) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new StringReader(content));
+        return RolePermissions.compile(properties);
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/test");
+        if (token != null) {
+            request.addHeader("token", token);
+        }
+        request.setParameter("eventId", "3");
+        return request;
+    }
+
+    static class TestController {
+
+        public void publicRoute() {
+        }
+
+        @Authenticated
+        public void authenticatedRoute() {
+        }
+
+        @EventRoles({RoleType.ORGANIZER, RoleType.ADMIN})
+        public void adminRoute() {
+        }
+    }
+}
@@ -7,6 +7,7 @@ import calendar.entities.NotificationSettings;
 import calendar.entities.User;
 import calendar.entities.enums.City;
 import calendar.entities.enums.ProviderType;
+import calendar.eventNotifications.NotificationPublisher;
 import calendar.repository.UserRepository;
 import calendar.utils.Utils;
 import com.mysql.cj.log.Log;
@@ -19,6 +20,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.sql.SQLDataException;
 import java.util.HashMap;
@@ -26,7 +28,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -36,6 +38,8 @@ class AuthServiceTest {
     AuthService authService;
     @MockBean
     UserRepository userRepository;
+    @MockBean
+    NotificationPublisher notificationPublisher;
 
     static User user;
 
@@ -53,12 +57,10 @@ class AuthServiceTest {
         user.setNotificationSettings(new NotificationSettings());
         user.setPassword(Utils.hashPassword(user.getPassword()));
 
-        loginDataDTO = new LoginDataDTO(0,"testToken","Leon", City.JERUSALEM, "Leon@test.com");
+        loginDataDTO = new LoginDataDTO(0,authService.executeLogin(user),"Leon", City.JERUSALEM, "Leon@test.com");
 
         userRequest = new UserRequest("Leon@test.com", "Leon", "leon1234");
 
-        authService.getUsersTokensMap().put(loginDataDTO.getUserId(),loginDataDTO.getToken());
-
         //Code for github tests
         code = "GitHubCode";
     }
@@ -73,6 +75,21 @@ class AuthServiceTest {
         assertEquals(response.getId(), user.getId());
     }
 
+    @Test
+    void Register_Notifies_The_User_In_The_Same_Transaction() {
+        user.setId(5);
+        when(userRepository.findByEmail(userRequest.getEmail())).thenReturn(Optional.ofNullable(null));
+        when(userRepository.save(any())).thenReturn(user);
+        doAnswer(invocation -> {
+            assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+            return null;
+        }).when(notificationPublisher).publishRegistrationNotification(5);
+
+        authService.register(userRequest);
+
+        verify(notificationPublisher).publishRegistrationNotification(5);
+    }
+
     @Test
     void Try_To_Create_User_That_Exists() {
         when(userRepository.findByEmail(userRequest.getEmail())).thenReturn(Optional.ofNullable(user));
@@ -123,4 +140,24 @@ class AuthServiceTest {
 
         assertEquals(userId,Optional.empty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void Logout_Ends_Only_That_Session() {
+        String otherToken = authService.executeLogin(user);
+
+        assertTrue(authService.logout(loginDataDTO.getToken()));
+
+        assertEquals(Optional.empty(), authService.getUserIdByToken(loginDataDTO.getToken()));
+        assertEquals(Optional.of(user.getId()), authService.getUserIdByToken(otherToken));
+    }
+
+    @Test
+    void Logout_All_Ends_Every_Session_Of_The_User() {
+        String otherToken = authService.executeLogin(user);
+
+        assertTrue(authService.logoutAll(user.getId()) >= 2);
+
+        assertEquals(Optional.empty(), authService.getUserIdByToken(loginDataDTO.getToken()));
+        assertEquals(Optional.empty(), authService.getUserIdByToken(otherToken));
+    }
+}
@@ -0,0 +1,112 @@
+package calendar.service;
+
+import calendar.entities.UserSession;
+import calendar.repository.UserSessionRepository;
+import calendar.stub.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class DatabaseSessionStoreTest {
+
+    private static final long TTL = 100_000;
+    private static final long CACHE_TTL = 1_000;
+    private static final long TOUCH_INTERVAL = 10_000;
+
+    private MutableClock clock;
+    private UserSessionRepository userSessionRepository;
+    private DatabaseSessionStore sessionStore;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock();
+        userSessionRepository = mock(UserSessionRepository.class);
+        sessionStore = new DatabaseSessionStore(TTL, CACHE_TTL, 100, TOUCH_INTERVAL, clock);
+        ReflectionTestUtils.setField(sessionStore, "userSessionRepository", userSessionRepository);
+    }
+
+    @Test
+    void Create_Saves_The_Hash_Of_The_Token() {
+        String token = sessionStore.create(7);
+
+        ArgumentCaptor<UserSession> saved = ArgumentCaptor.forClass(UserSession.class);
+        verify(userSessionRepository).save(saved.capture());
+        assertEquals(7, saved.getValue().getUserId());
+        assertEquals(64, saved.getValue().getTokenHash().length());
+        assertFalse(saved.getValue().getTokenHash().contains(token));
+    }
+
+    @Test
+    void Cached_Session_Is_Not_Read_Again() {
+        String token = sessionStore.create(7);
+
+        clock.advance(CACHE_TTL - 1);
+
+        assertEquals(Optional.of(7), sessionStore.getUserId(token));
+        verify(userSessionRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void Session_Of_Another_Node_Is_Read_From_The_Database() {
+        UserSession session = new UserSession("hash", 7, clock.instant());
+        when(userSessionRepository.findById(anyString())).thenReturn(Optional.of(session));
+
+        assertEquals(Optional.of(7), sessionStore.getUserId("token-of-another-node"));
+        assertEquals(Optional.of(7), sessionStore.getUserId("token-of-another-node"));
+
+        verify(userSessionRepository, times(1)).findById(anyString());
+        verify(userSessionRepository, never()).touch(anyString(), any());
+    }
+
+    @Test
+    void Old_Last_Access_Is_Touched() {
+        UserSession session = new UserSession("hash", 7, clock.instant());
+        when(userSessionRepository.findById(anyString())).thenReturn(Optional.of(session));
+        clock.advance(TOUCH_INTERVAL + 1);
+
+        assertEquals(Optional.of(7), sessionStore.getUserId("token"));
+
+        verify(userSessionRepository).touch(anyString(), eq(clock.instant()));
+    }
+
+    @Test
+    void Expired_Session_Is_Deleted() {
+        UserSession session = new UserSession("hash", 7, clock.instant());
+        when(userSessionRepository.findById(anyString())).thenReturn(Optional.of(session));
+        clock.advance(TTL + 1);
+
+        assertEquals(Optional.empty(), sessionStore.getUserId("token"));
+
+        verify(userSessionRepository).deleteByTokenHash(anyString());
+    }
+
+    @Test
+    void Revoke_Invalidates_The_Near_Cache() {
+        String token = sessionStore.create(7);
+        when(userSessionRepository.deleteByTokenHash(anyString())).thenReturn(1);
+        when(userSessionRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        assertTrue(sessionStore.revoke(token));
+
+        assertEquals(Optional.empty(), sessionStore.getUserId(token));
+    }
+
+    @Test
+    void Revoke_All_Invalidates_The_Sessions_Of_The_User() {
+        String token = sessionStore.create(7);
+        when(userSessionRepository.deleteByUserId(7)).thenReturn(1);
+        when(userSessionRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        assertEquals(1, sessionStore.revokeAll(7));
+
+        assertEquals(Optional.empty(), sessionStore.getUserId(token));
+    }
+}
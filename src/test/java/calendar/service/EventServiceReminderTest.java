@@ -0,0 +1,82 @@
+package calendar.service;
+
+import calendar.controller.request.EventRequest;
+import calendar.entities.Event;
+import calendar.entities.NotificationSettings;
+import calendar.entities.ReminderDue;
+import calendar.entities.Role;
+import calendar.entities.User;
+import calendar.entities.enums.ProviderType;
+import calendar.entities.enums.RoleType;
+import calendar.entities.enums.StatusType;
+import calendar.eventNotifications.NotificationPublisher;
+import calendar.eventNotifications.ReminderScheduler;
+import calendar.repository.EventRepository;
+import calendar.repository.ReminderDueRepository;
+import calendar.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs the update of an event against the database, in one transaction like a request does, so the event read back
+ * after the bulk update comes from the same persistence context.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@Transactional
+class EventServiceReminderTest {
+
+    @Autowired
+    EventService eventService;
+    @Autowired
+    EventRepository eventRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ReminderDueRepository reminderDueRepository;
+    @Autowired
+    ReminderScheduler reminderScheduler;
+    @MockBean
+    NotificationPublisher notificationPublisher;
+
+    @Test
+    void Moving_An_Event_Moves_Its_Reminders() {
+        User user = new User("Leon", "reminder-test@test.com", "leon1234", ProviderType.LOCAL);
+        user.setNotificationSettings(new NotificationSettings(user));
+        user = userRepository.save(user);
+
+        ZonedDateTime time = ZonedDateTime.now(ZoneOffset.UTC).plusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        Event event = Event.getNewEvent(false, time, 1, "location", "title", "description", new ArrayList<>());
+        event.getRoles().add(new Role(user, StatusType.APPROVED, RoleType.ORGANIZER));
+        event = eventRepository.save(event);
+        reminderScheduler.scheduleEvent(event);
+
+        ZonedDateTime newTime = time.plusDays(2);
+        EventRequest eventRequest = new EventRequest();
+        eventRequest.setTime(newTime);
+
+        Event updatedEvent = eventService.updateEvent(eventRequest, event.getId());
+
+        assertEquals(newTime.toInstant(), updatedEvent.getTime().toInstant());
+        List<ReminderDue> reminders = reminderDueRepository.findByEventId(event.getId());
+        assertEquals(1, reminders.size());
+        assertEquals(newTime.toInstant().minus(10, ChronoUnit.MINUTES), reminders.get(0).getDueAt());
+        verify(notificationPublisher).publishEventChangeNotification(
+                argThat(changed -> changed.getTime().toInstant().equals(newTime.toInstant())));
+    }
+}
@@ -3,8 +3,11 @@ package calendar.service;
 import calendar.controller.request.EventRequest;
 import calendar.controller.response.BaseResponse;
 import calendar.entities.*;
+import calendar.entities.DTO.EventSummaryDTO;
+import calendar.entities.DTO.ParticipantDTO;
 import calendar.entities.DTO.UserDTO;
 import calendar.entities.enums.*;
+import calendar.eventNotifications.NotificationPublisher;
 import calendar.repository.*;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,13 +18,16 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.sql.SQLDataException;
 import java.time.ZonedDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -33,6 +39,8 @@ class EventServiceTest {
     UserRepository userRepository;
     @MockBean
     EventRepository eventRepository;
+    @MockBean
+    NotificationPublisher notificationPublisher;
 
     static Role role;
     static Role roleToInvite;
@@ -43,6 +51,7 @@ class EventServiceTest {
     static User user;
     static User userToInvite;
     static List<Event> events;
+    static List<EventSummaryDTO> eventSummaries;
     static String[] sharedUsers;
 
     @BeforeEach
@@ -84,6 +93,9 @@ class EventServiceTest {
         event.setTime(ZonedDateTime.now().plusMinutes(5));
         events = new ArrayList<>();
         events.add(event);
+        eventSummaries = new ArrayList<>();
+        eventSummaries.add(new EventSummaryDTO(1, "EventTest", event.getTime().toInstant(), null, null, false,
+                RoleType.GUEST, StatusType.APPROVED, 1));
 
         updatedEvent = new Event();
         updatedEvent.setId(1);
@@ -136,6 +148,20 @@ class EventServiceTest {
         assertEquals(response.getRoleType(), RoleType.ADMIN);
     }
 
+    @Test
+    void Switch_Role_Notifies_In_The_Same_Transaction() {
+        when(eventRepository.findById(1)).thenReturn(Optional.ofNullable(event));
+        when(userRepository.findById(1)).thenReturn(user);
+        doAnswer(invocation -> {
+            assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+            return null;
+        }).when(notificationPublisher).publishUserRoleChangedNotification(1, 1);
+
+        eventService.switchRole(1, 1);
+
+        verify(notificationPublisher).publishUserRoleChangedNotification(1, 1);
+    }
+
     @Test
     void Try_To_Switch_Role_Of_User_That_Does_Not_Exist() {
         when(eventRepository.findById(1)).thenReturn(Optional.ofNullable(event));
@@ -343,19 +369,19 @@ class EventServiceTest {
 
     @Test
     void Get_Events_By_User_Id() {
-        when(eventRepository.findAll()).thenReturn(events);
+        when(eventRepository.findEventSummariesByUserId(1, false)).thenReturn(eventSummaries);
 
-        List<Event> response = eventService.getEventsByUserId(1);
+        List<EventSummaryDTO> response = eventService.getEventsByUserId(1);
 
         assertEquals(response.size(), 1);
     }
 
     @Test
     void Try_To_Get_Events_By_User_Has_None() {
-        List<Event> emptyList = new ArrayList<>();
-        when(eventRepository.findAll()).thenReturn(emptyList);
+        List<EventSummaryDTO> emptyList = new ArrayList<>();
+        when(eventRepository.findEventSummariesByUserId(1, false)).thenReturn(emptyList);
 
-        List<Event> response = eventService.getEventsByUserId(1);
+        List<EventSummaryDTO> response = eventService.getEventsByUserId(1);
 
         assertEquals(response.size(), 0);
     }
@@ -406,19 +432,11 @@ class EventServiceTest {
 
     @Test
     void Get_Events_In_The_Next_24_Hours_Successfully(){
-        when(eventRepository.findAll()).thenReturn(events);
-
         Event event2 = new Event();
-        Event event3 = new Event();
-        Event event4 = new Event();
-        ZonedDateTime time = ZonedDateTime.now();
-
-        event2.setTime(time.plusHours(1));
-        event3.setTime(time.plusHours(26));
-        event4.setTime(time.plusHours(44));
+        event2.setTime(ZonedDateTime.now().plusHours(1));
         events.add(event2);
-        events.add(event3);
-        events.add(event4);
+
+        when(eventRepository.findEventsStartingBetween(any(), any())).thenReturn(events);
 
         List<Event> response = eventService.getEventsTillNextDay();
 
@@ -427,17 +445,7 @@ class EventServiceTest {
 
     @Test
     void Try_To_Get_Events_In_The_Next_24_Hours_When_There_Are_No_Events(){
-        when(eventRepository.findAll()).thenReturn(Collections.emptyList());
-
-        List<Event> response = eventService.getEventsTillNextDay();
-
-        assertEquals(response.size(),0);
-    }
-
-    @Test
-    void Try_To_Get_Events_In_The_Next_24_Hours_When_There_Are_No_Events_In_The_next_24_Hours(){
-        when(eventRepository.findAll()).thenReturn(events);
-        events.get(0).setTime(ZonedDateTime.now().minusHours(1));
+        when(eventRepository.findEventsStartingBetween(any(), any())).thenReturn(Collections.emptyList());
 
         List<Event> response = eventService.getEventsTillNextDay();
 
@@ -447,10 +455,10 @@ class EventServiceTest {
     @Test
     void Get_All_Shared_Successfully(){
         when(userRepository.findById(user.getId())).thenReturn(user);
-        when(eventRepository.findAll()).thenReturn(events);
+        when(eventRepository.findEventSummariesByUserId(user.getId(), true)).thenReturn(eventSummaries);
         when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.ofNullable(user));
 
-        List<Event> response = eventService.GetAllShared(user,sharedUsers);
+        List<EventSummaryDTO> response = eventService.GetAllShared(user,sharedUsers);
 
         assertEquals(1, response.size());
     }
@@ -464,4 +472,71 @@ class EventServiceTest {
     void Try_To_Get_All_Shared_User_Who_Shared_Does_Not_Exist(){
         assertThrows(NullPointerException.class,()->eventService.GetAllShared(user,null));
     }
-}
\ No newline at end of file
+
+    @Test
+    void Try_To_Get_All_Shared_Email_Of_No_User(){
+        when(userRepository.findByEmail("nobody@test.com")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class,
+                ()->eventService.getValidSharedUsers(user, new String[]{"nobody@test.com"}));
+    }
+
+    @Test
+    void Add_Participants_Sends_Every_User_Once(){
+        List<EventSummaryDTO> summaries = new ArrayList<>(eventSummaries);
+        summaries.add(new EventSummaryDTO(2, "OtherEvent", null, null, null, false, RoleType.ORGANIZER, StatusType.APPROVED, 2));
+        when(eventRepository.findParticipants(Arrays.asList(1, 2))).thenReturn(Arrays.asList(
+                new ParticipantDTO(1, 1, RoleType.GUEST, StatusType.APPROVED),
+                new ParticipantDTO(2, 1, RoleType.ORGANIZER, StatusType.APPROVED),
+                new ParticipantDTO(2, 123, RoleType.GUEST, StatusType.TENTATIVE)));
+        List<UserDTO> users = Arrays.asList(new UserDTO(1, "Test", user.getEmail(), ProviderType.LOCAL, City.PARIS),
+                new UserDTO(123, "Test2", userToInvite.getEmail(), ProviderType.LOCAL, City.PARIS));
+        when(userRepository.findUserDTOs(Arrays.asList(1, 123))).thenReturn(users);
+
+        List<UserDTO> response = eventService.addParticipants(summaries);
+
+        assertEquals(users, response);
+        assertEquals(1, summaries.get(0).getParticipants().size());
+        assertEquals(2, summaries.get(1).getParticipants().size());
+        assertEquals(123, summaries.get(1).getParticipants().get(1).getUserId());
+    }
+
+    @Test
+    void Get_Events_By_User_Id_In_Range_First_Page(){
+        ZonedDateTime from = ZonedDateTime.now();
+        when(eventRepository.findEventSummariesByUserIdInRange(eq(1), eq(false), eq(from.toInstant()),
+                eq(from.plusDays(7).toInstant()), any())).thenReturn(eventSummaries);
+
+        List<EventSummaryDTO> response = eventService.getEventsByUserIdInRange(1, from, from.plusDays(7), null, 10, false);
+
+        assertEquals(1, response.size());
+    }
+
+    @Test
+    void Get_Events_By_User_Id_In_Range_Next_Page(){
+        ZonedDateTime from = ZonedDateTime.now();
+        when(eventRepository.findEventSummariesByUserIdInRangeAfter(eq(1), eq(true), eq(from.toInstant()),
+                eq(from.plusDays(7).toInstant()), eq(from.plusHours(1).toInstant()), eq(5), any())).thenReturn(eventSummaries);
+
+        String cursor = from.plusHours(1).toInstant() + "_5";
+        List<EventSummaryDTO> response = eventService.getEventsByUserIdInRange(1, from, from.plusDays(7), cursor, 10, true);
+
+        assertEquals(1, response.size());
+    }
+
+    @Test
+    void Try_To_Get_Events_By_User_Id_In_Range_With_Invalid_Range(){
+        ZonedDateTime from = ZonedDateTime.now();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> eventService.getEventsByUserIdInRange(1, from, from.minusDays(1), null, 10, false));
+    }
+
+    @Test
+    void Try_To_Get_Events_By_User_Id_In_Range_With_Invalid_Cursor(){
+        ZonedDateTime from = ZonedDateTime.now();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> eventService.getEventsByUserIdInRange(1, from, from.plusDays(1), "not-a-cursor", 10, false));
+    }
+}
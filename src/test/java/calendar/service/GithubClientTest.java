@@ -0,0 +1,82 @@
+package calendar.service;
+
+import calendar.controller.response.GitUser;
+import calendar.stub.GithubStubServer;
+import calendar.utils.CircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GithubClientTest {
+
+    private static final long OPEN_DURATION = 300;
+
+    private GithubStubServer stub;
+    private GithubClient githubClient;
+
+    @BeforeEach
+    void setup() throws IOException {
+        stub = new GithubStubServer(0, 0).start();
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(1000);
+        requestFactory.setReadTimeout(1000);
+
+        githubClient = new GithubClient(new RestTemplate(requestFactory), stub.getTokenUrl(), stub.getUserUrl(),
+                "clientId", "clientSecret", 2, 10, 5000, 2, OPEN_DURATION);
+    }
+
+    @AfterEach
+    void shutdown() {
+        githubClient.shutdown();
+        stub.stop();
+    }
+
+    @Test
+    void Get_User_From_Code() throws Exception {
+        GitUser gitUser = githubClient.getUser("leon").get();
+
+        assertEquals("leon@stub.test", gitUser.getEmail());
+        assertEquals("leon", gitUser.getLogin());
+        assertEquals(2, stub.getRequests());
+    }
+
+    @Test
+    void Wrong_Code_Returns_Null_Without_Opening_The_Circuit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertNull(githubClient.getUser("bad").get());
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, githubClient.getCircuitState());
+    }
+
+    @Test
+    void Outage_Opens_The_Circuit_Then_Recovers() throws Exception {
+        stub.setFailing(true);
+
+        for (int i = 0; i < 2; i++) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> githubClient.getUser("leon").get());
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, githubClient.getCircuitState());
+
+        // while open GitHub is not called at all.
+        int requests = stub.getRequests();
+        stub.setFailing(false);
+        assertThrows(ExecutionException.class, () -> githubClient.getUser("leon").get());
+        assertEquals(requests, stub.getRequests());
+
+        Thread.sleep(OPEN_DURATION + 50);
+
+        assertEquals("leon@stub.test", githubClient.getUser("leon").get().getEmail());
+        assertEquals(CircuitBreaker.State.CLOSED, githubClient.getCircuitState());
+    }
+}
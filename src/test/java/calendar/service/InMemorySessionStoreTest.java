@@ -0,0 +1,99 @@
+package calendar.service;
+
+import calendar.stub.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemorySessionStoreTest {
+
+    private static final long TTL = 1000;
+
+    private MutableClock clock;
+    private InMemorySessionStore sessionStore;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock();
+        sessionStore = new InMemorySessionStore(TTL, clock);
+    }
+
+    @Test
+    void Get_User_Id_Of_New_Session() {
+        String token = sessionStore.create(7);
+
+        assertEquals(Optional.of(7), sessionStore.getUserId(token));
+    }
+
+    @Test
+    void User_Can_Have_Many_Sessions() {
+        String first = sessionStore.create(7);
+        String second = sessionStore.create(7);
+
+        assertNotEquals(first, second);
+        assertEquals(Optional.of(7), sessionStore.getUserId(first));
+        assertEquals(Optional.of(7), sessionStore.getUserId(second));
+    }
+
+    @Test
+    void Session_Expires_Without_Requests() {
+        String token = sessionStore.create(7);
+
+        clock.advance(TTL + 1);
+
+        assertEquals(Optional.empty(), sessionStore.getUserId(token));
+        assertEquals(0, sessionStore.size());
+    }
+
+    @Test
+    void Requests_Extend_The_Session() {
+        String token = sessionStore.create(7);
+
+        clock.advance(TTL - 100);
+        assertEquals(Optional.of(7), sessionStore.getUserId(token));
+
+        clock.advance(TTL - 100);
+        assertEquals(Optional.of(7), sessionStore.getUserId(token));
+    }
+
+    @Test
+    void Sweep_Removes_Only_Expired_Sessions() {
+        sessionStore.create(7);
+        clock.advance(TTL - 100);
+        String active = sessionStore.create(8);
+        clock.advance(200);
+
+        sessionStore.sweep();
+
+        assertEquals(1, sessionStore.size());
+        assertEquals(Optional.of(8), sessionStore.getUserId(active));
+    }
+
+    @Test
+    void Revoke_Ends_One_Session() {
+        String first = sessionStore.create(7);
+        String second = sessionStore.create(7);
+
+        assertTrue(sessionStore.revoke(first));
+        assertFalse(sessionStore.revoke(first));
+
+        assertEquals(Optional.empty(), sessionStore.getUserId(first));
+        assertEquals(Optional.of(7), sessionStore.getUserId(second));
+    }
+
+    @Test
+    void Revoke_All_Ends_Every_Session_Of_The_User() {
+        String first = sessionStore.create(7);
+        String second = sessionStore.create(7);
+        String other = sessionStore.create(8);
+
+        assertEquals(2, sessionStore.revokeAll(7));
+
+        assertEquals(Optional.empty(), sessionStore.getUserId(first));
+        assertEquals(Optional.empty(), sessionStore.getUserId(second));
+        assertEquals(Optional.of(8), sessionStore.getUserId(other));
+    }
+}
@@ -0,0 +1,108 @@
+package calendar.service;
+
+import calendar.utils.Utils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private PasswordHasher passwordHasher = new PasswordHasher(2, 4, 2000, 4, 0);
+
+    @AfterEach
+    void shutdown() {
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    void Hash_Then_Verify() {
+        String hash = passwordHasher.hash("leon1234");
+
+        assertTrue(passwordHasher.verify("leon1234", hash));
+        assertFalse(passwordHasher.verify("leon4321", hash));
+        assertEquals(4, PasswordHasher.getCost(hash));
+    }
+
+    @Test
+    void Empty_Password_Is_Not_Hashed() {
+        assertEquals("", passwordHasher.hash(""));
+        assertNull(passwordHasher.hash(null));
+    }
+
+    @Test
+    void Verifies_Hashes_Made_By_Utils() {
+        assertTrue(passwordHasher.verify("leon1234", Utils.hashPassword("leon1234")));
+    }
+
+    @Test
+    void Needs_Rehash_Only_When_Cost_Differs() {
+        assertFalse(passwordHasher.needsRehash(passwordHasher.hash("leon1234")));
+        assertTrue(passwordHasher.needsRehash(Utils.hashPassword("leon1234")));
+        assertFalse(passwordHasher.needsRehash(""));
+        assertFalse(passwordHasher.needsRehash("not a hash"));
+    }
+
+    @Test
+    void Rehash_Saves_Hash_With_Configured_Cost() throws InterruptedException {
+        CountDownLatch saved = new CountDownLatch(1);
+        AtomicReference<String> newHash = new AtomicReference<>();
+
+        passwordHasher.rehashAsync("leon1234", hash -> {
+            newHash.set(hash);
+            saved.countDown();
+        });
+
+        assertTrue(saved.await(5, TimeUnit.SECONDS));
+        assertEquals(4, PasswordHasher.getCost(newHash.get()));
+        assertTrue(passwordHasher.verify("leon1234", newHash.get()));
+    }
+
+    @Test
+    void Rejects_Fast_When_Queue_Is_Full() throws InterruptedException {
+        PasswordHasher busyHasher = new PasswordHasher(1, 1, 2000, 4, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        try {
+            // one task running and one queued fill the hasher.
+            for (int i = 0; i < 2; i++) {
+                callers.submit(() -> busyHasher.run(() -> release.await(5, TimeUnit.SECONDS)));
+            }
+            Thread.sleep(200);
+
+            long start = System.nanoTime();
+            assertThrows(RejectedExecutionException.class, () -> busyHasher.hash("leon1234"));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+            busyHasher.shutdown();
+        }
+    }
+
+    @Test
+    void Rejects_When_Hashing_Takes_Too_Long() {
+        PasswordHasher slowHasher = new PasswordHasher(1, 1, 100, 4, 0);
+
+        try {
+            assertThrows(RejectedExecutionException.class, () -> slowHasher.run(() -> {
+                Thread.sleep(5000);
+                return null;
+            }));
+        } finally {
+            slowHasher.shutdown();
+        }
+    }
+
+    @Test
+    void Calibrate_Stays_In_Range() {
+        int cost = PasswordHasher.calibrate(1);
+
+        assertTrue(cost >= 4 && cost <= 16);
+        assertTrue(PasswordHasher.calibrate(50) >= cost);
+    }
+}
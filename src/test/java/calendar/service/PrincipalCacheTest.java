@@ -0,0 +1,97 @@
+package calendar.service;
+
+import calendar.entities.NotificationSettings;
+import calendar.entities.Principal;
+import calendar.entities.User;
+import calendar.entities.enums.City;
+import calendar.entities.enums.ProviderType;
+import calendar.repository.UserRepository;
+import calendar.stub.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PrincipalCacheTest {
+
+    private static final long CACHE_TTL = 1_000;
+
+    private MutableClock clock;
+    private UserRepository userRepository;
+    private PrincipalCache principalCache;
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock();
+        userRepository = mock(UserRepository.class);
+        principalCache = new PrincipalCache(userRepository, CACHE_TTL, 2, clock);
+
+        user = new User("Leon", "Leon@test.com", "leon1234", ProviderType.LOCAL);
+        user.setId(7);
+        user.setCity(City.PARIS);
+        user.setNotificationSettings(new NotificationSettings(user));
+        when(userRepository.findById(7)).thenReturn(user);
+    }
+
+    @Test
+    void Principal_Is_A_Snapshot_Of_The_User() {
+        Principal principal = principalCache.get(7).get();
+
+        assertEquals(7, principal.getId());
+        assertEquals("Leon@test.com", principal.getEmail());
+        assertEquals(City.PARIS, principal.getCity());
+        assertEquals(ProviderType.LOCAL, principal.getProvider());
+        assertNotNull(principal.getNotificationSettings());
+    }
+
+    @Test
+    void Cached_Principal_Is_Not_Loaded_Again() {
+        principalCache.get(7);
+        clock.advance(CACHE_TTL - 1);
+        principalCache.get(7);
+
+        verify(userRepository, times(1)).findById(7);
+    }
+
+    @Test
+    void Expired_Principal_Is_Loaded_Again() {
+        principalCache.get(7);
+        clock.advance(CACHE_TTL);
+        principalCache.get(7);
+
+        verify(userRepository, times(2)).findById(7);
+    }
+
+    @Test
+    void Invalidate_Loads_The_Updated_User() {
+        principalCache.get(7);
+
+        user.setCity(City.LONDON);
+        principalCache.invalidate(7);
+
+        assertEquals(City.LONDON, principalCache.get(7).get().getCity());
+    }
+
+    @Test
+    void Missing_User_Has_No_Principal() {
+        assertEquals(Optional.empty(), principalCache.get(8));
+    }
+
+    @Test
+    void Cache_Stays_Bounded() {
+        for (int userId = 1; userId <= 5; userId++) {
+            User other = new User("User" + userId, "user" + userId + "@test.com", "", ProviderType.GITHUB);
+            other.setId(userId);
+            when(userRepository.findById(userId)).thenReturn(other);
+            principalCache.get(userId);
+        }
+
+        // the cache holds 2 principals at most, so the first users were dropped.
+        principalCache.get(1);
+        verify(userRepository, times(2)).findById(1);
+    }
+}
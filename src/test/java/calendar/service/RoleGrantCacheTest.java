@@ -0,0 +1,94 @@
+package calendar.service;
+
+import calendar.entities.RoleGrant;
+import calendar.entities.enums.RoleType;
+import calendar.entities.enums.StatusType;
+import calendar.repository.EventRepository;
+import calendar.stub.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RoleGrantCacheTest {
+
+    private static final long CACHE_TTL = 1_000;
+
+    private MutableClock clock;
+    private EventRepository eventRepository;
+    private RoleGrantCache roleGrantCache;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock();
+        eventRepository = mock(EventRepository.class);
+        roleGrantCache = new RoleGrantCache(eventRepository, CACHE_TTL, 2, clock);
+
+        when(eventRepository.findRoleGrant(7, 3)).thenReturn(Optional.of(new RoleGrant(RoleType.GUEST, StatusType.TENTATIVE)));
+        when(eventRepository.findRoleGrant(8, 3)).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void Cached_Role_Is_Not_Loaded_Again() {
+        roleGrantCache.get(7, 3);
+        clock.advance(CACHE_TTL - 1);
+
+        assertEquals(RoleType.GUEST, roleGrantCache.get(7, 3).get().getRoleType());
+        verify(eventRepository, times(1)).findRoleGrant(7, 3);
+    }
+
+    @Test
+    void Expired_Role_Is_Loaded_Again() {
+        roleGrantCache.get(7, 3);
+        clock.advance(CACHE_TTL);
+        roleGrantCache.get(7, 3);
+
+        verify(eventRepository, times(2)).findRoleGrant(7, 3);
+    }
+
+    @Test
+    void Missing_Role_Is_Cached_Too() {
+        assertFalse(roleGrantCache.get(8, 3).isPresent());
+        assertFalse(roleGrantCache.get(8, 3).isPresent());
+
+        verify(eventRepository, times(1)).findRoleGrant(8, 3);
+    }
+
+    @Test
+    void Invalidate_Loads_The_Updated_Role() {
+        roleGrantCache.get(7, 3);
+
+        when(eventRepository.findRoleGrant(7, 3)).thenReturn(Optional.of(new RoleGrant(RoleType.ADMIN, StatusType.TENTATIVE)));
+        roleGrantCache.invalidate(7, 3);
+
+        assertEquals(RoleType.ADMIN, roleGrantCache.get(7, 3).get().getRoleType());
+    }
+
+    @Test
+    void Invalidate_Event_Forgets_All_Its_Roles() {
+        when(eventRepository.findRoleGrant(7, 4)).thenReturn(Optional.empty());
+        roleGrantCache.get(7, 3);
+        roleGrantCache.get(7, 4);
+
+        roleGrantCache.invalidateEvent(3);
+        roleGrantCache.get(7, 3);
+        roleGrantCache.get(7, 4);
+
+        verify(eventRepository, times(2)).findRoleGrant(7, 3);
+        verify(eventRepository, times(1)).findRoleGrant(7, 4);
+    }
+
+    @Test
+    void Cache_Stays_Bounded() {
+        for (int eventId = 1; eventId <= 5; eventId++) {
+            roleGrantCache.get(8, eventId);
+        }
+
+        // the cache holds 2 roles at most, so the first events were dropped.
+        roleGrantCache.get(8, 1);
+        verify(eventRepository, times(2)).findRoleGrant(8, 1);
+    }
+}
@@ -0,0 +1,185 @@
+package calendar.service;
+
+import calendar.entities.TokenRevocation;
+import calendar.entities.User;
+import calendar.entities.enums.City;
+import calendar.entities.enums.ProviderType;
+import calendar.repository.TokenRevocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SignedTokenServiceTest {
+
+    private static final String OLD_KEY = "k1:" + Base64.getEncoder().encodeToString("old-secret-old-secret-old-secret".getBytes());
+    private static final String NEW_KEY = "k2:" + Base64.getEncoder().encodeToString("new-secret-new-secret-new-secret".getBytes());
+    private static final long TTL = 60_000;
+    private static final Clock NOW = Clock.fixed(Instant.parse("2022-11-01T10:00:00Z"), ZoneOffset.UTC);
+
+    private SignedTokenService signedTokenService;
+    private User user;
+
+    // the token_revocation table shared by every node of a test.
+    private List<TokenRevocation> revocations;
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @BeforeEach
+    void setup() {
+        revocations = new ArrayList<>();
+        tokenRevocationRepository = mock(TokenRevocationRepository.class);
+        when(tokenRevocationRepository.save(any(TokenRevocation.class))).thenAnswer(invocation -> {
+            revocations.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(tokenRevocationRepository.findRevokedSince(any(Instant.class), any(Instant.class))).thenAnswer(invocation ->
+                revocations.stream()
+                        .filter(revocation -> !revocation.getRevokedAt().isBefore(invocation.getArgument(0)))
+                        .filter(revocation -> revocation.getExpiresAt().isAfter(invocation.getArgument(1)))
+                        .collect(Collectors.toList()));
+
+        signedTokenService = node(NOW);
+
+        user = new User("Leon", "Leon@test.com", "leon1234", ProviderType.LOCAL);
+        user.setId(7);
+        user.setCity(City.PARIS);
+    }
+
+    @Test
+    void Verify_Issued_Token() {
+        String token = signedTokenService.issue(user);
+
+        SignedTokenService.Claims claims = signedTokenService.verify(token).get();
+
+        assertTrue(SignedTokenService.isSignedToken(token));
+        assertEquals(7, claims.getUserId());
+        assertEquals(City.PARIS, claims.getCity());
+        assertEquals(NOW.instant().getEpochSecond() + 60, claims.getExpiresAt());
+    }
+
+    @Test
+    void Tampered_Token_Is_Rejected() {
+        String token = signedTokenService.issue(user);
+        String[] parts = token.split("\\.");
+        String otherUser = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                new String(Base64.getUrlDecoder().decode(parts[1])).replace("\"sub\":\"7\"", "\"sub\":\"8\"").getBytes());
+
+        assertEquals(Optional.empty(), signedTokenService.verify(parts[0] + "." + otherUser + "." + parts[2]));
+        assertEquals(Optional.empty(), signedTokenService.verify("not-a-token"));
+    }
+
+    @Test
+    void Expired_Token_Is_Rejected() {
+        String token = signedTokenService.issue(user);
+
+        SignedTokenService later = node(Clock.offset(NOW, Duration.ofMillis(TTL)));
+
+        assertEquals(Optional.empty(), later.verify(token));
+    }
+
+    @Test
+    void Token_Signed_Before_Rotation_Is_Still_Valid() {
+        String oldToken = signedTokenService.issue(user);
+
+        SignedTokenService rotated = new SignedTokenService(NEW_KEY + "," + OLD_KEY, TTL, NOW);
+        String newToken = rotated.issue(user);
+
+        assertTrue(rotated.verify(oldToken).isPresent());
+        assertTrue(rotated.verify(newToken).isPresent());
+        assertEquals(Optional.empty(), signedTokenService.verify(newToken));
+    }
+
+    @Test
+    void Revoked_Token_Is_Rejected() {
+        String token = signedTokenService.issue(user);
+        String other = signedTokenService.issue(user);
+
+        assertTrue(signedTokenService.revoke(token));
+
+        assertEquals(Optional.empty(), signedTokenService.verify(token));
+        assertTrue(signedTokenService.verify(other).isPresent());
+    }
+
+    @Test
+    void Revoke_All_Rejects_Every_Token_Of_The_User() {
+        String token = signedTokenService.issue(user);
+        user.setId(8);
+        String otherUser = signedTokenService.issue(user);
+
+        SignedTokenService later = node(Clock.offset(NOW, Duration.ofMillis(1)));
+        later.revokeAll(7);
+
+        assertEquals(Optional.empty(), later.verify(token));
+        assertTrue(later.verify(otherUser).isPresent());
+    }
+
+    @Test
+    void Login_In_The_Same_Second_After_Revoke_All_Is_Valid() {
+        String token = signedTokenService.issue(user);
+
+        node(Clock.offset(NOW, Duration.ofMillis(100))).revokeAll(7);
+
+        SignedTokenService later = node(Clock.offset(NOW, Duration.ofMillis(300)));
+        later.syncRevocations();
+        String newToken = later.issue(user);
+
+        assertEquals(Optional.empty(), later.verify(token));
+        assertTrue(later.verify(newToken).isPresent());
+    }
+
+    @Test
+    void Revocations_Reach_The_Other_Nodes_On_Sync() {
+        SignedTokenService otherNode = node(Clock.offset(NOW, Duration.ofMillis(1)));
+        otherNode.syncRevocations();
+        String token = signedTokenService.issue(user);
+        String other = signedTokenService.issue(user);
+        user.setId(8);
+        String otherUser = signedTokenService.issue(user);
+
+        signedTokenService.revoke(token);
+        otherNode.revokeAll(8);
+
+        assertTrue(otherNode.verify(token).isPresent());
+        assertTrue(signedTokenService.verify(otherUser).isPresent());
+
+        otherNode.syncRevocations();
+        signedTokenService.syncRevocations();
+
+        assertEquals(Optional.empty(), otherNode.verify(token));
+        assertEquals(Optional.empty(), signedTokenService.verify(otherUser));
+        assertTrue(otherNode.verify(other).isPresent());
+    }
+
+    @Test
+    void Started_Node_Loads_The_Live_Revocations() {
+        String token = signedTokenService.issue(user);
+        signedTokenService.revoke(token);
+
+        SignedTokenService started = node(NOW);
+        started.syncRevocations();
+
+        assertEquals(Optional.empty(), started.verify(token));
+    }
+
+    private SignedTokenService node(Clock clock) {
+
+        SignedTokenService node = new SignedTokenService(OLD_KEY, TTL, clock);
+        ReflectionTestUtils.setField(node, "tokenRevocationRepository", tokenRevocationRepository);
+
+        return node;
+    }
+}
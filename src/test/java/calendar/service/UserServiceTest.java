@@ -10,6 +10,7 @@ import calendar.entities.Role;
 import calendar.entities.User;
 import calendar.entities.enums.City;
 import calendar.entities.enums.ProviderType;
+import calendar.eventNotifications.entity.NotificationRecipient;
 import calendar.repository.EventRepository;
 import calendar.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -28,7 +29,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -280,4 +282,20 @@ class UserServiceTest {
         assertThrows(IllegalArgumentException.class,()-> userService.shareCalendar(user2,user));
     }
 
-}
\ No newline at end of file
+    @Test
+    void Get_Notification_Recipients_Loads_Them_In_Batches(){
+        List<Integer> userIds = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            userIds.add(i);
+        }
+        userIds.add(0);
+        when(userRepository.findNotificationRecipients(any())).thenReturn(List.of(
+                new NotificationRecipient(user.getId(), user.getEmail(), null, null, null, null, null, null, null, null)));
+
+        List<NotificationRecipient> recipients = userService.getNotificationRecipients(userIds);
+
+        verify(userRepository, times(3)).findNotificationRecipients(any());
+        assertEquals(3, recipients.size());
+    }
+
+}
@@ -0,0 +1,156 @@
+package calendar.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for the two GitHub endpoints of the OAuth login, so the GitHub login can be tested and
+ * load-tested offline. Every code is accepted except "bad" (401), the code "<name>" logs in as the user
+ * <name>@stub.test, and every answer can be delayed to imitate the latency of GitHub, or fail with 503 to imitate
+ * an outage.
+ * <p>
+ * Run the main method from the test classpath (arguments: port, delay in ms) and start the server with
+ * github.oauth.token-url=http://localhost:PORT/login/oauth/access_token and
+ * github.api.user-url=http://localhost:PORT/user
+ */
+public class GithubStubServer {
+
+    public static final String TOKEN_PATH = "/login/oauth/access_token";
+
+    public static final String USER_PATH = "/user";
+
+    private final HttpServer server;
+
+    private final long delay;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile boolean failing;
+
+    public GithubStubServer(int port, long delay) throws IOException {
+        this.delay = delay;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 256);
+        this.server.createContext(TOKEN_PATH, this::token);
+        this.server.createContext(USER_PATH, this::user);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+    }
+
+    public GithubStubServer start() {
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getTokenUrl() {
+        return "http://localhost:" + getPort() + TOKEN_PATH;
+    }
+
+    public String getUserUrl() {
+        return "http://localhost:" + getPort() + USER_PATH;
+    }
+
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    private void token(HttpExchange exchange) throws IOException {
+
+        String code = getQueryParam(exchange.getRequestURI(), "code");
+
+        if (code == null || code.equals("bad")) {
+            respond(exchange, 401, "{\"error\":\"bad_verification_code\"}");
+            return;
+        }
+
+        respond(exchange, 200, "{\"access_token\":\"stub-" + code + "\",\"token_type\":\"bearer\",\"scope\":\"user:email\"}");
+    }
+
+    private void user(HttpExchange exchange) throws IOException {
+
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+
+        if (authorization == null || !authorization.startsWith("Bearer stub-")) {
+            respond(exchange, 401, "{\"message\":\"Bad credentials\"}");
+            return;
+        }
+
+        String login = authorization.substring("Bearer stub-".length());
+
+        respond(exchange, 200, "{\"login\":\"" + login + "\",\"name\":\"" + login + "\",\"email\":\"" + login + "@stub.test\"}");
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+
+        requests.incrementAndGet();
+
+        if (failing) {
+            status = 503;
+            body = "{\"message\":\"Service unavailable\"}";
+        }
+
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String getQueryParam(URI uri, String name) {
+
+        if (uri.getRawQuery() == null) {
+            return null;
+        }
+
+        for (String param : uri.getRawQuery().split("&")) {
+            String[] pair = param.split("=", 2);
+            if (pair.length == 2 && pair[0].equals(name)) {
+                return pair[1];
+            }
+        }
+
+        return null;
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        long delay = args.length > 1 ? Long.parseLong(args[1]) : 0;
+
+        GithubStubServer stub = new GithubStubServer(port, delay).start();
+
+        System.out.println("GitHub stub listening, start the server with:");
+        System.out.println("  github.oauth.token-url=" + stub.getTokenUrl());
+        System.out.println("  github.api.user-url=" + stub.getUserUrl());
+    }
+}
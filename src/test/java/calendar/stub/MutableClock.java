@@ -0,0 +1,46 @@
+package calendar.stub;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A clock which only moves when a test advances it, for the classes which take a Clock to measure TTLs and windows.
+ */
+public class MutableClock extends Clock {
+
+    private volatile long millis;
+
+    public MutableClock() {
+        this(Instant.parse("2022-01-01T00:00:00Z").toEpochMilli());
+    }
+
+    public MutableClock(long startMillis) {
+        this.millis = startMillis;
+    }
+
+    public void advance(long ms) {
+        millis += ms;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+}
@@ -0,0 +1,76 @@
+package calendar.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long START = 1_000_000_000L;
+
+    private TimingWheel<String> wheel;
+
+    @BeforeEach
+    void setup() {
+        wheel = new TimingWheel<>(1000, 60, 4, START);
+    }
+
+    @Test
+    void Key_Is_Due_After_Its_Deadline() {
+        wheel.schedule("a", START + 5_500);
+
+        assertTrue(wheel.advance(START + 5_000).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(START + 6_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void Keys_On_Higher_Levels_Cascade_Down() {
+        long inTwoHours = START + 2 * 60 * 60 * 1000;
+        long inThreeDays = START + 3L * 24 * 60 * 60 * 1000;
+        wheel.schedule("hours", inTwoHours);
+        wheel.schedule("days", inThreeDays);
+
+        assertTrue(wheel.advance(inTwoHours - 1000).isEmpty());
+        assertEquals(List.of("hours"), wheel.advance(inTwoHours + 1000));
+        assertTrue(wheel.advance(inThreeDays - 1000).isEmpty());
+        assertEquals(List.of("days"), wheel.advance(inThreeDays + 1000));
+    }
+
+    @Test
+    void Keys_Beyond_The_Top_Level_Wait_In_Overflow() {
+        long inAYear = START + 365L * 24 * 60 * 60 * 1000;
+        wheel.schedule("year", inAYear);
+
+        assertTrue(wheel.advance(inAYear - 1000).isEmpty());
+        assertEquals(List.of("year"), wheel.advance(inAYear + 1000));
+    }
+
+    @Test
+    void Cancelled_Key_Is_Never_Due() {
+        wheel.schedule("a", START + 10_000);
+
+        assertTrue(wheel.cancel("a"));
+        assertTrue(wheel.advance(START + 20_000).isEmpty());
+    }
+
+    @Test
+    void Rescheduling_Replaces_The_Deadline() {
+        wheel.schedule("a", START + 10_000);
+        wheel.schedule("a", START + 30_000);
+
+        assertTrue(wheel.advance(START + 20_000).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(START + 31_000));
+    }
+
+    @Test
+    void Try_To_Schedule_A_Passed_Deadline() {
+        wheel.advance(START + 10_000);
+
+        assertFalse(wheel.schedule("a", START + 5_000));
+        assertEquals(0, wheel.size());
+    }
+}
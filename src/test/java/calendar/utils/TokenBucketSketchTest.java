@@ -0,0 +1,110 @@
+package calendar.utils;
+
+import calendar.stub.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketSketchTest {
+
+    private MutableClock clock;
+    private TokenBucketSketch buckets;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock();
+        buckets = new TokenBucketSketch(3, 60, 1024, 2, clock);
+    }
+
+    @Test
+    void Allows_Up_To_Capacity_Then_Rejects() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(buckets.tryAcquire("leon@test.com"));
+        }
+
+        assertFalse(buckets.tryAcquire("leon@test.com"));
+    }
+
+    @Test
+    void Keys_Have_Their_Own_Buckets() {
+        for (int i = 0; i < 3; i++) {
+            buckets.tryAcquire("leon@test.com");
+        }
+
+        assertTrue(buckets.tryAcquire("grisha@test.com"));
+    }
+
+    @Test
+    void Tokens_Come_Back_Over_Time() {
+        for (int i = 0; i < 3; i++) {
+            buckets.tryAcquire("leon@test.com");
+        }
+
+        clock.advance(999);
+        assertFalse(buckets.tryAcquire("leon@test.com"));
+
+        // rejected attempts do not delay the refill: 60 per minute is one token per second.
+        clock.advance(1);
+        assertTrue(buckets.tryAcquire("leon@test.com"));
+        assertFalse(buckets.tryAcquire("leon@test.com"));
+    }
+
+    @Test
+    void Refill_Stops_At_Capacity() {
+        buckets.tryAcquire("leon@test.com");
+        clock.advance(3_600_000);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(buckets.tryAcquire("leon@test.com"));
+        }
+        assertFalse(buckets.tryAcquire("leon@test.com"));
+    }
+
+    @Test
+    void A_Collision_In_One_Row_Does_Not_Lock_Out_Other_Keys() {
+        // a single slot per row: every key collides in every row.
+        TokenBucketSketch tinyBuckets = new TokenBucketSketch(1, 1, 1, 2, clock);
+
+        assertTrue(tinyBuckets.tryAcquire("leon@test.com"));
+        assertFalse(tinyBuckets.tryAcquire("grisha@test.com"));
+
+        // with enough slots, keys share a bucket in one row at most once in a while.
+        int rejected = 0;
+        TokenBucketSketch wideBuckets = new TokenBucketSketch(1, 1, 65536, 2, clock);
+        for (int i = 0; i < 1000; i++) {
+            if (!wideBuckets.tryAcquire("user" + i + "@test.com")) {
+                rejected++;
+            }
+        }
+        assertTrue(rejected <= 2, rejected + " keys were rejected");
+    }
+
+    @Test
+    void Keys_With_The_Same_String_Hash_Code_Do_Not_Share_Buckets() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        for (int i = 0; i < 3; i++) {
+            buckets.tryAcquire("Aa");
+        }
+
+        assertFalse(buckets.tryAcquire("Aa"));
+        assertTrue(buckets.tryAcquire("BB"));
+    }
+
+    @Test
+    void Murmur3_Matches_The_Reference_Implementation() {
+        assertEquals(0xCBD8A7B341BD9B02L, TokenBucketSketch.murmur3("hello".getBytes(StandardCharsets.UTF_8), 0));
+        assertEquals(0xE34BBC7BBC071B6CL, TokenBucketSketch.murmur3(
+                "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8), 0));
+    }
+
+    @Test
+    void Invalid_Settings_Are_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketSketch(0, 1, 16, 2, clock));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketSketch(1, 0, 16, 2, clock));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketSketch(1, 1, 16, 5, clock));
+    }
+}
@@ -0,0 +1,101 @@
+package calendar.utils;
+
+import calendar.stub.MutableClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TtlCacheTest {
+
+    private static final long TTL = 1000;
+
+    private MutableClock clock;
+    private TtlCache<Integer, String> cache;
+
+    @BeforeEach
+    void setup() {
+        clock = new MutableClock();
+        cache = new TtlCache<>(TTL, 10, clock);
+    }
+
+    @Test
+    void Entries_Expire_After_The_Ttl() {
+        cache.put(1, "one");
+        clock.advance(TTL - 1);
+
+        assertEquals("one", cache.get(1));
+
+        clock.advance(1);
+
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void A_Full_Cache_Evicts_The_Expired_Entries_First() {
+        for (int key = 0; key < 5; key++) {
+            cache.put(key, "old" + key);
+        }
+        clock.advance(TTL);
+        for (int key = 5; key < 10; key++) {
+            cache.put(key, "new" + key);
+        }
+
+        cache.put(10, "ten");
+
+        assertEquals(6, cache.size());
+        assertEquals("new5", cache.get(5));
+        assertEquals("ten", cache.get(10));
+    }
+
+    @Test
+    void A_Full_Cache_Evicts_Only_The_Oldest_Entry() {
+        for (int key = 0; key < 10; key++) {
+            cache.put(key, "value" + key);
+            clock.advance(1);
+        }
+
+        cache.put(10, "ten");
+
+        assertEquals(10, cache.size());
+        assertNull(cache.get(0));
+        for (int key = 1; key <= 10; key++) {
+            assertNotNull(cache.get(key));
+        }
+    }
+
+    @Test
+    void Replacing_An_Entry_Of_A_Full_Cache_Evicts_Nothing() {
+        for (int key = 0; key < 10; key++) {
+            cache.put(key, "value" + key);
+        }
+
+        cache.put(3, "three");
+
+        assertEquals(10, cache.size());
+        assertEquals("three", cache.get(3));
+    }
+
+    @Test
+    void Removes_The_Matching_Entries() {
+        cache.put(1, "odd");
+        cache.put(2, "even");
+        cache.put(3, "odd");
+
+        cache.removeIf((key, value) -> value.equals("odd"));
+
+        assertEquals(1, cache.size());
+        assertEquals("even", cache.get(2));
+    }
+
+    @Test
+    void Evicts_The_Expired_Entries_On_Demand() {
+        cache.put(1, "one");
+        clock.advance(TTL);
+        cache.put(2, "two");
+
+        cache.evictExpired();
+
+        assertEquals(1, cache.size());
+    }
+}